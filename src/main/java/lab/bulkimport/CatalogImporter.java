@@ -0,0 +1,101 @@
+package lab.bulkimport;
+
+import io.agroal.api.AgroalDataSource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lab.cache.DualOrmCacheManager;
+import lab.eclipselink.repository.ShopRepository;
+import lab.quarkus.repository.GiftRepository;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Bulk-loads supplier catalogs (CSV with a header line) into the shops and gifts tables,
+ * bypassing both ORMs: COPY FROM STDIN on PostgreSQL, batched INSERTs elsewhere.
+ *
+ * Accepted columns are those of {@link ImportTarget}; "id" is optional, per file and per row.
+ * Each file is imported in one transaction of its own. Since the ORMs did not see the rows, their
+ * shared caches for the entity are invalidated afterwards and the shop name index or the gift
+ * price index is rebuilt.
+ */
+@ApplicationScoped
+public class CatalogImporter {
+    
+    private static final Logger LOG = Logger.getLogger(CatalogImporter.class);
+    
+    @Inject
+    AgroalDataSource dataSource;
+    
+    @Inject
+    DualOrmCacheManager cacheManager;
+    
+    @Inject
+    ShopRepository shopRepository;
+    
+    @Inject
+    GiftRepository giftRepository;
+    
+    @ConfigProperty(name = "import.batch-size", defaultValue = "1000")
+    int batchSize;
+    
+    /**
+     * Returns the number of imported shops
+     */
+    public long importShops(Reader csv) throws IOException, SQLException {
+        long rows = load(ImportTarget.SHOPS, csv);
+        cacheManager.evictShops();
+        if (shopRepository.isNameIndexReady()) {
+            shopRepository.rebuildNameIndex();
+        }
+        return rows;
+    }
+    
+    public long importShops(InputStream csv) throws IOException, SQLException {
+        return importShops(new InputStreamReader(csv, StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Returns the number of imported gifts
+     */
+    public long importGifts(Reader csv) throws IOException, SQLException {
+        long rows = load(ImportTarget.GIFTS, csv);
+        cacheManager.evictGifts();
+        if (giftRepository.isPriceIndexReady()) {
+            giftRepository.rebuildPriceIndex();
+        }
+        if (giftRepository.priceSnapshot().isReady()) {
+            giftRepository.rebuildPriceSnapshot();
+        }
+        return rows;
+    }
+    
+    public long importGifts(InputStream csv) throws IOException, SQLException {
+        return importGifts(new InputStreamReader(csv, StandardCharsets.UTF_8));
+    }
+    
+    private long load(ImportTarget target, Reader csv) throws IOException, SQLException {
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                long rows = new CsvTableLoader(connection, batchSize).load(target, csv);
+                connection.commit();
+                LOG.infof("Imported %d rows into %s in %d ms", rows, target.table, (System.nanoTime() - start) / 1_000_000);
+                return rows;
+            } catch (IOException | SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+}
\ No newline at end of file
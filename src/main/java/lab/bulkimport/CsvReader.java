@@ -0,0 +1,72 @@
+package lab.bulkimport;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 reader. Reads one character at a time so that the underlying reader is left
+ * exactly after the last record read (the COPY path hands the rest of it to the driver).
+ * An unquoted empty field is read as null, a quoted one ("") as an empty string, like COPY ... CSV.
+ */
+final class CsvReader {
+    
+    private final BufferedReader in;
+    
+    CsvReader(BufferedReader in) {
+        this.in = in;
+    }
+    
+    /**
+     * Returns the next record, or null at end of input
+     */
+    List<String> readRecord() throws IOException {
+        int c = in.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean inQuotes = false;
+        while (true) {
+            if (inQuotes) {
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted field");
+                }
+                if (c == '"') {
+                    in.mark(1);
+                    int next = in.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                        in.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == ',' || c == '\n' || c == '\r' || c == -1) {
+                fields.add(quoted || field.length() > 0 ? field.toString() : null);
+                if (c != ',') {
+                    if (c == '\r') {
+                        in.mark(1);
+                        if (in.read() != '\n') {
+                            in.reset();
+                        }
+                    }
+                    return fields;
+                }
+                field.setLength(0);
+                quoted = false;
+            } else if (c == '"' && field.length() == 0 && !quoted) {
+                quoted = true;
+                inQuotes = true;
+            } else {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+    }
+}
\ No newline at end of file
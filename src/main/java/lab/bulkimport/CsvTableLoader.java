@@ -0,0 +1,213 @@
+package lab.bulkimport;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads a CSV file (header line first) into one of the {@link ImportTarget} tables on a
+ * connection the caller owns and commits.
+ *
+ * On PostgreSQL the rows are streamed with COPY FROM STDIN into a temporary staging table, then
+ * moved with a single INSERT ... SELECT that draws missing ids from the sequence. Other databases
+ * (H2 in tests) get batched INSERTs. When the file supplies ids, the sequence is moved past the
+ * highest id so that the ORMs' next id blocks cannot collide with the imported rows.
+ */
+final class CsvTableLoader {
+    
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    
+    private final Connection connection;
+    private final int batchSize;
+    
+    CsvTableLoader(Connection connection, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.connection = connection;
+        this.batchSize = batchSize;
+    }
+    
+    /**
+     * Returns the number of imported rows
+     */
+    long load(ImportTarget target, Reader input) throws IOException, SQLException {
+        if (connection.getAutoCommit()) {
+            throw new IllegalStateException("The import must run in a transaction (auto-commit is on)");
+        }
+        BufferedReader in = input instanceof BufferedReader buffered ? buffered : new BufferedReader(input, READ_BUFFER_SIZE);
+        CsvReader csv = new CsvReader(in);
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            return 0;
+        }
+        List<String> columns = target.validateHeader(header);
+        boolean postgres = isPostgres();
+        String sequence = postgres ? postgresSequence(target) : target.sequence;
+        long rows = postgres
+            ? copy(target, sequence, columns, in)
+            : insertBatches(target, sequence, columns, csv);
+        if (columns.contains("id")) {
+            if (postgres) {
+                realignPostgresSequence(target, sequence);
+            } else {
+                realignSequence(target, sequence);
+            }
+        }
+        return rows;
+    }
+    
+    private boolean isPostgres() throws SQLException {
+        return "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+    }
+    
+    /**
+     * The sequence behind a serial/identity id column if there is one, the target's sequence otherwise
+     */
+    private String postgresSequence(ImportTarget target) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_get_serial_sequence(?, 'id')")) {
+            statement.setString(1, target.table);
+            try (ResultSet rs = statement.executeQuery()) {
+                String serial = rs.next() ? rs.getString(1) : null;
+                return serial != null ? serial : target.sequence;
+            }
+        }
+    }
+    
+    private long copy(ImportTarget target, String sequence, List<String> columns, Reader rows) throws IOException, SQLException {
+        String staging = "import_" + target.table;
+        String columnList = String.join(", ", columns);
+        try (Statement statement = connection.createStatement()) {
+            // Same column types as the target, none of its constraints
+            statement.execute("CREATE TEMP TABLE " + staging + " ON COMMIT DROP AS SELECT " + columnList
+                + " FROM " + target.table + " WITH NO DATA");
+        }
+        
+        CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        long copied = copyManager.copyIn("COPY " + staging + " (" + columnList + ") FROM STDIN WITH (FORMAT csv)", rows);
+        
+        String idValue = columns.contains("id")
+            ? "COALESCE(id, nextval('" + sequence + "'))"
+            : "nextval('" + sequence + "')";
+        List<String> insertColumns = new ArrayList<>(List.of("id"));
+        List<String> selectValues = new ArrayList<>(List.of(idValue));
+        for (String column : columns) {
+            if (!column.equals("id")) {
+                insertColumns.add(column);
+                selectValues.add(column);
+            }
+        }
+        for (Map.Entry<String, String> fixed : target.fixedValues.entrySet()) {
+            insertColumns.add(fixed.getKey());
+            selectValues.add(fixed.getValue());
+        }
+        try (Statement statement = connection.createStatement()) {
+            long inserted = statement.executeLargeUpdate("INSERT INTO " + target.table + " (" + String.join(", ", insertColumns)
+                + ") SELECT " + String.join(", ", selectValues) + " FROM " + staging);
+            statement.execute("DROP TABLE " + staging);
+            if (inserted != copied) {
+                throw new SQLException("Copied " + copied + " rows into " + staging + " but inserted " + inserted);
+            }
+            return inserted;
+        }
+    }
+    
+    private long insertBatches(ImportTarget target, String sequence, List<String> columns, CsvReader csv) throws IOException, SQLException {
+        // Placeholders follow the CSV order, so field i binds parameter i + 1
+        List<String> insertColumns = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        if (!columns.contains("id")) {
+            insertColumns.add("id");
+            values.add("NEXT VALUE FOR " + sequence);
+        }
+        for (String column : columns) {
+            insertColumns.add(column);
+            values.add(column.equals("id") ? "COALESCE(CAST(? AS BIGINT), NEXT VALUE FOR " + sequence + ")" : "?");
+        }
+        for (Map.Entry<String, String> fixed : target.fixedValues.entrySet()) {
+            insertColumns.add(fixed.getKey());
+            values.add(fixed.getValue());
+        }
+        
+        long rows = 0;
+        String sql = "INSERT INTO " + target.table + " (" + String.join(", ", insertColumns)
+            + ") VALUES (" + String.join(", ", values) + ")";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int pending = 0;
+            List<String> record;
+            while ((record = csv.readRecord()) != null) {
+                if (record.size() == 1 && record.get(0) == null) {
+                    continue; // blank line
+                }
+                if (record.size() != columns.size()) {
+                    throw new IllegalArgumentException("Line " + (rows + 2) + " has " + record.size()
+                        + " fields, expected " + columns.size());
+                }
+                for (int i = 0; i < record.size(); i++) {
+                    statement.setString(i + 1, record.get(i));
+                }
+                statement.addBatch();
+                rows++;
+                if (++pending == batchSize) {
+                    statement.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                statement.executeBatch();
+            }
+        }
+        return rows;
+    }
+    
+    /**
+     * setval(max(id)): the next value is then max(id) + increment, so the block an ORM allocates
+     * from it (pooled optimizers use [value - increment + 1, value]) starts above the imported ids
+     */
+    private void realignPostgresSequence(ImportTarget target, String sequence) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SELECT setval('" + sequence + "', GREATEST((SELECT COALESCE(MAX(id), 0) FROM "
+                + target.table + "), (SELECT last_value FROM " + sequence + ")))");
+        }
+    }
+    
+    /**
+     * Same rule as realignPostgresSequence() with the standard INFORMATION_SCHEMA view (H2)
+     */
+    private void realignSequence(ImportTarget target, String sequence) throws SQLException {
+        long maxId;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + target.table)) {
+            rs.next();
+            maxId = rs.getLong(1);
+        }
+        long nextValue;
+        long increment;
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT BASE_VALUE, INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES WHERE UPPER(SEQUENCE_NAME) = UPPER(?)")) {
+            statement.setString(1, sequence);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Sequence not found: " + sequence);
+                }
+                nextValue = rs.getLong(1);
+                increment = rs.getLong(2);
+            }
+        }
+        if (nextValue <= maxId + increment - 1) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (maxId + increment));
+            }
+        }
+    }
+}
\ No newline at end of file
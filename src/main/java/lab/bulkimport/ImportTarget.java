@@ -0,0 +1,56 @@
+package lab.bulkimport;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tables {@link CatalogImporter} can load, with the CSV columns each accepts besides "id"
+ */
+public enum ImportTarget {
+    
+    SHOPS("shops", "shops_seq", Map.of("version", "1"), "name", "address", "city", "phone", "category"),
+    
+    GIFTS("gifts", "gifts_seq", Map.of(), "name", "description", "price", "category");
+    
+    final String table;
+    
+    /**
+     * Used for rows without an id, unless the id column is a serial/identity column (PostgreSQL)
+     */
+    final String sequence;
+    
+    /**
+     * Columns not read from the CSV, with their SQL value
+     */
+    final Map<String, String> fixedValues;
+    
+    final List<String> columns;
+    
+    ImportTarget(String table, String sequence, Map<String, String> fixedValues, String... columns) {
+        this.table = table;
+        this.sequence = sequence;
+        this.fixedValues = fixedValues;
+        this.columns = List.of(columns);
+    }
+    
+    /**
+     * Checks a CSV header: known columns only, each at most once
+     */
+    List<String> validateHeader(List<String> header) {
+        Set<String> seen = new HashSet<>();
+        for (String column : header) {
+            if (column == null || !(column.equals("id") || columns.contains(column))) {
+                throw new IllegalArgumentException("Unknown column for " + table + ": " + column);
+            }
+            if (!seen.add(column)) {
+                throw new IllegalArgumentException("Duplicate column for " + table + ": " + column);
+            }
+        }
+        if (seen.isEmpty() || seen.equals(Set.of("id"))) {
+            throw new IllegalArgumentException("No data column for " + table + " in " + header);
+        }
+        return header;
+    }
+}
\ No newline at end of file
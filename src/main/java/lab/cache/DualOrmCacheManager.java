@@ -4,7 +4,10 @@ import io.quarkus.runtime.Startup;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
+import lab.eclipselink.EclipseLink;
+import lab.eclipselink.entity.Shop;
+import lab.eclipselink.repository.ShopRepository;
+import lab.quarkus.entity.Gift;
 import org.hibernate.SessionFactory;
 import org.hibernate.cache.spi.CacheImplementor;
 import org.eclipse.persistence.sessions.DatabaseSession;
@@ -23,16 +26,18 @@ public class DualOrmCacheManager {
     @Inject
     EntityManagerFactory hibernateEmf; // Quarkus-managed Hibernate
     
-    private EntityManagerFactory eclipseLinkEmf;
+    @Inject
+    @EclipseLink
+    EntityManagerFactory eclipseLinkEmf; // Shared with ShopRepository
+    
+    @Inject
+    ShopRepository shopRepository; // Owns the Shop query-result cache
     
     public void init() {
         LOG.info("Initializing Dual ORM Cache Manager");
         
-        // Initialize EclipseLink EMF for cache management
-        eclipseLinkEmf = Persistence.createEntityManagerFactory("eclipselink-pu");
-        
         LOG.info("Cache coordination disabled between ORM systems (different tables)");
-        LOG.info("Hibernate cache: L1 + L2 (Caffeine) for Gift entities");
+        LOG.info("Hibernate cache: L1 + L2 (Caffeine) for Gift entities, query cache for the Gift finders");
         LOG.info("EclipseLink cache: L1 + L2 (SoftWeak) for Shop entities");
     }
     
@@ -75,6 +80,7 @@ public class DualOrmCacheManager {
                 try {
                     DatabaseSession session = em.unwrap(DatabaseSession.class);
                     session.getIdentityMapAccessor().initializeAllIdentityMaps();
+                    shopRepository.clearQueryCache();
                     LOG.info("EclipseLink cache cleared");
                 } finally {
                     em.close();
@@ -85,6 +91,26 @@ public class DualOrmCacheManager {
         }
     }
     
+    /**
+     * Evict everything cached about shops (shared identity map and query results),
+     * after rows were written behind EclipseLink's back
+     */
+    public void evictShops() {
+        eclipseLinkEmf.getCache().evict(Shop.class);
+        shopRepository.clearQueryCache();
+        LOG.debug("EclipseLink Shop cache evicted");
+    }
+    
+    /**
+     * Evict the Gift entity region and the query regions, after rows were written behind Hibernate's back
+     */
+    public void evictGifts() {
+        var cache = hibernateEmf.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(Gift.class);
+        cache.evictQueryRegions();
+        LOG.debug("Hibernate Gift cache evicted");
+    }
+    
     /**
      * Get cache statistics for monitoring
      */
@@ -98,6 +124,12 @@ public class DualOrmCacheManager {
             stats.hibernateHitCount = hibernateStats.getSecondLevelCacheHitCount();
             stats.hibernateMissCount = hibernateStats.getSecondLevelCacheMissCount();
             stats.hibernatePutCount = hibernateStats.getSecondLevelCachePutCount();
+            var queryRegion = hibernateStats.getQueryRegionStatistics(Gift.QUERY_CACHE_REGION);
+            if (queryRegion != null) {
+                stats.hibernateQueryHitCount = queryRegion.getHitCount();
+                stats.hibernateQueryMissCount = queryRegion.getMissCount();
+                stats.hibernateQueryPutCount = queryRegion.getPutCount();
+            }
         } catch (Exception e) {
             LOG.debug("Could not retrieve Hibernate cache stats", e);
         }
@@ -108,6 +140,9 @@ public class DualOrmCacheManager {
                 // For simplicity, we'll track this manually or use basic indicators
                 stats.eclipseLinkCacheSize = 0; // Could be enhanced with custom tracking
             }
+            var queryStats = shopRepository.queryCacheStatistics();
+            stats.eclipseLinkQueryHitCount = queryStats.hitCount();
+            stats.eclipseLinkQueryMissCount = queryStats.missCount();
         } catch (Exception e) {
             LOG.debug("Could not retrieve EclipseLink cache stats", e);
         }
@@ -119,19 +154,37 @@ public class DualOrmCacheManager {
         public long hibernateHitCount = 0;
         public long hibernateMissCount = 0;
         public long hibernatePutCount = 0;
+        public long hibernateQueryHitCount = 0;
+        public long hibernateQueryMissCount = 0;
+        public long hibernateQueryPutCount = 0;
         public int eclipseLinkCacheSize = 0;
+        public long eclipseLinkQueryHitCount = 0;
+        public long eclipseLinkQueryMissCount = 0;
         
         public double getHibernateHitRatio() {
             long total = hibernateHitCount + hibernateMissCount;
             return total > 0 ? (double) hibernateHitCount / total : 0.0;
         }
         
+        public double getHibernateQueryHitRatio() {
+            long total = hibernateQueryHitCount + hibernateQueryMissCount;
+            return total > 0 ? (double) hibernateQueryHitCount / total : 0.0;
+        }
+        
+        public double getEclipseLinkQueryHitRatio() {
+            long total = eclipseLinkQueryHitCount + eclipseLinkQueryMissCount;
+            return total > 0 ? (double) eclipseLinkQueryHitCount / total : 0.0;
+        }
+        
         @Override
         public String toString() {
             return String.format(
-                "CacheStats{hibernate: hits=%d, misses=%d, puts=%d, hitRatio=%.2f, eclipseLink: size=%d}",
+                "CacheStats{hibernate: hits=%d, misses=%d, puts=%d, hitRatio=%.2f, queryHits=%d, queryMisses=%d, "
+                    + "queryPuts=%d, queryHitRatio=%.2f, eclipseLink: size=%d, queryHits=%d, queryMisses=%d, queryHitRatio=%.2f}",
                 hibernateHitCount, hibernateMissCount, hibernatePutCount, 
-                getHibernateHitRatio(), eclipseLinkCacheSize
+                getHibernateHitRatio(), hibernateQueryHitCount, hibernateQueryMissCount,
+                hibernateQueryPutCount, getHibernateQueryHitRatio(), eclipseLinkCacheSize,
+                eclipseLinkQueryHitCount, eclipseLinkQueryMissCount, getEclipseLinkQueryHitRatio()
             );
         }
     }
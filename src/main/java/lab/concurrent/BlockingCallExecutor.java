@@ -0,0 +1,105 @@
+package lab.concurrent;
+
+import org.jboss.logging.Logger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking calls (JDBC through an ORM) off the caller's thread, at most maxConcurrency at a time.
+ *
+ * Calls run on a fixed pool of maxConcurrency platform threads, sized to the connection pool, so
+ * they overlap without queueing inside the pool; further calls wait in the executor's queue.
+ * The project targets Java 17, which has no virtual threads: moving to them needs release 21,
+ * Executors.newVirtualThreadPerTaskExecutor() and a semaphore of maxConcurrency permits in place
+ * of the fixed pool.
+ */
+public final class BlockingCallExecutor implements AutoCloseable {
+    
+    private static final Logger LOG = Logger.getLogger(BlockingCallExecutor.class);
+    
+    private final String name;
+    private final int maxConcurrency;
+    private final AtomicInteger activeCalls = new AtomicInteger();
+    private final ExecutorService executor;
+    
+    public BlockingCallExecutor(String name, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        }
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        this.executor = Executors.newFixedThreadPool(maxConcurrency, platformThreads(name));
+        LOG.infof("Async executor '%s': %d concurrent calls", name, maxConcurrency);
+    }
+    
+    /**
+     * Runs the call asynchronously. The future completes with its result or with the exception it threw,
+     * once the call no longer counts in {@link #activeCalls()}.
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                T result = null;
+                Throwable failure = null;
+                activeCalls.incrementAndGet();
+                try {
+                    result = call.get();
+                } catch (Throwable t) {
+                    failure = t;
+                } finally {
+                    activeCalls.decrementAndGet();
+                }
+                if (failure == null) {
+                    future.complete(result);
+                } else {
+                    future.completeExceptionally(failure);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+    
+    public int maxConcurrency() {
+        return maxConcurrency;
+    }
+    
+    /**
+     * Calls currently running
+     */
+    public int activeCalls() {
+        return activeCalls.get();
+    }
+    
+    /**
+     * Stops accepting calls and waits briefly for the running ones
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOG.warnf("Async executor '%s' still has running calls after shutdown", name);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static ThreadFactory platformThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-async-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,37 @@
+package lab.concurrent;
+
+import org.jboss.logging.Logger;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs a rebuild (in-memory index, snapshot, database index) in the background at startup, so the
+ * application starts without waiting for it. Until the rebuild completes, or if it fails, callers
+ * keep their fallback; the fallback is only named in the logs.
+ */
+public final class StartupWarmup {
+    
+    private static final Logger LOG = Logger.getLogger(StartupWarmup.class);
+    
+    private StartupWarmup() {
+    }
+    
+    /**
+     * Starts the rebuild on the common pool when enabled, e.g.
+     * start("Gift price index", enabled, "price range searches query the database", repository::rebuildPriceIndex).
+     * The future completes when the rebuild is over, failed or not.
+     */
+    public static CompletableFuture<Void> start(String name, boolean enabled, String fallback, Runnable rebuild) {
+        if (!enabled) {
+            LOG.infof("%s disabled, %s", name, fallback);
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> {
+            long start = System.nanoTime();
+            rebuild.run();
+            LOG.infof("%s ready in %d ms", name, (System.nanoTime() - start) / 1_000_000);
+        }).exceptionally(e -> {
+            LOG.warnf(e, "%s failed, %s", name, fallback);
+            return null;
+        });
+    }
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+package lab.eclipselink;
+
+import io.agroal.api.AgroalDataSource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Disposes;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import jakarta.transaction.TransactionManager;
+import lab.eclipselink.entity.Shop;
+import lab.routing.ReadRouter;
+import org.eclipse.persistence.config.PersistenceUnitProperties;
+import org.jboss.logging.Logger;
+import java.util.Map;
+
+/**
+ * Produces the single EclipseLink EntityManagerFactory shared by every component
+ * (one session, one identity-map cache) and closes it on shutdown. The session borrows its
+ * connections from the Quarkus datasource, the same pool as Hibernate.
+ */
+@ApplicationScoped
+public class EclipseLinkEntityManagerFactoryProducer {
+    
+    private static final Logger LOG = Logger.getLogger(EclipseLinkEntityManagerFactoryProducer.class);
+    
+    public static final String PERSISTENCE_UNIT = "eclipselink-pu";
+    
+    @Inject
+    AgroalDataSource dataSource;
+    
+    @Inject
+    TransactionManager transactionManager;
+    
+    @Inject
+    ReadRouter readRouter;
+    
+    @Produces
+    @EclipseLink
+    @ApplicationScoped
+    public EntityManagerFactory produceEntityManagerFactory() {
+        Runtime runtime = Runtime.getRuntime();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.nanoTime();
+        
+        // With a datasource EclipseLink uses external connection pooling: a connection is borrowed
+        // from Agroal per transaction or read and returned right after. Replica reads borrow theirs
+        // from the replica datasource (see ReadRouter.onReplica)
+        ResourceLocalDataSource connections = readRouter.isEnabled()
+            ? new ResourceLocalDataSource(dataSource, readRouter.replica(), transactionManager)
+            : new ResourceLocalDataSource(dataSource, transactionManager);
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT, Map.of(
+            PersistenceUnitProperties.NON_JTA_DATASOURCE, connections));
+        // Deploy the session (login, descriptors, named queries) now rather than on the first query,
+        // and fail fast if a named query does not parse
+        EntityManager em = emf.createEntityManager();
+        try {
+            Shop.NAMED_QUERIES.forEach(em::createNamedQuery);
+        } finally {
+            em.close();
+        }
+        
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+        LOG.infof("EclipseLink EntityManagerFactory '%s' started in %d ms (heap delta ~%d KB)",
+            PERSISTENCE_UNIT, (System.nanoTime() - start) / 1_000_000, (heapAfter - heapBefore) / 1024);
+        return emf;
+    }
+    
+    public void closeEntityManagerFactory(@Disposes @EclipseLink EntityManagerFactory emf) {
+        if (emf.isOpen()) {
+            LOG.infof("Closing EclipseLink EntityManagerFactory '%s'", PERSISTENCE_UNIT);
+            emf.close();
+        }
+    }
+}
\ No newline at end of file
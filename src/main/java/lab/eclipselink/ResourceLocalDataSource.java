@@ -0,0 +1,118 @@
+package lab.eclipselink;
+
+import jakarta.transaction.InvalidTransactionException;
+import jakarta.transaction.SystemException;
+import jakarta.transaction.Transaction;
+import jakarta.transaction.TransactionManager;
+import lab.routing.ReadRouter;
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+/**
+ * The Agroal datasource as seen by the RESOURCE_LOCAL EclipseLink session.
+ *
+ * Agroal enlists a connection in the JTA transaction active when it is acquired, and EclipseLink
+ * then fails to commit or roll it back itself. Connections are therefore always acquired with the
+ * caller's JTA transaction (if any) suspended: shop writes keep their own local transactions, as
+ * they did with EclipseLink's internal pool.
+ *
+ * With a replica, connections acquired within {@link ReadRouter#onReplica} come from it instead.
+ */
+final class ResourceLocalDataSource implements DataSource {
+    
+    private final DataSource delegate;
+    private final DataSource replica;
+    private final TransactionManager transactionManager;
+    
+    ResourceLocalDataSource(DataSource delegate, TransactionManager transactionManager) {
+        this(delegate, null, transactionManager);
+    }
+    
+    ResourceLocalDataSource(DataSource delegate, DataSource replica, TransactionManager transactionManager) {
+        this.delegate = delegate;
+        this.replica = replica;
+        this.transactionManager = transactionManager;
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        Transaction suspended = suspend();
+        try {
+            return target().getConnection();
+        } finally {
+            resume(suspended);
+        }
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Transaction suspended = suspend();
+        try {
+            return target().getConnection(username, password);
+        } finally {
+            resume(suspended);
+        }
+    }
+    
+    private DataSource target() {
+        return replica != null && ReadRouter.isReplicaConnection() ? replica : delegate;
+    }
+    
+    private Transaction suspend() throws SQLException {
+        try {
+            return transactionManager.getTransaction() != null ? transactionManager.suspend() : null;
+        } catch (SystemException e) {
+            throw new SQLException("Could not suspend the JTA transaction", e);
+        }
+    }
+    
+    private void resume(Transaction suspended) throws SQLException {
+        if (suspended == null) {
+            return;
+        }
+        try {
+            transactionManager.resume(suspended);
+        } catch (InvalidTransactionException | SystemException e) {
+            throw new SQLException("Could not resume the JTA transaction", e);
+        }
+    }
+    
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return delegate.getLogWriter();
+    }
+    
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        delegate.setLogWriter(out);
+    }
+    
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        delegate.setLoginTimeout(seconds);
+    }
+    
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return delegate.getLoginTimeout();
+    }
+    
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return delegate.getParentLogger();
+    }
+    
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : delegate.unwrap(iface);
+    }
+    
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || delegate.isWrapperFor(iface);
+    }
+}
\ No newline at end of file
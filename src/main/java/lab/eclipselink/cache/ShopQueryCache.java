@@ -0,0 +1,112 @@
+package lab.eclipselink.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lab.eclipselink.entity.Shop;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Caffeine cache of the findByCity / findByCategory results, keyed by finder and parameter.
+ *
+ * Results are kept as detached snapshots, copied on the way in and (except for read-only callers)
+ * on the way out, so callers may modify the shops they receive. Entries are evicted by the repository after each committed
+ * write touching their city or category; a result loaded concurrently with such a write is
+ * not cached.
+ */
+public class ShopQueryCache {
+    
+    public enum Finder {
+        CITY,
+        CATEGORY
+    }
+    
+    private record Key(Finder finder, String value) {
+    }
+    
+    private final Cache<Key, List<Shop>> cache;
+    
+    /**
+     * Incremented by every invalidation; a load only populates the cache if none happened meanwhile
+     */
+    private long generation;
+    
+    public ShopQueryCache(long maximumSize, Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build();
+    }
+    
+    /**
+     * Cached result of the finder, or the loader's result (cached if no write happened meanwhile).
+     * Without copy, the cached snapshot itself is returned and must not be modified.
+     */
+    public List<Shop> get(Finder finder, String value, boolean copy, Supplier<List<Shop>> loader) {
+        Key key = new Key(finder, value);
+        List<Shop> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return copy ? copy(cached) : cached;
+        }
+        long loadGeneration = generation();
+        List<Shop> loaded = loader.get();
+        List<Shop> snapshot = Collections.unmodifiableList(copy(loaded));
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                cache.put(key, snapshot);
+            }
+        }
+        return loaded;
+    }
+    
+    /**
+     * Evicts the results of the given city and category, e.g. the old and new values of a saved shop
+     */
+    public synchronized void invalidate(Finder finder, String value) {
+        generation++;
+        cache.invalidate(new Key(finder, value));
+    }
+    
+    /**
+     * Evicts every cached result containing one of the shops, for writes that did not load them
+     */
+    public synchronized void invalidateShops(Set<Long> ids) {
+        generation++;
+        cache.asMap().values().removeIf(shops -> shops.stream().anyMatch(shop -> ids.contains(shop.getId())));
+    }
+    
+    public synchronized void invalidateAll() {
+        generation++;
+        cache.invalidateAll();
+    }
+    
+    public CacheStats stats() {
+        return cache.stats();
+    }
+    
+    public long size() {
+        return cache.estimatedSize();
+    }
+    
+    private synchronized long generation() {
+        return generation;
+    }
+    
+    private static List<Shop> copy(Collection<Shop> shops) {
+        List<Shop> copies = new ArrayList<>(shops.size());
+        for (Shop shop : shops) {
+            Shop copy = new Shop(shop.getName(), shop.getAddress(), shop.getCity(), shop.getPhone(), shop.getCategory());
+            copy.setId(shop.getId());
+            copy.setVersion(shop.getVersion());
+            copies.add(copy);
+        }
+        return copies;
+    }
+}
\ No newline at end of file
@@ -3,14 +3,50 @@ package lab.eclipselink.entity;
 import jakarta.persistence.*;
 import org.eclipse.persistence.annotations.Cache;
 import org.eclipse.persistence.annotations.CacheType;
+import java.util.List;
 
 @Entity
 @Table(name = "shops")
 @Cache(type = CacheType.SOFT_WEAK, size = 500, expiry = 300000)
+@NamedQueries({
+    @NamedQuery(name = Shop.FIND_ALL, query = "SELECT s FROM Shop s"),
+    @NamedQuery(name = Shop.FIND_BY_CITY, query = "SELECT s FROM Shop s WHERE s.city = :city"),
+    @NamedQuery(name = Shop.FIND_BY_CATEGORY, query = "SELECT s FROM Shop s WHERE s.category = :category"),
+    @NamedQuery(name = Shop.FIND_BY_NAME_LIKE, query = "SELECT s FROM Shop s WHERE s.name LIKE :name"),
+    @NamedQuery(name = Shop.FIND_ALL_BY_ID, query = "SELECT s FROM Shop s WHERE s.id IN :ids ORDER BY s.id"),
+    @NamedQuery(name = Shop.FIND_ALL_AFTER, query = "SELECT s FROM Shop s WHERE s.id > :lastSeenId ORDER BY s.id"),
+    @NamedQuery(name = Shop.FIND_BY_CITY_AFTER,
+        query = "SELECT s FROM Shop s WHERE s.city = :city AND s.id > :lastSeenId ORDER BY s.id"),
+    @NamedQuery(name = Shop.FIND_BY_CATEGORY_AFTER,
+        query = "SELECT s FROM Shop s WHERE s.category = :category AND s.id > :lastSeenId ORDER BY s.id"),
+    @NamedQuery(name = Shop.STREAM_ALL, query = "SELECT s FROM Shop s ORDER BY s.id"),
+    @NamedQuery(name = Shop.STREAM_BY_CITY, query = "SELECT s FROM Shop s WHERE s.city = :city ORDER BY s.id"),
+    @NamedQuery(name = Shop.STREAM_BY_CATEGORY, query = "SELECT s FROM Shop s WHERE s.category = :category ORDER BY s.id"),
+    @NamedQuery(name = Shop.DELETE_ALL_BY_ID, query = "DELETE FROM Shop s WHERE s.id IN :ids")
+})
 public class Shop {
     
+    // Named queries: parsed once when the persistence unit is deployed (see EclipseLinkEntityManagerFactoryProducer)
+    public static final String FIND_ALL = "Shop.findAll";
+    public static final String FIND_BY_CITY = "Shop.findByCity";
+    public static final String FIND_BY_CATEGORY = "Shop.findByCategory";
+    public static final String FIND_BY_NAME_LIKE = "Shop.findByNameLike";
+    public static final String FIND_ALL_BY_ID = "Shop.findAllById";
+    public static final String FIND_ALL_AFTER = "Shop.findAllAfter";
+    public static final String FIND_BY_CITY_AFTER = "Shop.findByCityAfter";
+    public static final String FIND_BY_CATEGORY_AFTER = "Shop.findByCategoryAfter";
+    public static final String STREAM_ALL = "Shop.streamAll";
+    public static final String STREAM_BY_CITY = "Shop.streamByCity";
+    public static final String STREAM_BY_CATEGORY = "Shop.streamByCategory";
+    public static final String DELETE_ALL_BY_ID = "Shop.deleteAllById";
+    
+    public static final List<String> NAMED_QUERIES = List.of(FIND_ALL, FIND_BY_CITY, FIND_BY_CATEGORY, FIND_BY_NAME_LIKE,
+        FIND_ALL_BY_ID, FIND_ALL_AFTER, FIND_BY_CITY_AFTER, FIND_BY_CATEGORY_AFTER, STREAM_ALL, STREAM_BY_CITY,
+        STREAM_BY_CATEGORY, DELETE_ALL_BY_ID);
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "shops_seq")
+    @SequenceGenerator(name = "shops_seq", sequenceName = "shops_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -28,6 +64,9 @@ public class Shop {
     @Column(nullable = false)
     private String category;
     
+    @Version
+    private Long version;
+    
     public Shop() {}
     
     public Shop(String name, String address, String city, String phone, String category) {
@@ -86,4 +125,12 @@ public class Shop {
     public void setCategory(String category) {
         this.category = category;
     }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
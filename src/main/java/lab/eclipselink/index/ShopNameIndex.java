@@ -0,0 +1,475 @@
+package lab.eclipselink.index;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over Shop.name answering substring searches (LIKE '%x%').
+ *
+ * Every shop is an internal document number; each trigram of a name maps to a sorted int[]
+ * posting list of documents. A search intersects the posting lists of the needle's trigrams and
+ * verifies the candidates, so matching is case-sensitive like PostgreSQL LIKE. Ids, names and
+ * postings are kept in primitive arrays and open-addressing maps, without boxed collections.
+ */
+public class ShopNameIndex {
+    
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    /**
+     * Deleted documents tolerated (when also above the live count) before the index is compacted
+     */
+    private static final int COMPACTION_THRESHOLD = 4096;
+    
+    private static final long[] NO_IDS = new long[0];
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private long[] docIds = new long[INITIAL_CAPACITY];
+    private String[] docNames = new String[INITIAL_CAPACITY]; // null once the document is deleted
+    private int docCount;
+    private int liveCount;
+    private final LongIntMap idToDoc = new LongIntMap();
+    private final PostingsMap postings = new PostingsMap();
+    
+    private volatile boolean ready;
+    private boolean loading;
+    private final LongIntMap writtenWhileLoading = new LongIntMap();
+    
+    /**
+     * True once a full load has completed; until then callers must fall back to the database
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Starts a full (re)load: the index is emptied and reported as not ready until {@link #finishLoad()}.
+     * Writes received in the meantime win over the rows being loaded.
+     */
+    public void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            loading = true;
+            writtenWhileLoading.clear();
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void load(long id, String name) {
+        lock.writeLock().lock();
+        try {
+            if (writtenWhileLoading.get(id) < 0) {
+                index(id, name);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void finishLoad() {
+        lock.writeLock().lock();
+        try {
+            loading = false;
+            writtenWhileLoading.clear();
+            postings.trim();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void abortLoad() {
+        lock.writeLock().lock();
+        try {
+            loading = false;
+            writtenWhileLoading.clear();
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void put(long id, String name) {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                writtenWhileLoading.put(id, 1);
+            }
+            index(id, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                writtenWhileLoading.put(id, 1);
+            }
+            unindex(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Ids of the shops whose name contains the needle, in insertion order
+     */
+    public long[] search(String needle) {
+        lock.readLock().lock();
+        try {
+            if (needle.length() < 3) {
+                return scan(needle);
+            }
+            int[] candidates = candidates(needle);
+            if (candidates == null) {
+                return NO_IDS;
+            }
+            long[] ids = new long[candidates.length];
+            int found = 0;
+            for (int doc : candidates) {
+                String name = docNames[doc];
+                if (name != null && name.contains(needle)) {
+                    ids[found++] = docIds[doc];
+                }
+            }
+            return found == ids.length ? ids : Arrays.copyOf(ids, found);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private long[] scan(String needle) {
+        long[] ids = new long[liveCount];
+        int found = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            String name = docNames[doc];
+            if (name != null && name.contains(needle)) {
+                ids[found++] = docIds[doc];
+            }
+        }
+        return Arrays.copyOf(ids, found);
+    }
+    
+    /**
+     * Intersection of the posting lists of every trigram of the needle, smallest list first
+     */
+    private int[] candidates(String needle) {
+        int trigrams = needle.length() - 2;
+        int[] slots = new int[trigrams];
+        for (int i = 0; i < trigrams; i++) {
+            int slot = postings.slotOf(trigram(needle, i));
+            if (slot < 0) {
+                return null;
+            }
+            slots[i] = slot;
+        }
+        int smallest = 0;
+        for (int i = 1; i < trigrams; i++) {
+            if (postings.sizes[slots[i]] < postings.sizes[slots[smallest]]) {
+                smallest = i;
+            }
+        }
+        int[] result = Arrays.copyOf(postings.lists[slots[smallest]], postings.sizes[slots[smallest]]);
+        int resultSize = result.length;
+        for (int i = 0; i < trigrams && resultSize > 0; i++) {
+            if (i != smallest && slots[i] != slots[smallest]) {
+                resultSize = intersect(result, resultSize, postings.lists[slots[i]], postings.sizes[slots[i]]);
+            }
+        }
+        return resultSize == result.length ? result : Arrays.copyOf(result, resultSize);
+    }
+    
+    /**
+     * Keeps in target[0..targetSize) the documents also present in the sorted list, returns the new size
+     */
+    private static int intersect(int[] target, int targetSize, int[] list, int listSize) {
+        int kept = 0;
+        int from = 0;
+        for (int i = 0; i < targetSize && from < listSize; i++) {
+            int position = Arrays.binarySearch(list, from, listSize, target[i]);
+            if (position >= 0) {
+                target[kept++] = target[i];
+                from = position + 1;
+            } else {
+                from = -position - 1;
+            }
+        }
+        return kept;
+    }
+    
+    private void index(long id, String name) {
+        int existing = idToDoc.get(id);
+        if (existing >= 0) {
+            if (name.equals(docNames[existing])) {
+                return;
+            }
+            unindex(id);
+        }
+        if (docCount == docIds.length) {
+            int capacity = docIds.length + (docIds.length >> 1);
+            docIds = Arrays.copyOf(docIds, capacity);
+            docNames = Arrays.copyOf(docNames, capacity);
+        }
+        int doc = docCount++;
+        docIds[doc] = id;
+        docNames[doc] = name;
+        idToDoc.put(id, doc);
+        liveCount++;
+        // Documents are appended in increasing order, so posting lists stay sorted
+        for (int i = 0; i + 3 <= name.length(); i++) {
+            postings.add(trigram(name, i), doc);
+        }
+    }
+    
+    private void unindex(long id) {
+        int doc = idToDoc.remove(id);
+        if (doc < 0) {
+            return;
+        }
+        // Stale postings of the document are skipped by search() and dropped by compaction
+        docNames[doc] = null;
+        liveCount--;
+        int deleted = docCount - liveCount;
+        if (deleted > COMPACTION_THRESHOLD && deleted > liveCount) {
+            compact();
+        }
+    }
+    
+    private void compact() {
+        long[] ids = new long[liveCount];
+        String[] names = new String[liveCount];
+        int live = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (docNames[doc] != null) {
+                ids[live] = docIds[doc];
+                names[live++] = docNames[doc];
+            }
+        }
+        clear();
+        for (int i = 0; i < live; i++) {
+            index(ids[i], names[i]);
+        }
+    }
+    
+    private void clear() {
+        docIds = new long[INITIAL_CAPACITY];
+        docNames = new String[INITIAL_CAPACITY];
+        docCount = 0;
+        liveCount = 0;
+        idToDoc.clear();
+        postings.clear();
+    }
+    
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+    
+    private static int hash(long key, int mask) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+    
+    /**
+     * Open-addressing long -> int map with linear probing and backward-shift deletion.
+     * Values are document numbers, so -1 is returned for missing keys.
+     */
+    static final class LongIntMap {
+        
+        private long[] keys;
+        private int[] values;
+        private boolean[] used;
+        private int size;
+        
+        LongIntMap() {
+            allocate(16);
+        }
+        
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key, mask); used[slot]; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return -1;
+        }
+        
+        void put(long key, int value) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                rehash(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int slot = hash(key, mask);
+            for (; used[slot]; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    values[slot] = value;
+                    return;
+                }
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            values[slot] = value;
+            size++;
+        }
+        
+        int remove(long key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key, mask); used[slot]; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    int value = values[slot];
+                    shiftBack(slot, mask);
+                    size--;
+                    return value;
+                }
+            }
+            return -1;
+        }
+        
+        void clear() {
+            allocate(16);
+            size = 0;
+        }
+        
+        private void shiftBack(int gap, int mask) {
+            for (int slot = (gap + 1) & mask; used[slot]; slot = (slot + 1) & mask) {
+                int home = hash(keys[slot], mask);
+                // The entry may fill the gap only if the gap lies between its home slot and its slot
+                if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                    keys[gap] = keys[slot];
+                    values[gap] = values[slot];
+                    gap = slot;
+                }
+            }
+            used[gap] = false;
+        }
+        
+        private void rehash(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            boolean[] oldUsed = used;
+            allocate(capacity);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+        
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            values = new int[capacity];
+            used = new boolean[capacity];
+        }
+    }
+    
+    /**
+     * Open-addressing trigram -> posting list map. A posting list is an int[] of document numbers
+     * plus its used length; lists only grow, deletions are handled by compaction.
+     */
+    static final class PostingsMap {
+        
+        private long[] keys;
+        private int[][] lists;
+        private int[] sizes;
+        private boolean[] used;
+        private int count;
+        
+        PostingsMap() {
+            allocate(1024);
+        }
+        
+        int slotOf(long key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key, mask); used[slot]; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+        
+        void add(long key, int doc) {
+            if ((count + 1) * 4 > keys.length * 3) {
+                rehash(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int slot = hash(key, mask);
+            while (used[slot] && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (!used[slot]) {
+                used[slot] = true;
+                keys[slot] = key;
+                lists[slot] = new int[2];
+                count++;
+            }
+            int size = sizes[slot];
+            int[] list = lists[slot];
+            if (size > 0 && list[size - 1] == doc) {
+                return; // trigram repeated within the same name
+            }
+            if (size == list.length) {
+                list = Arrays.copyOf(list, size + (size >> 1) + 1);
+                lists[slot] = list;
+            }
+            list[size] = doc;
+            sizes[slot] = size + 1;
+        }
+        
+        void trim() {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (used[slot] && lists[slot].length != sizes[slot]) {
+                    lists[slot] = Arrays.copyOf(lists[slot], sizes[slot]);
+                }
+            }
+        }
+        
+        void clear() {
+            allocate(1024);
+            count = 0;
+        }
+        
+        private void rehash(int capacity) {
+            long[] oldKeys = keys;
+            int[][] oldLists = lists;
+            int[] oldSizes = sizes;
+            boolean[] oldUsed = used;
+            allocate(capacity);
+            int mask = capacity - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    int slot = hash(oldKeys[i], mask);
+                    while (used[slot]) {
+                        slot = (slot + 1) & mask;
+                    }
+                    used[slot] = true;
+                    keys[slot] = oldKeys[i];
+                    lists[slot] = oldLists[i];
+                    sizes[slot] = oldSizes[i];
+                }
+            }
+        }
+        
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            lists = new int[capacity][];
+            sizes = new int[capacity];
+            used = new boolean[capacity];
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+package lab.eclipselink.index;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import lab.concurrent.StartupWarmup;
+import lab.eclipselink.repository.ShopRepository;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Builds the shop name index in the background at startup, so the application starts
+ * without waiting for it; name searches use LIKE queries until it is ready.
+ */
+@ApplicationScoped
+public class ShopNameIndexWarmup {
+    
+    @Inject
+    ShopRepository shopRepository;
+    
+    @ConfigProperty(name = "shop.name-index.enabled", defaultValue = "true")
+    boolean enabled;
+    
+    void onStart(@Observes StartupEvent event) {
+        StartupWarmup.start("Shop name index", enabled, "name searches use LIKE queries",
+            shopRepository::rebuildNameIndex);
+    }
+}
\ No newline at end of file
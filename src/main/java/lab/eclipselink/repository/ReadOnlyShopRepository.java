@@ -0,0 +1,70 @@
+package lab.eclipselink.repository;
+
+import lab.eclipselink.entity.Shop;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Read-only facade over {@link ShopRepository}, obtained with {@link ShopRepository#readOnly()}.
+ *
+ * Queries run with EclipseLink's READ_ONLY hint: the shops returned are the shared (L2) cache
+ * instances, not clones registered for change tracking, which saves the cloning work and heap
+ * of the default mode. They must never be modified; load them through ShopRepository to update them.
+ */
+public class ReadOnlyShopRepository {
+    
+    private final ShopRepository repository;
+    
+    ReadOnlyShopRepository(ShopRepository repository) {
+        this.repository = repository;
+    }
+    
+    public List<Shop> findAll() {
+        return repository.findAll(true);
+    }
+    
+    public Optional<Shop> findById(Long id) {
+        return repository.findById(id, true);
+    }
+    
+    public List<Shop> findByCity(String city) {
+        return repository.findByCity(city, true);
+    }
+    
+    public List<Shop> findByCategory(String category) {
+        return repository.findByCategory(category, true);
+    }
+    
+    public List<Shop> findByNameContaining(String name) {
+        return repository.findByNameContaining(name, true);
+    }
+    
+    public List<Shop> findAllAfter(Long lastSeenId, int pageSize) {
+        return repository.findAllAfter(lastSeenId, pageSize, true);
+    }
+    
+    public List<Shop> findByCityAfter(String city, Long lastSeenId, int pageSize) {
+        return repository.findByCityAfter(city, lastSeenId, pageSize, true);
+    }
+    
+    public List<Shop> findByCategoryAfter(String category, Long lastSeenId, int pageSize) {
+        return repository.findByCategoryAfter(category, lastSeenId, pageSize, true);
+    }
+    
+    public Stream<Shop> streamAll() {
+        return repository.streamAll(ShopRepository.DEFAULT_FETCH_SIZE, true);
+    }
+    
+    public Stream<Shop> streamAll(int fetchSize) {
+        return repository.streamAll(fetchSize, true);
+    }
+    
+    public Stream<Shop> streamByCity(String city) {
+        return repository.streamByCity(city, ShopRepository.DEFAULT_FETCH_SIZE, true);
+    }
+    
+    public Stream<Shop> streamByCategory(String category) {
+        return repository.streamByCategory(category, ShopRepository.DEFAULT_FETCH_SIZE, true);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package lab.eclipselink.repository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Partial update of a shop for {@link ShopRepository#patch}: null fields are left unchanged.
+ */
+public record ShopPatch(String name, String address, String city, String phone, String category) {
+    
+    public static ShopPatch empty() {
+        return new ShopPatch(null, null, null, null, null);
+    }
+    
+    public ShopPatch withName(String name) {
+        return new ShopPatch(name, address, city, phone, category);
+    }
+    
+    public ShopPatch withAddress(String address) {
+        return new ShopPatch(name, address, city, phone, category);
+    }
+    
+    public ShopPatch withCity(String city) {
+        return new ShopPatch(name, address, city, phone, category);
+    }
+    
+    public ShopPatch withPhone(String phone) {
+        return new ShopPatch(name, address, city, phone, category);
+    }
+    
+    public ShopPatch withCategory(String category) {
+        return new ShopPatch(name, address, city, phone, category);
+    }
+    
+    /**
+     * Supplied fields by Shop attribute name
+     */
+    Map<String, Object> values() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        putIfPresent(values, "name", name);
+        putIfPresent(values, "address", address);
+        putIfPresent(values, "city", city);
+        putIfPresent(values, "phone", phone);
+        putIfPresent(values, "category", category);
+        return values;
+    }
+    
+    private static void putIfPresent(Map<String, Object> values, String attribute, String value) {
+        if (value != null) {
+            values.put(attribute, value);
+        }
+    }
+}
\ No newline at end of file
@@ -1,106 +1,685 @@
 package lab.eclipselink.repository;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
+import lab.eclipselink.EclipseLink;
+import lab.eclipselink.cache.ShopQueryCache;
+import lab.eclipselink.cache.ShopQueryCache.Finder;
 import lab.eclipselink.entity.Shop;
+import lab.eclipselink.index.ShopNameIndex;
+import lab.routing.ReadRouter;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import org.eclipse.persistence.config.ResultSetType;
+import org.eclipse.persistence.jpa.JpaQuery;
+import org.eclipse.persistence.queries.ModifyAllQuery;
+import org.eclipse.persistence.queries.ScrollableCursor;
+import org.eclipse.persistence.sessions.UnitOfWork;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @ApplicationScoped
 public class ShopRepository {
     
+    /**
+     * Number of shops written or deleted per transaction by the bulk methods
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+    
+    /**
+     * Rows fetched per round trip by the streaming finders, and shops kept in the persistence context
+     */
+    public static final int DEFAULT_FETCH_SIZE = 500;
+    
     private EntityManagerFactory emf;
     
-    public ShopRepository() {
-        this.emf = Persistence.createEntityManagerFactory("eclipselink-pu");
+    /**
+     * Serves findByNameContaining once built by rebuildNameIndex(), kept current by the write methods
+     */
+    private final ShopNameIndex nameIndex = new ShopNameIndex();
+    
+    /**
+     * Results of findByCity / findByCategory, evicted by the write methods
+     */
+    private final ShopQueryCache queryCache;
+    
+    private final ReadOnlyShopRepository readOnlyView = new ReadOnlyShopRepository(this);
+    
+    /**
+     * Sends findAll, the LIKE name search and the keyset pages to the replica; null reads only the primary
+     */
+    private final ReadRouter readRouter;
+    
+    public ShopRepository(EntityManagerFactory emf) {
+        this(emf, 1000, Duration.ofMinutes(10), null);
+    }
+    
+    @Inject
+    public ShopRepository(@EclipseLink EntityManagerFactory emf,
+                          @ConfigProperty(name = "shop.query-cache.maximum-size", defaultValue = "1000") long queryCacheSize,
+                          @ConfigProperty(name = "shop.query-cache.expire-after-write", defaultValue = "10m") Duration queryCacheTtl,
+                          ReadRouter readRouter) {
+        this.emf = emf;
+        this.queryCache = new ShopQueryCache(queryCacheSize, queryCacheTtl);
+        this.readRouter = readRouter;
     }
     
     public Shop save(Shop shop) {
+        Set<String> cities = new HashSet<>();
+        Set<String> categories = new HashSet<>();
         EntityManager em = emf.createEntityManager();
         try {
             em.getTransaction().begin();
-            if (shop.getId() == null) {
-                em.persist(shop);
-            } else {
-                shop = em.merge(shop);
-            }
+            shop = persistOrMerge(em, shop, cities, categories);
             em.getTransaction().commit();
+            writeCommitted();
+            nameIndex.put(shop.getId(), shop.getName());
+            invalidateQueries(cities, categories);
             return shop;
         } finally {
             em.close();
         }
     }
     
-    public List<Shop> findAll() {
+    public List<Shop> saveAll(Collection<Shop> shops) {
+        return saveAll(shops, DEFAULT_CHUNK_SIZE);
+    }
+    
+    /**
+     * Saves the shops using one EntityManager and one transaction per chunk.
+     * Each commit is flushed as JDBC batches (see eclipselink.jdbc.batch-writing).
+     */
+    public List<Shop> saveAll(Collection<Shop> shops, int chunkSize) {
+        requirePositive(chunkSize);
+        List<Shop> saved = new ArrayList<>(shops.size());
         EntityManager em = emf.createEntityManager();
         try {
-            TypedQuery<Shop> query = em.createQuery("SELECT s FROM Shop s", Shop.class);
-            return query.getResultList();
+            Iterator<Shop> iterator = shops.iterator();
+            while (iterator.hasNext()) {
+                int chunkStart = saved.size();
+                Set<String> cities = new HashSet<>();
+                Set<String> categories = new HashSet<>();
+                em.getTransaction().begin();
+                try {
+                    for (int i = 0; i < chunkSize && iterator.hasNext(); i++) {
+                        saved.add(persistOrMerge(em, iterator.next(), cities, categories));
+                    }
+                    em.getTransaction().commit();
+                    writeCommitted();
+                } finally {
+                    if (em.getTransaction().isActive()) {
+                        em.getTransaction().rollback();
+                    }
+                }
+                for (Shop shop : saved.subList(chunkStart, saved.size())) {
+                    nameIndex.put(shop.getId(), shop.getName());
+                }
+                invalidateQueries(cities, categories);
+                em.clear();
+            }
+            return saved;
         } finally {
             em.close();
         }
     }
     
+    /**
+     * Read-only view of this repository: shops are returned straight from the shared cache,
+     * without being cloned and registered for change tracking, and must not be modified.
+     */
+    public ReadOnlyShopRepository readOnly() {
+        return readOnlyView;
+    }
+    
+    public List<Shop> findAll() {
+        return findAll(false);
+    }
+    
+    List<Shop> findAll(boolean readOnly) {
+        return read(replica -> {
+            EntityManager em = emf.createEntityManager();
+            try {
+                TypedQuery<Shop> query = em.createNamedQuery(Shop.FIND_ALL, Shop.class);
+                applyReadOnly(query, readOnly);
+                applyReplica(query, replica);
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
+    }
+    
     public Optional<Shop> findById(Long id) {
+        return findById(id, false);
+    }
+    
+    Optional<Shop> findById(Long id, boolean readOnly) {
         EntityManager em = emf.createEntityManager();
         try {
-            Shop shop = em.find(Shop.class, id);
+            Shop shop = readOnly
+                ? em.find(Shop.class, id, Map.of(QueryHints.READ_ONLY, HintValues.TRUE))
+                : em.find(Shop.class, id);
             return Optional.ofNullable(shop);
         } finally {
             em.close();
         }
     }
     
-    public void deleteById(Long id) {
+    /**
+     * Copies the fields of the given shop onto the stored one within a single transaction;
+     * change tracking writes only the columns that differ. Empty if the shop does not exist.
+     */
+    public Optional<Shop> update(Long id, Shop values) {
+        Set<String> cities = new HashSet<>();
+        Set<String> categories = new HashSet<>();
         EntityManager em = emf.createEntityManager();
         try {
             em.getTransaction().begin();
-            Shop shop = em.find(Shop.class, id);
-            if (shop != null) {
-                em.remove(shop);
+            try {
+                Shop shop = em.find(Shop.class, id);
+                if (shop == null) {
+                    return Optional.empty();
+                }
+                cities.add(shop.getCity());
+                categories.add(shop.getCategory());
+                shop.setName(values.getName());
+                shop.setAddress(values.getAddress());
+                shop.setCity(values.getCity());
+                shop.setPhone(values.getPhone());
+                shop.setCategory(values.getCategory());
+                cities.add(shop.getCity());
+                categories.add(shop.getCategory());
+                em.getTransaction().commit();
+                writeCommitted();
+                nameIndex.put(id, shop.getName());
+                invalidateQueries(cities, categories);
+                return Optional.of(shop);
+            } finally {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
             }
-            em.getTransaction().commit();
         } finally {
             em.close();
         }
     }
     
-    public List<Shop> findByCity(String city) {
+    /**
+     * Updates only the supplied fields with a single UPDATE checked against the version,
+     * without loading the shop first. Returns false if the shop does not exist.
+     *
+     * @throws OptimisticLockException if the shop was modified since expectedVersion was read
+     */
+    public boolean patch(Long id, long expectedVersion, ShopPatch patch) {
+        Map<String, Object> values = patch.values();
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("Patch of shop " + id + " has no field to update");
+        }
+        // Not a named query: the statement depends on the patched fields (at most 31 shapes,
+        // each parsed once and then served by EclipseLink's JPQL parse cache)
+        StringBuilder jpql = new StringBuilder("UPDATE Shop s SET s.version = s.version + 1");
+        values.keySet().forEach(attribute -> jpql.append(", s.").append(attribute).append(" = :").append(attribute));
+        jpql.append(" WHERE s.id = :id AND s.version = :version");
+        
+        int updated;
         EntityManager em = emf.createEntityManager();
         try {
-            TypedQuery<Shop> query = em.createQuery(
-                "SELECT s FROM Shop s WHERE s.city = :city", Shop.class);
-            query.setParameter("city", city);
-            return query.getResultList();
+            em.getTransaction().begin();
+            try {
+                Query query = em.createQuery(jpql.toString());
+                values.forEach(query::setParameter);
+                query.setParameter("id", id);
+                query.setParameter("version", expectedVersion);
+                keepSharedCache(query);
+                updated = query.executeUpdate();
+                em.getTransaction().commit();
+                if (updated > 0) {
+                    writeCommitted();
+                }
+            } finally {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+            }
         } finally {
             em.close();
         }
+        emf.getCache().evict(Shop.class, id);
+        if (updated == 0) {
+            // Only the failure path pays for telling a missing shop from a stale version
+            if (findById(id).isPresent()) {
+                throw new OptimisticLockException("Shop " + id + " was modified after version " + expectedVersion);
+            }
+            return false;
+        }
+        if (patch.name() != null) {
+            nameIndex.put(id, patch.name());
+        }
+        queryCache.invalidateShops(Set.of(id));
+        invalidateQueries(patch.city() != null ? Set.of(patch.city()) : Set.of(),
+            patch.category() != null ? Set.of(patch.category()) : Set.of());
+        return true;
+    }
+    
+    /**
+     * Deletes the shop with a single DELETE, without loading it. Returns false if it did not exist.
+     */
+    public boolean deleteById(Long id) {
+        return deleteAllById(List.of(id)) > 0;
+    }
+    
+    public List<Shop> findByCity(String city) {
+        return findByCity(city, false);
+    }
+    
+    List<Shop> findByCity(String city, boolean readOnly) {
+        return queryCache.get(Finder.CITY, city, !readOnly, () -> {
+            EntityManager em = emf.createEntityManager();
+            try {
+                TypedQuery<Shop> query = em.createNamedQuery(Shop.FIND_BY_CITY, Shop.class);
+                query.setParameter("city", city);
+                applyReadOnly(query, readOnly);
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
     }
     
     public List<Shop> findByCategory(String category) {
+        return findByCategory(category, false);
+    }
+    
+    List<Shop> findByCategory(String category, boolean readOnly) {
+        return queryCache.get(Finder.CATEGORY, category, !readOnly, () -> {
+            EntityManager em = emf.createEntityManager();
+            try {
+                TypedQuery<Shop> query = em.createNamedQuery(Shop.FIND_BY_CATEGORY, Shop.class);
+                query.setParameter("category", category);
+                applyReadOnly(query, readOnly);
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
+    }
+    
+    /**
+     * Answered from the in-memory name index when it is built, with a LIKE query otherwise
+     */
+    public List<Shop> findByNameContaining(String name) {
+        return findByNameContaining(name, false);
+    }
+    
+    List<Shop> findByNameContaining(String name, boolean readOnly) {
+        if (nameIndex.isReady()) {
+            long[] ids = nameIndex.search(name);
+            return read(replica -> findAllById(ids, readOnly, replica));
+        }
+        return read(replica -> {
+            EntityManager em = emf.createEntityManager();
+            try {
+                TypedQuery<Shop> query = em.createNamedQuery(Shop.FIND_BY_NAME_LIKE, Shop.class);
+                query.setParameter("name", "%" + name + "%");
+                applyReadOnly(query, readOnly);
+                applyReplica(query, replica);
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
+    }
+    
+    public int deleteAllById(Collection<Long> ids) {
+        return deleteAllById(ids, DEFAULT_CHUNK_SIZE);
+    }
+    
+    /**
+     * Deletes the shops with one bulk DELETE per chunk of ids, without loading them.
+     * Returns the number of deleted rows.
+     */
+    public int deleteAllById(Collection<Long> ids, int chunkSize) {
+        requirePositive(chunkSize);
+        int deleted = 0;
         EntityManager em = emf.createEntityManager();
         try {
-            TypedQuery<Shop> query = em.createQuery(
-                "SELECT s FROM Shop s WHERE s.category = :category", Shop.class);
-            query.setParameter("category", category);
-            return query.getResultList();
+            Iterator<Long> iterator = ids.iterator();
+            while (iterator.hasNext()) {
+                List<Long> chunk = new ArrayList<>(Math.min(chunkSize, ids.size()));
+                while (chunk.size() < chunkSize && iterator.hasNext()) {
+                    chunk.add(iterator.next());
+                }
+                em.getTransaction().begin();
+                try {
+                    Query query = em.createNamedQuery(Shop.DELETE_ALL_BY_ID)
+                        .setParameter("ids", chunk);
+                    keepSharedCache(query);
+                    deleted += query.executeUpdate();
+                    em.getTransaction().commit();
+                    writeCommitted();
+                } finally {
+                    if (em.getTransaction().isActive()) {
+                        em.getTransaction().rollback();
+                    }
+                }
+                for (Long id : chunk) {
+                    emf.getCache().evict(Shop.class, id);
+                    nameIndex.remove(id);
+                }
+                queryCache.invalidateShops(new HashSet<>(chunk));
+            }
+            return deleted;
         } finally {
             em.close();
         }
     }
     
-    public List<Shop> findByNameContaining(String name) {
+    /**
+     * Keyset pagination: the next page of shops with an id greater than lastSeenId (null for the first page),
+     * ordered by id.
+     */
+    public List<Shop> findAllAfter(Long lastSeenId, int pageSize) {
+        return findAllAfter(lastSeenId, pageSize, false);
+    }
+    
+    List<Shop> findAllAfter(Long lastSeenId, int pageSize, boolean readOnly) {
+        return findPage(Shop.FIND_ALL_AFTER, null, null, lastSeenId, pageSize, readOnly);
+    }
+    
+    public List<Shop> findByCityAfter(String city, Long lastSeenId, int pageSize) {
+        return findByCityAfter(city, lastSeenId, pageSize, false);
+    }
+    
+    List<Shop> findByCityAfter(String city, Long lastSeenId, int pageSize, boolean readOnly) {
+        return findPage(Shop.FIND_BY_CITY_AFTER, "city", city, lastSeenId, pageSize, readOnly);
+    }
+    
+    public List<Shop> findByCategoryAfter(String category, Long lastSeenId, int pageSize) {
+        return findByCategoryAfter(category, lastSeenId, pageSize, false);
+    }
+    
+    List<Shop> findByCategoryAfter(String category, Long lastSeenId, int pageSize, boolean readOnly) {
+        return findPage(Shop.FIND_BY_CATEGORY_AFTER, "category", category, lastSeenId, pageSize, readOnly);
+    }
+    
+    public Stream<Shop> streamAll() {
+        return streamAll(DEFAULT_FETCH_SIZE);
+    }
+    
+    /**
+     * Streams every shop through a forward-only cursor. The stream holds a connection
+     * and must be closed, e.g. with try-with-resources.
+     */
+    public Stream<Shop> streamAll(int fetchSize) {
+        return streamAll(fetchSize, false);
+    }
+    
+    Stream<Shop> streamAll(int fetchSize, boolean readOnly) {
+        return stream(Shop.STREAM_ALL, null, null, fetchSize, readOnly);
+    }
+    
+    public Stream<Shop> streamByCity(String city) {
+        return streamByCity(city, DEFAULT_FETCH_SIZE);
+    }
+    
+    public Stream<Shop> streamByCity(String city, int fetchSize) {
+        return streamByCity(city, fetchSize, false);
+    }
+    
+    Stream<Shop> streamByCity(String city, int fetchSize, boolean readOnly) {
+        return stream(Shop.STREAM_BY_CITY, "city", city, fetchSize, readOnly);
+    }
+    
+    public Stream<Shop> streamByCategory(String category) {
+        return streamByCategory(category, DEFAULT_FETCH_SIZE);
+    }
+    
+    public Stream<Shop> streamByCategory(String category, int fetchSize) {
+        return streamByCategory(category, fetchSize, false);
+    }
+    
+    Stream<Shop> streamByCategory(String category, int fetchSize, boolean readOnly) {
+        return stream(Shop.STREAM_BY_CATEGORY, "category", category, fetchSize, readOnly);
+    }
+    
+    /**
+     * (Re)builds the name index from the database. findByNameContaining falls back to LIKE queries
+     * until the build completes; writes made during the build are kept.
+     */
+    public void rebuildNameIndex() {
+        nameIndex.beginLoad();
+        boolean loaded = false;
+        try (Stream<Shop> shops = streamAll(DEFAULT_FETCH_SIZE, true)) {
+            shops.forEach(shop -> nameIndex.load(shop.getId(), shop.getName()));
+            loaded = true;
+        } finally {
+            if (loaded) {
+                nameIndex.finishLoad();
+            } else {
+                nameIndex.abortLoad();
+            }
+        }
+    }
+    
+    public boolean isNameIndexReady() {
+        return nameIndex.isReady();
+    }
+    
+    public int nameIndexSize() {
+        return nameIndex.size();
+    }
+    
+    /**
+     * Hit/miss counters of the findByCity / findByCategory result cache
+     */
+    public CacheStats queryCacheStatistics() {
+        return queryCache.stats();
+    }
+    
+    public void clearQueryCache() {
+        queryCache.invalidateAll();
+    }
+    
+    /**
+     * Persists a new shop or merges an existing one, collecting the cities and categories
+     * whose cached results the write affects (before and after the change)
+     */
+    private static Shop persistOrMerge(EntityManager em, Shop shop, Set<String> cities, Set<String> categories) {
+        if (shop.getId() == null) {
+            em.persist(shop);
+        } else {
+            // Loaded by merge() anyway; reading it first gives the values being replaced
+            Shop previous = em.find(Shop.class, shop.getId());
+            if (previous != null) {
+                cities.add(previous.getCity());
+                categories.add(previous.getCategory());
+            }
+            shop = em.merge(shop);
+        }
+        cities.add(shop.getCity());
+        categories.add(shop.getCategory());
+        return shop;
+    }
+    
+    private void invalidateQueries(Set<String> cities, Set<String> categories) {
+        cities.forEach(city -> queryCache.invalidate(Finder.CITY, city));
+        categories.forEach(category -> queryCache.invalidate(Finder.CATEGORY, category));
+    }
+    
+    private List<Shop> findAllById(long[] ids, boolean readOnly, boolean replica) {
+        List<Shop> shops = new ArrayList<>(ids.length);
+        if (ids.length == 0) {
+            return shops;
+        }
+        Arrays.sort(ids);
         EntityManager em = emf.createEntityManager();
         try {
-            TypedQuery<Shop> query = em.createQuery(
-                "SELECT s FROM Shop s WHERE s.name LIKE :name", Shop.class);
-            query.setParameter("name", "%" + name + "%");
-            return query.getResultList();
+            TypedQuery<Shop> query = em.createNamedQuery(Shop.FIND_ALL_BY_ID, Shop.class);
+            applyReadOnly(query, readOnly);
+            applyReplica(query, replica);
+            for (int from = 0; from < ids.length; from += DEFAULT_CHUNK_SIZE) {
+                List<Long> chunk = new ArrayList<>(Math.min(DEFAULT_CHUNK_SIZE, ids.length - from));
+                for (int i = from; i < ids.length && i < from + DEFAULT_CHUNK_SIZE; i++) {
+                    chunk.add(ids[i]);
+                }
+                shops.addAll(query.setParameter("ids", chunk).getResultList());
+            }
+            return shops;
         } finally {
             em.close();
         }
     }
+    
+    private List<Shop> findPage(String queryName, String parameter, Object value, Long lastSeenId, int pageSize,
+                                boolean readOnly) {
+        requirePositive(pageSize);
+        return read(replica -> {
+            EntityManager em = emf.createEntityManager();
+            try {
+                TypedQuery<Shop> query = em.createNamedQuery(queryName, Shop.class);
+                if (parameter != null) {
+                    query.setParameter(parameter, value);
+                }
+                query.setParameter("lastSeenId", lastSeenId != null ? lastSeenId : Long.MIN_VALUE);
+                query.setMaxResults(pageSize);
+                applyReadOnly(query, readOnly);
+                applyReplica(query, replica);
+                return query.getResultList();
+            } finally {
+                em.close();
+            }
+        });
+    }
+    
+    private Stream<Shop> stream(String queryName, String parameter, Object value, int fetchSize, boolean readOnly) {
+        requirePositive(fetchSize);
+        EntityManager em = emf.createEntityManager();
+        try {
+            // PostgreSQL only honours the fetch size when auto-commit is off,
+            // so the cursor runs on the transaction's own connection
+            em.getTransaction().begin();
+            em.unwrap(UnitOfWork.class).beginEarlyTransaction();
+            
+            Query query = em.createNamedQuery(queryName);
+            if (parameter != null) {
+                query.setParameter(parameter, value);
+            }
+            query.setHint(QueryHints.SCROLLABLE_CURSOR, HintValues.TRUE);
+            query.setHint(QueryHints.RESULT_SET_TYPE, ResultSetType.ForwardOnly);
+            query.setHint(QueryHints.JDBC_FETCH_SIZE, fetchSize);
+            applyReadOnly(query, readOnly);
+            ScrollableCursor cursor = (ScrollableCursor) query.getSingleResult();
+            
+            Spliterator<Shop> spliterator = new Spliterators.AbstractSpliterator<Shop>(
+                    Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                
+                private int readSinceClear;
+                
+                @Override
+                public boolean tryAdvance(Consumer<? super Shop> action) {
+                    if (!cursor.hasNext()) {
+                        return false;
+                    }
+                    action.accept((Shop) cursor.next());
+                    // Detach what has been handed out so memory stays flat whatever the result size
+                    if (++readSinceClear == fetchSize) {
+                        cursor.clear();
+                        em.clear();
+                        readSinceClear = 0;
+                    }
+                    return true;
+                }
+            };
+            return StreamSupport.stream(spliterator, false).onClose(() -> {
+                try {
+                    cursor.close();
+                } finally {
+                    close(em);
+                }
+            });
+        } catch (RuntimeException e) {
+            close(em);
+            throw e;
+        }
+    }
+    
+    /**
+     * READ_ONLY returns the shared cache instances instead of registering a clone of each row
+     * in the persistence context for change tracking
+     */
+    private static void applyReadOnly(Query query, boolean readOnly) {
+        if (readOnly) {
+            query.setHint(QueryHints.READ_ONLY, HintValues.TRUE);
+        }
+    }
+    
+    /**
+     * Runs the read on the replica when the router allows it (the function is told which one it got)
+     */
+    private <T> T read(Function<Boolean, T> query) {
+        if (readRouter == null || !readRouter.useReplica()) {
+            return query.apply(false);
+        }
+        return readRouter.onReplica(() -> query.apply(true));
+    }
+    
+    /**
+     * Rows read from a lagging replica stay out of the shared cache, which the primary reads trust
+     */
+    private static void applyReplica(Query query, boolean replica) {
+        if (replica) {
+            query.setHint(QueryHints.MAINTAIN_CACHE, HintValues.FALSE);
+        }
+    }
+    
+    private void writeCommitted() {
+        if (readRouter != null) {
+            readRouter.writeCommitted();
+        }
+    }
+    
+    /**
+     * By default a bulk UPDATE/DELETE invalidates every Shop of the shared cache;
+     * the callers evict the shops they touched instead
+     */
+    private static void keepSharedCache(Query query) {
+        ((ModifyAllQuery) query.unwrap(JpaQuery.class).getDatabaseQuery()).setCacheUsage(ModifyAllQuery.NO_CACHE);
+    }
+    
+    private static void close(EntityManager em) {
+        try {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+        } finally {
+            em.close();
+        }
+    }
+    
+    private static void requirePositive(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive: " + size);
+        }
+    }
 }
\ No newline at end of file
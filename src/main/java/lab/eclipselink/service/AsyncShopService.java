@@ -0,0 +1,113 @@
+package lab.eclipselink.service;
+
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lab.concurrent.BlockingCallExecutor;
+import lab.eclipselink.entity.Shop;
+import lab.routing.ReadRouter;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking variants of the {@link ShopService} finders, for callers that fan out several
+ * lookups. At most async.shop.max-concurrency finders run at once, so that they cannot exhaust the
+ * shared connection pool. Each finder also comes as a lazy Mutiny Uni, submitted on subscription.
+ */
+@ApplicationScoped
+public class AsyncShopService {
+    
+    @Inject
+    ShopService shopService;
+    
+    @Inject
+    ReadRouter readRouter;
+    
+    @ConfigProperty(name = "async.shop.max-concurrency", defaultValue = "10")
+    int maxConcurrency;
+    
+    private BlockingCallExecutor executor;
+    
+    @PostConstruct
+    void init() {
+        executor = new BlockingCallExecutor("shop", maxConcurrency);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.close();
+    }
+    
+    public CompletableFuture<List<Shop>> findAll() {
+        return supply(shopService::findAll);
+    }
+    
+    public CompletableFuture<Optional<Shop>> findById(Long id) {
+        return supply(() -> shopService.findById(id));
+    }
+    
+    public CompletableFuture<List<Shop>> findByCity(String city) {
+        return supply(() -> shopService.findByCity(city));
+    }
+    
+    public CompletableFuture<List<Shop>> findByCategory(String category) {
+        return supply(() -> shopService.findByCategory(category));
+    }
+    
+    public CompletableFuture<List<Shop>> findByNameContaining(String name) {
+        return supply(() -> shopService.findByNameContaining(name));
+    }
+    
+    public CompletableFuture<List<Shop>> findAllAfter(Long lastSeenId, int pageSize) {
+        return supply(() -> shopService.findAllAfter(lastSeenId, pageSize));
+    }
+    
+    public Uni<List<Shop>> findAllUni() {
+        return uni(shopService::findAll);
+    }
+    
+    public Uni<Optional<Shop>> findByIdUni(Long id) {
+        return uni(() -> shopService.findById(id));
+    }
+    
+    public Uni<List<Shop>> findByCityUni(String city) {
+        return uni(() -> shopService.findByCity(city));
+    }
+    
+    public Uni<List<Shop>> findByCategoryUni(String category) {
+        return uni(() -> shopService.findByCategory(category));
+    }
+    
+    public Uni<List<Shop>> findByNameContainingUni(String name) {
+        return uni(() -> shopService.findByNameContaining(name));
+    }
+    
+    public Uni<List<Shop>> findAllAfterUni(Long lastSeenId, int pageSize) {
+        return uni(() -> shopService.findAllAfter(lastSeenId, pageSize));
+    }
+    
+    public int activeCalls() {
+        return executor.activeCalls();
+    }
+    
+    /**
+     * The caller's last write goes with the call, so that a read right after it is not served by a
+     * replica that has not replayed it
+     */
+    private <T> CompletableFuture<T> supply(Supplier<T> finder) {
+        return executor.supply(readRouter.inheritWrites(finder));
+    }
+    
+    /**
+     * The caller's last write is captured when the Uni is created, not when it is subscribed to
+     */
+    private <T> Uni<T> uni(Supplier<T> finder) {
+        Supplier<T> call = readRouter.inheritWrites(finder);
+        return Uni.createFrom().completionStage(() -> executor.supply(call));
+    }
+}
\ No newline at end of file
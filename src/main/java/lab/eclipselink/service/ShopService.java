@@ -4,9 +4,15 @@ import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import lab.eclipselink.entity.Shop;
+import lab.eclipselink.repository.ReadOnlyShopRepository;
+import lab.eclipselink.repository.ShopPatch;
 import lab.eclipselink.repository.ShopRepository;
+import lab.routing.ReplicaRead;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @ApplicationScoped
 public class ShopService {
@@ -14,39 +20,51 @@ public class ShopService {
     @Inject
     ShopRepository shopRepository;
     
+    @ConfigProperty(name = "shop.bulk.chunk-size", defaultValue = "1000")
+    int bulkChunkSize;
+    
     public Shop create(Shop shop) {
         return shopRepository.save(shop);
     }
     
+    public List<Shop> saveAll(Collection<Shop> shops) {
+        return shopRepository.saveAll(shops, bulkChunkSize);
+    }
+    
+    public int deleteAllById(Collection<Long> ids) {
+        return shopRepository.deleteAllById(ids, bulkChunkSize);
+    }
+    
+    @ReplicaRead
     public List<Shop> findAll() {
         return shopRepository.findAll();
     }
     
+    /**
+     * Non-tracking finders for callers that only read the shops
+     */
+    public ReadOnlyShopRepository readOnly() {
+        return shopRepository.readOnly();
+    }
+    
     public Optional<Shop> findById(Long id) {
         return shopRepository.findById(id);
     }
     
     public Shop update(Long id, Shop updatedShop) {
-        Optional<Shop> existingShop = shopRepository.findById(id);
-        if (existingShop.isPresent()) {
-            Shop shop = existingShop.get();
-            shop.setName(updatedShop.getName());
-            shop.setAddress(updatedShop.getAddress());
-            shop.setCity(updatedShop.getCity());
-            shop.setPhone(updatedShop.getPhone());
-            shop.setCategory(updatedShop.getCategory());
-            return shopRepository.save(shop);
-        }
-        return null;
+        return shopRepository.update(id, updatedShop).orElse(null);
+    }
+    
+    /**
+     * Updates only the fields set in the patch, if the shop is still at expectedVersion.
+     * Returns false if the shop does not exist, throws OptimisticLockException if it changed meanwhile.
+     */
+    public boolean patch(Long id, long expectedVersion, ShopPatch patch) {
+        return shopRepository.patch(id, expectedVersion, patch);
     }
     
     public boolean delete(Long id) {
-        Optional<Shop> shop = shopRepository.findById(id);
-        if (shop.isPresent()) {
-            shopRepository.deleteById(id);
-            return true;
-        }
-        return false;
+        return shopRepository.deleteById(id);
     }
     
     public List<Shop> findByCity(String city) {
@@ -57,7 +75,35 @@ public class ShopService {
         return shopRepository.findByCategory(category);
     }
     
+    @ReplicaRead
     public List<Shop> findByNameContaining(String name) {
         return shopRepository.findByNameContaining(name);
     }
+    
+    @ReplicaRead
+    public List<Shop> findAllAfter(Long lastSeenId, int pageSize) {
+        return shopRepository.findAllAfter(lastSeenId, pageSize);
+    }
+    
+    @ReplicaRead
+    public List<Shop> findByCityAfter(String city, Long lastSeenId, int pageSize) {
+        return shopRepository.findByCityAfter(city, lastSeenId, pageSize);
+    }
+    
+    @ReplicaRead
+    public List<Shop> findByCategoryAfter(String category, Long lastSeenId, int pageSize) {
+        return shopRepository.findByCategoryAfter(category, lastSeenId, pageSize);
+    }
+    
+    public Stream<Shop> streamAll() {
+        return shopRepository.streamAll();
+    }
+    
+    public Stream<Shop> streamByCity(String city) {
+        return shopRepository.streamByCity(city);
+    }
+    
+    public Stream<Shop> streamByCategory(String category) {
+        return shopRepository.streamByCategory(category);
+    }
 }
\ No newline at end of file
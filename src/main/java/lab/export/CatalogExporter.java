@@ -0,0 +1,97 @@
+package lab.export;
+
+import io.quarkus.narayana.jta.runtime.TransactionConfiguration;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import lab.eclipselink.entity.Shop;
+import lab.eclipselink.repository.ShopRepository;
+import lab.quarkus.entity.Gift;
+import lab.quarkus.repository.GiftRepository;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exports the shops (EclipseLink) and gifts (Hibernate) tables as NDJSON or CSV.
+ *
+ * Rows are read through forward-only database cursors with a fixed fetch size and written one by
+ * one, so memory stays flat whatever the table size. Streams and channels are flushed, not closed.
+ */
+@ApplicationScoped
+public class CatalogExporter {
+    
+    private static final Logger LOG = Logger.getLogger(CatalogExporter.class);
+    
+    private static final String[] SHOP_COLUMNS = {"id", "name", "address", "city", "phone", "category", "version"};
+    
+    private static final String[] GIFT_COLUMNS = {"id", "name", "description", "price", "category"};
+    
+    @Inject
+    ShopRepository shopRepository;
+    
+    @Inject
+    GiftRepository giftRepository;
+    
+    @ConfigProperty(name = "export.fetch-size", defaultValue = "1000")
+    int fetchSize;
+    
+    /**
+     * Returns the number of exported shops
+     */
+    public long exportShops(ExportFormat format, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        CatalogWriter writer = new CatalogWriter(out, format, SHOP_COLUMNS);
+        long rows = 0;
+        try (Stream<Shop> shops = shopRepository.readOnly().streamAll(fetchSize)) {
+            Iterator<Shop> iterator = shops.iterator();
+            while (iterator.hasNext()) {
+                Shop shop = iterator.next();
+                writer.write(shop.getId(), shop.getName(), shop.getAddress(), shop.getCity(),
+                    shop.getPhone(), shop.getCategory(), shop.getVersion());
+                rows++;
+            }
+        }
+        writer.flush();
+        LOG.infof("Exported %d shops as %s in %d ms", rows, format, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+    
+    public long exportShops(ExportFormat format, WritableByteChannel channel) throws IOException {
+        return exportShops(format, Channels.newOutputStream(channel));
+    }
+    
+    /**
+     * Returns the number of exported gifts. The cursor lives in the transaction,
+     * whose timeout is raised for large tables.
+     */
+    @Transactional
+    @TransactionConfiguration(timeout = 3600)
+    public long exportGifts(ExportFormat format, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        CatalogWriter writer = new CatalogWriter(out, format, GIFT_COLUMNS);
+        long rows = 0;
+        try (Stream<Gift> gifts = giftRepository.streamAllDetached(fetchSize)) {
+            Iterator<Gift> iterator = gifts.iterator();
+            while (iterator.hasNext()) {
+                Gift gift = iterator.next();
+                writer.write(gift.id, gift.name, gift.description, gift.price, gift.category);
+                rows++;
+            }
+        }
+        writer.flush();
+        LOG.infof("Exported %d gifts as %s in %d ms", rows, format, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+    
+    @Transactional
+    @TransactionConfiguration(timeout = 3600)
+    public long exportGifts(ExportFormat format, WritableByteChannel channel) throws IOException {
+        return exportGifts(format, Channels.newOutputStream(channel));
+    }
+}
\ No newline at end of file
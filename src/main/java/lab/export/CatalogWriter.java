@@ -0,0 +1,127 @@
+package lab.export;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serializes rows one at a time as NDJSON or CSV through a fixed-size buffer.
+ * Values may be null, strings or numbers; the underlying stream is flushed but never closed.
+ * In CSV, null is written as an empty field and an empty string as a quoted "", which the
+ * importer (and COPY ... CSV) read back as NULL and '' respectively.
+ */
+final class CatalogWriter implements Flushable {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final Writer out;
+    private final ExportFormat format;
+    private final String[] columns;
+    
+    CatalogWriter(OutputStream out, ExportFormat format, String... columns) throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.format = format;
+        this.columns = columns;
+        if (format == ExportFormat.CSV) {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    this.out.write(',');
+                }
+                writeCsv(columns[i]);
+            }
+            this.out.write('\n');
+        }
+    }
+    
+    void write(Object... values) throws IOException {
+        if (values.length != columns.length) {
+            throw new IllegalArgumentException("Expected " + columns.length + " values, got " + values.length);
+        }
+        if (format == ExportFormat.NDJSON) {
+            out.write('{');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                writeJsonString(columns[i]);
+                out.write(':');
+                writeJsonValue(values[i]);
+            }
+            out.write("}\n");
+        } else {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                if (values[i] != null) {
+                    writeCsv(values[i].toString());
+                }
+            }
+            out.write('\n');
+        }
+    }
+    
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+    
+    private void writeJsonValue(Object value) throws IOException {
+        if (value == null) {
+            out.write("null");
+        } else if (value instanceof Double number && (number.isNaN() || number.isInfinite())) {
+            out.write("null"); // not representable in JSON
+        } else if (value instanceof Number) {
+            out.write(value.toString());
+        } else {
+            writeJsonString(value.toString());
+        }
+    }
+    
+    private void writeJsonString(String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+        out.write('"');
+    }
+    
+    private void writeCsv(String value) throws IOException {
+        boolean quoted = value.isEmpty();
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+}
\ No newline at end of file
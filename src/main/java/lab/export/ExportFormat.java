@@ -0,0 +1,17 @@
+package lab.export;
+
+/**
+ * Output formats of {@link CatalogExporter}
+ */
+public enum ExportFormat {
+    
+    /**
+     * One JSON object per line
+     */
+    NDJSON,
+    
+    /**
+     * RFC 4180 CSV with a header line
+     */
+    CSV
+}
\ No newline at end of file
@@ -7,9 +7,12 @@ import com.google.inject.Singleton;
 import io.quarkus.arc.Arc;
 import io.quarkus.arc.InstanceHandle;
 import lab.quarkus.service.GiftService;
+import lab.quarkus.service.ReactiveGiftService;
 import lab.quarkus.repository.GiftRepository;
+import lab.quarkus.repository.ReactiveGiftRepository;
 import lab.guice.service.GuiceGiftService;
 import lab.guice.service.PureGuiceService;
+import lab.guice.service.ReactiveGuiceGiftService;
 import org.jboss.logging.Logger;
 
 /**
@@ -30,6 +33,7 @@ public class QuarkusIntegrationModule extends AbstractModule {
         
         // Configuration du service Guice qui utilise les composants Quarkus
         bind(GuiceGiftService.class).toProvider(GuiceGiftServiceProvider.class).in(Singleton.class);
+        bind(ReactiveGuiceGiftService.class).toProvider(ReactiveGuiceGiftServiceProvider.class).in(Singleton.class);
         
         // Configuration des services purement Guice
         bind(PureGuiceService.class).in(Singleton.class);
@@ -84,4 +88,23 @@ public class QuarkusIntegrationModule extends AbstractModule {
             throw new RuntimeException("Required Quarkus components not available in CDI container");
         }
     }
+    
+    /**
+     * Provider pour créer ReactiveGuiceGiftService avec les composants réactifs Quarkus injectés
+     */
+    public static class ReactiveGuiceGiftServiceProvider implements Provider<ReactiveGuiceGiftService> {
+        @Override
+        public ReactiveGuiceGiftService get() {
+            LOG.debug("Creating ReactiveGuiceGiftService with Quarkus reactive components");
+            
+            InstanceHandle<ReactiveGiftService> reactiveGiftServiceInstance = Arc.container().instance(ReactiveGiftService.class);
+            InstanceHandle<ReactiveGiftRepository> reactiveGiftRepositoryInstance = Arc.container().instance(ReactiveGiftRepository.class);
+            
+            if (reactiveGiftServiceInstance.isAvailable() && reactiveGiftRepositoryInstance.isAvailable()) {
+                return new ReactiveGuiceGiftService(reactiveGiftServiceInstance.get(), reactiveGiftRepositoryInstance.get());
+            }
+            
+            throw new RuntimeException("Required Quarkus reactive components not available in CDI container");
+        }
+    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package lab.guice.service;
 
 import lab.quarkus.entity.Gift;
 import lab.quarkus.service.GiftService;
+import lab.quarkus.repository.GiftPriceStatistics;
 import lab.quarkus.repository.GiftRepository;
 import org.jboss.logging.Logger;
 
@@ -51,6 +52,15 @@ public class GuiceGiftService {
         return quarkusGiftService.create(gift);
     }
     
+    /**
+     * Crée plusieurs gifts en une seule transaction (insertions par lots JDBC), à préférer à
+     * createGift dans une boucle
+     */
+    public List<Gift> createGifts(List<Gift> gifts) {
+        LOG.info("Creating " + gifts.size() + " gifts via Quarkus service");
+        return quarkusGiftService.createAll(gifts);
+    }
+    
     /**
      * Met à jour un gift existant via le service Quarkus
      */
@@ -101,24 +111,25 @@ public class GuiceGiftService {
     }
     
     /**
-     * Exemple d'opération business qui combine plusieurs appels
+     * Exemple d'opération business : nombre, valeur totale et prix moyen en une seule requête d'agrégats
      */
     public String getGiftSummary() {
-        long totalCount = getTotalGiftsCount();
-        List<Gift> allGifts = listAllGifts();
-        
-        double totalValue = allGifts.stream()
-            .mapToDouble(gift -> gift.price)
-            .sum();
-            
+        String summary = summary(quarkusGiftRepository.priceStatistics());
+        LOG.info(summary);
+        return summary;
+    }
+    
+    /**
+     * Texte du résumé, partagé avec ReactiveGuiceGiftService
+     */
+    static String summary(GiftPriceStatistics statistics) {
+        long totalCount = statistics.count();
+        double totalValue = statistics.sum();
         double averagePrice = totalCount > 0 ? totalValue / totalCount : 0.0;
         
-        String summary = String.format(
+        return String.format(
             "Gift Summary: Total=%d, Total Value=%.2f, Average Price=%.2f", 
             totalCount, totalValue, averagePrice
         );
-        
-        LOG.info(summary);
-        return summary;
     }
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package lab.guice.service;
+
+/**
+ * Opérations de calcul de PureGuiceService.
+ * Résolue une fois (par exemple avant un calcul par lots), elle évite de relire la chaîne
+ * d'opération à chaque élément.
+ */
+public enum Operation {
+    
+    ADD,
+    SUBTRACT,
+    MULTIPLY,
+    DIVIDE,
+    POWER;
+    
+    /**
+     * Retrouve l'opération à partir de son nom ("add", "multiply"...) ou de son symbole ("+", "*"...),
+     * sans tenir compte de la casse
+     */
+    public static Operation parse(String operation) {
+        switch (operation.toLowerCase()) {
+            case "add":
+            case "+":
+                return ADD;
+            case "subtract":
+            case "-":
+                return SUBTRACT;
+            case "multiply":
+            case "*":
+                return MULTIPLY;
+            case "divide":
+            case "/":
+                return DIVIDE;
+            case "power":
+            case "^":
+                return POWER;
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + operation);
+        }
+    }
+}
\ No newline at end of file
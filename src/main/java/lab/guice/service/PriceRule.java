@@ -0,0 +1,290 @@
+package lab.guice.service;
+
+/**
+ * Règle métier de prix compilée, par exemple "price * m - 5" ou "max(price * m, 10)".
+ *
+ * L'expression est analysée une seule fois en un arbre de lambdas (les sous-expressions constantes
+ * étant précalculées) ; l'évaluation ne fait ensuite ni analyse de chaîne ni allocation.
+ * Variables : price (le prix du gift) et m ou multiplier ; opérateurs + - * / ^ et parenthèses ;
+ * fonctions min, max et abs. Instances immuables, partageables entre threads.
+ */
+public final class PriceRule {
+    
+    @FunctionalInterface
+    private interface Node {
+        double evaluate(double price, double multiplier);
+    }
+    
+    private final String expression;
+    private final Node root;
+    
+    private PriceRule(String expression, Node root) {
+        this.expression = expression;
+        this.root = root;
+    }
+    
+    /**
+     * Compile l'expression ; IllegalArgumentException si elle est invalide
+     */
+    public static PriceRule compile(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Empty price rule");
+        }
+        return new PriceRule(expression, new Parser(expression).parse());
+    }
+    
+    public String getExpression() {
+        return expression;
+    }
+    
+    /**
+     * Évalue la règle pour un prix
+     */
+    public double apply(double price, double multiplier) {
+        return root.evaluate(price, multiplier);
+    }
+    
+    /**
+     * Évalue la règle pour tout un tableau de prix ; result peut être prices lui-même
+     */
+    public void apply(double[] prices, double multiplier, double[] result) {
+        int length = prices.length;
+        if (result.length < length) {
+            throw new IllegalArgumentException("Result array too small: " + result.length + " < " + length);
+        }
+        Node node = root;
+        for (int i = 0; i < length; i++) {
+            result[i] = node.evaluate(prices[i], multiplier);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "PriceRule[" + expression + "]";
+    }
+    
+    /**
+     * Analyseur descendant récursif :
+     * expression = term (('+' | '-') term)*, term = unary (('*' | '/') unary)*,
+     * unary = '-' unary | power, power = primary ('^' unary)?,
+     * primary = nombre | variable | fonction '(' expression (',' expression)* ')' | '(' expression ')'
+     */
+    private static final class Parser {
+        
+        private final String text;
+        private int position;
+        
+        Parser(String text) {
+            this.text = text;
+        }
+        
+        Node parse() {
+            Node node = expression();
+            skipSpaces();
+            if (position < text.length()) {
+                throw error("Unexpected '" + text.charAt(position) + "'");
+            }
+            return node;
+        }
+        
+        private Node expression() {
+            Node node = term();
+            while (true) {
+                if (accept('+')) {
+                    node = add(node, term());
+                } else if (accept('-')) {
+                    node = subtract(node, term());
+                } else {
+                    return node;
+                }
+            }
+        }
+        
+        private Node term() {
+            Node node = unary();
+            while (true) {
+                if (accept('*')) {
+                    node = multiply(node, unary());
+                } else if (accept('/')) {
+                    node = divide(node, unary());
+                } else {
+                    return node;
+                }
+            }
+        }
+        
+        private Node unary() {
+            if (accept('-')) {
+                Node operand = unary();
+                return fold((price, multiplier) -> -operand.evaluate(price, multiplier), operand);
+            }
+            return power();
+        }
+        
+        private Node power() {
+            Node base = primary();
+            if (accept('^')) {
+                // Associatif à droite : 2 ^ 3 ^ 2 = 2 ^ 9
+                Node exponent = unary();
+                return fold((price, multiplier) -> Math.pow(base.evaluate(price, multiplier), exponent.evaluate(price, multiplier)),
+                    base, exponent);
+            }
+            return base;
+        }
+        
+        private Node primary() {
+            skipSpaces();
+            if (accept('(')) {
+                Node node = expression();
+                expect(')');
+                return node;
+            }
+            if (position < text.length() && (Character.isDigit(text.charAt(position)) || text.charAt(position) == '.')) {
+                return number();
+            }
+            if (position < text.length() && Character.isLetter(text.charAt(position))) {
+                return identifier();
+            }
+            throw error(position < text.length() ? "Unexpected '" + text.charAt(position) + "'" : "Unexpected end of rule");
+        }
+        
+        private Node number() {
+            int start = position;
+            while (position < text.length() && (Character.isDigit(text.charAt(position)) || text.charAt(position) == '.')) {
+                position++;
+            }
+            double value;
+            try {
+                value = Double.parseDouble(text.substring(start, position));
+            } catch (NumberFormatException e) {
+                position = start;
+                throw error("Invalid number");
+            }
+            return constant(value);
+        }
+        
+        private Node identifier() {
+            int start = position;
+            while (position < text.length() && Character.isLetterOrDigit(text.charAt(position))) {
+                position++;
+            }
+            String name = text.substring(start, position).toLowerCase();
+            switch (name) {
+                case "price":
+                    return (price, multiplier) -> price;
+                case "m":
+                case "multiplier":
+                    return (price, multiplier) -> multiplier;
+                case "abs": {
+                    Node[] arguments = arguments(1);
+                    Node operand = arguments[0];
+                    return fold((price, multiplier) -> Math.abs(operand.evaluate(price, multiplier)), operand);
+                }
+                case "min": {
+                    Node[] arguments = arguments(2);
+                    Node left = arguments[0];
+                    Node right = arguments[1];
+                    return fold((price, multiplier) -> Math.min(left.evaluate(price, multiplier), right.evaluate(price, multiplier)),
+                        left, right);
+                }
+                case "max": {
+                    Node[] arguments = arguments(2);
+                    Node left = arguments[0];
+                    Node right = arguments[1];
+                    return fold((price, multiplier) -> Math.max(left.evaluate(price, multiplier), right.evaluate(price, multiplier)),
+                        left, right);
+                }
+                default:
+                    position = start;
+                    throw error("Unknown name '" + name + "'");
+            }
+        }
+        
+        private Node[] arguments(int count) {
+            expect('(');
+            Node[] arguments = new Node[count];
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    expect(',');
+                }
+                arguments[i] = expression();
+            }
+            expect(')');
+            return arguments;
+        }
+        
+        private boolean accept(char expected) {
+            skipSpaces();
+            if (position < text.length() && text.charAt(position) == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+        
+        private void expect(char expected) {
+            if (!accept(expected)) {
+                throw error("Expected '" + expected + "'");
+            }
+        }
+        
+        private void skipSpaces() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+        
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + position + " in price rule: " + text);
+        }
+    }
+    
+    private static Node add(Node left, Node right) {
+        return fold((price, multiplier) -> left.evaluate(price, multiplier) + right.evaluate(price, multiplier), left, right);
+    }
+    
+    private static Node subtract(Node left, Node right) {
+        return fold((price, multiplier) -> left.evaluate(price, multiplier) - right.evaluate(price, multiplier), left, right);
+    }
+    
+    private static Node multiply(Node left, Node right) {
+        return fold((price, multiplier) -> left.evaluate(price, multiplier) * right.evaluate(price, multiplier), left, right);
+    }
+    
+    private static Node divide(Node left, Node right) {
+        if (right instanceof Constant constant && constant.value == 0) {
+            throw new IllegalArgumentException("Division by zero");
+        }
+        return fold((price, multiplier) -> {
+            double divisor = right.evaluate(price, multiplier);
+            if (divisor == 0) {
+                throw new IllegalArgumentException("Division by zero");
+            }
+            return left.evaluate(price, multiplier) / divisor;
+        }, left, right);
+    }
+    
+    private static Node constant(double value) {
+        return new Constant(value);
+    }
+    
+    /**
+     * Remplace le nœud par sa valeur quand tous ses opérandes sont constants
+     */
+    private static Node fold(Node node, Node... operands) {
+        for (Node operand : operands) {
+            if (!(operand instanceof Constant)) {
+                return node;
+            }
+        }
+        return constant(node.evaluate(0, 0));
+    }
+    
+    private record Constant(double value) implements Node {
+        
+        @Override
+        public double evaluate(double price, double multiplier) {
+            return value;
+        }
+    }
+}
\ No newline at end of file
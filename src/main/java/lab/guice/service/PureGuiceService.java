@@ -1,5 +1,7 @@
 package lab.guice.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.jboss.logging.Logger;
 
 /**
@@ -10,49 +12,139 @@ public class PureGuiceService {
     
     private static final Logger LOG = Logger.getLogger(PureGuiceService.class);
     
+    /**
+     * Nombre maximal de règles de prix compilées gardées en cache
+     */
+    private static final int RULE_CACHE_SIZE = 256;
+    
+    /**
+     * Règle appliquée par processBusinessLogic
+     */
+    private static final String BUSINESS_RULE = "price * m";
+    
     private final String serviceId;
     
+    private final Cache<String, PriceRule> rules = Caffeine.newBuilder()
+        .maximumSize(RULE_CACHE_SIZE)
+        .build();
+    
     public PureGuiceService() {
         this.serviceId = "GUICE-" + System.currentTimeMillis();
         LOG.info("PureGuiceService created with ID: " + serviceId);
     }
     
     /**
-     * Service de calcul simple
+     * Service de calcul simple (journalisé en DEBUG, appelé pour chaque gift par les calculs métier)
      */
     public double calculate(double a, double b, String operation) {
-        LOG.info("Calculating: " + a + " " + operation + " " + b);
+        LOG.debugf("Calculating: %s %s %s", a, operation, b);
         
-        switch (operation.toLowerCase()) {
-            case "add":
-            case "+":
+        return calculate(a, b, Operation.parse(operation));
+    }
+    
+    /**
+     * Même calcul avec une opération déjà résolue, sans journalisation
+     */
+    public double calculate(double a, double b, Operation operation) {
+        switch (operation) {
+            case ADD:
                 return a + b;
-            case "subtract":
-            case "-":
+            case SUBTRACT:
                 return a - b;
-            case "multiply":
-            case "*":
+            case MULTIPLY:
                 return a * b;
-            case "divide":
-            case "/":
+            case DIVIDE:
                 if (b == 0) {
                     throw new IllegalArgumentException("Division by zero");
                 }
                 return a / b;
-            case "power":
-            case "^":
+            case POWER:
                 return Math.pow(a, b);
             default:
                 throw new IllegalArgumentException("Unknown operation: " + operation);
         }
     }
     
+    /**
+     * Calcul par lots : result[i] = values[i] (opération) operand, pour tout le tableau.
+     * L'opération est résolue une seule fois, sans journalisation ni allocation par élément ;
+     * result peut être values lui-même pour un calcul en place.
+     */
+    public void calculate(double[] values, double operand, Operation operation, double[] result) {
+        int length = values.length;
+        if (result.length < length) {
+            throw new IllegalArgumentException("Result array too small: " + result.length + " < " + length);
+        }
+        // Une boucle simple par opération, que le JIT peut vectoriser (SIMD)
+        switch (operation) {
+            case ADD:
+                for (int i = 0; i < length; i++) {
+                    result[i] = values[i] + operand;
+                }
+                break;
+            case SUBTRACT:
+                for (int i = 0; i < length; i++) {
+                    result[i] = values[i] - operand;
+                }
+                break;
+            case MULTIPLY:
+                for (int i = 0; i < length; i++) {
+                    result[i] = values[i] * operand;
+                }
+                break;
+            case DIVIDE:
+                if (operand == 0) {
+                    throw new IllegalArgumentException("Division by zero");
+                }
+                for (int i = 0; i < length; i++) {
+                    result[i] = values[i] / operand;
+                }
+                break;
+            case POWER:
+                for (int i = 0; i < length; i++) {
+                    result[i] = Math.pow(values[i], operand);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + operation);
+        }
+    }
+    
+    /**
+     * Somme d'un tableau de valeurs, sans allocation
+     */
+    public double sum(double[] values) {
+        // Quatre accumulateurs indépendants : chaque addition n'attend pas le résultat de la précédente
+        double sum0 = 0;
+        double sum1 = 0;
+        double sum2 = 0;
+        double sum3 = 0;
+        int i = 0;
+        for (; i + 3 < values.length; i += 4) {
+            sum0 += values[i];
+            sum1 += values[i + 1];
+            sum2 += values[i + 2];
+            sum3 += values[i + 3];
+        }
+        for (; i < values.length; i++) {
+            sum0 += values[i];
+        }
+        return (sum0 + sum1) + (sum2 + sum3);
+    }
+    
+    /**
+     * Remise par lots : result[i] = prices[i] diminué de discountPercent %
+     */
+    public void discount(double[] prices, double discountPercent, double[] result) {
+        calculate(prices, 1 - discountPercent / 100.0, Operation.MULTIPLY, result);
+    }
+    
     /**
      * Service de formatage
      */
     public String formatResult(double result) {
         String formatted = String.format("%.2f", result);
-        LOG.info("Formatted result: " + formatted);
+        LOG.debugf("Formatted result: %s", formatted);
         return formatted;
     }
     
@@ -73,19 +165,56 @@ public class PureGuiceService {
      * Service métier complexe
      */
     public String processBusinessLogic(String input, double multiplier) {
-        LOG.info("Processing business logic for: " + input + " with multiplier: " + multiplier);
+        LOG.debugf("Processing business logic for: %s with multiplier: %s", input, multiplier);
         
-        if (!isValidNumber(input)) {
+        double value;
+        try {
+            value = Double.parseDouble(input);
+        } catch (NumberFormatException e) {
+            LOG.warn("Invalid number: " + input);
             return "ERROR: Invalid input";
         }
-        
-        double value = Double.parseDouble(input);
-        double result = calculate(value, multiplier, "multiply");
-        String formatted = formatResult(result);
-        
+        return processed(input, value, multiplier, businessRule());
+    }
+    
+    /**
+     * Même traitement pour une valeur déjà numérique, avec la règle métier compilée
+     * (voir businessRule()) : ni analyse de chaîne ni recompilation par appel
+     */
+    public String processBusinessLogic(double value, double multiplier, PriceRule rule) {
+        return processed(String.valueOf(value), value, multiplier, rule);
+    }
+    
+    /**
+     * Règle métier de processBusinessLogic, compilée une fois puis reprise du cache
+     */
+    public PriceRule businessRule() {
+        return compileRule(BUSINESS_RULE);
+    }
+    
+    private String processed(String input, double value, double multiplier, PriceRule rule) {
+        String formatted = formatResult(rule.apply(value, multiplier));
         return "Processed[" + serviceId + "]: " + input + " * " + multiplier + " = " + formatted;
     }
     
+    /**
+     * Règle de prix compilée ("price * m - 5"...), analysée au premier usage puis reprise du cache
+     */
+    public PriceRule compileRule(String expression) {
+        return rules.get(expression, rule -> {
+            LOG.info("Compiling price rule: " + rule);
+            return PriceRule.compile(rule);
+        });
+    }
+    
+    /**
+     * Applique une règle de prix à tout un tableau de prix, sans allocation par prix ;
+     * result peut être prices lui-même
+     */
+    public void applyRule(String expression, double[] prices, double multiplier, double[] result) {
+        compileRule(expression).apply(prices, multiplier, result);
+    }
+    
     /**
      * Retourne l'ID unique du service
      */
@@ -111,9 +240,20 @@ public class PureGuiceService {
             if (num > max) max = num;
         }
         
-        double average = sum / numbers.length;
+        return getStats(numbers.length, sum, min, max);
+    }
+    
+    /**
+     * Même format à partir d'agrégats déjà calculés (par exemple par la base)
+     */
+    public String getStats(long count, double sum, double min, double max) {
+        if (count == 0) {
+            return "No data";
+        }
+        
+        double average = sum / count;
         
         return String.format("Stats[%s]: Count=%d, Sum=%.2f, Avg=%.2f, Min=%.2f, Max=%.2f", 
-                           serviceId, numbers.length, sum, average, min, max);
+                           serviceId, count, sum, average, min, max);
     }
 }
\ No newline at end of file
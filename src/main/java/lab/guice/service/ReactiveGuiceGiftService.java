@@ -0,0 +1,113 @@
+package lab.guice.service;
+
+import io.smallrye.mutiny.Uni;
+import lab.quarkus.entity.Gift;
+import lab.quarkus.repository.ReactiveGiftRepository;
+import lab.quarkus.service.ReactiveGiftService;
+import org.jboss.logging.Logger;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Pendant réactif de {@link GuiceGiftService} : les mêmes opérations sur ReactiveGiftService et
+ * ReactiveGiftRepository, qui retournent des Uni au lieu de bloquer le thread appelant.
+ * Note: Pas d'annotations Guice ici pour éviter les conflits avec Quarkus CDI
+ */
+public class ReactiveGuiceGiftService {
+    
+    private static final Logger LOG = Logger.getLogger(ReactiveGuiceGiftService.class);
+    
+    private final ReactiveGiftService reactiveGiftService;
+    private final ReactiveGiftRepository reactiveGiftRepository;
+    
+    public ReactiveGuiceGiftService(ReactiveGiftService reactiveGiftService, ReactiveGiftRepository reactiveGiftRepository) {
+        this.reactiveGiftService = reactiveGiftService;
+        this.reactiveGiftRepository = reactiveGiftRepository;
+        LOG.info("ReactiveGuiceGiftService initialized with Quarkus reactive components");
+    }
+    
+    /**
+     * Liste tous les gifts via le service réactif
+     */
+    public Uni<List<Gift>> listAllGifts() {
+        LOG.info("Listing all gifts via Quarkus reactive service");
+        return reactiveGiftService.findAll();
+    }
+    
+    /**
+     * Trouve un gift par ID via le service réactif
+     */
+    public Uni<Optional<Gift>> findGiftById(Long id) {
+        LOG.info("Finding gift by ID: " + id + " via Quarkus reactive service");
+        return reactiveGiftService.findById(id);
+    }
+    
+    /**
+     * Crée un nouveau gift via le service réactif
+     */
+    public Uni<Gift> createGift(String name, String description, double price, String category) {
+        LOG.info("Creating new gift: " + name + " via Quarkus reactive service");
+        return reactiveGiftService.create(new Gift(name, description, price, category));
+    }
+    
+    /**
+     * Crée plusieurs gifts en une seule transaction (un seul lot de l'insertion préparée)
+     */
+    public Uni<List<Gift>> createGifts(List<Gift> gifts) {
+        LOG.info("Creating " + gifts.size() + " gifts via Quarkus reactive service");
+        return reactiveGiftService.createAll(gifts);
+    }
+    
+    /**
+     * Met à jour un gift existant via le service réactif ; null si le gift n'existe pas
+     */
+    public Uni<Gift> updateGift(Long id, String name, String description, double price, String category) {
+        LOG.info("Updating gift ID: " + id + " via Quarkus reactive service");
+        return reactiveGiftService.update(id, new Gift(name, description, price, category));
+    }
+    
+    /**
+     * Supprime un gift par ID via le service réactif ; false si le gift n'existe pas
+     */
+    public Uni<Boolean> deleteGift(Long id) {
+        LOG.info("Deleting gift ID: " + id + " via Quarkus reactive service");
+        return reactiveGiftService.delete(id);
+    }
+    
+    /**
+     * Trouve des gifts par catégorie via le service réactif
+     */
+    public Uni<List<Gift>> findGiftsByCategory(String category) {
+        LOG.info("Finding gifts by category: " + category + " via Quarkus reactive service");
+        return reactiveGiftService.findByCategory(category);
+    }
+    
+    /**
+     * Trouve des gifts dans une gamme de prix via le service réactif
+     */
+    public Uni<List<Gift>> findGiftsByPriceRange(double minPrice, double maxPrice) {
+        LOG.info("Finding gifts by price range: " + minPrice + "-" + maxPrice + " via Quarkus reactive service");
+        return reactiveGiftService.findByPriceRange(minPrice, maxPrice);
+    }
+    
+    /**
+     * Retourne le nombre total de gifts via le repository réactif
+     */
+    public Uni<Long> getTotalGiftsCount() {
+        LOG.info("Getting total gifts count via Quarkus reactive repository");
+        return reactiveGiftRepository.count();
+    }
+    
+    /**
+     * Même résumé que {@link GuiceGiftService#getGiftSummary()}, à partir d'une seule requête d'agrégats
+     * sur le pool réactif
+     */
+    public Uni<String> getGiftSummary() {
+        return reactiveGiftRepository.priceStatistics().map(statistics -> {
+            String summary = GuiceGiftService.summary(statistics);
+            LOG.info(summary);
+            return summary;
+        });
+    }
+}
\ No newline at end of file
@@ -81,6 +81,30 @@ public class DualOrmMetricsService {
             .tag("system", "eclipselink")
             .description("EclipseLink cache size")
             .register(meterRegistry);
+        
+        // Hibernate query cache (GiftRepository finders) hit ratio
+        Gauge.builder("orm.query.cache.hit.ratio", this, metrics -> {
+                try {
+                    return cacheManager.getCacheStatistics().getHibernateQueryHitRatio();
+                } catch (Exception e) {
+                    return 0.0;
+                }
+            })
+            .tag("system", "hibernate")
+            .description("Hibernate query cache hit ratio")
+            .register(meterRegistry);
+        
+        // EclipseLink query-result cache (findByCity / findByCategory) hit ratio
+        Gauge.builder("orm.query.cache.hit.ratio", this, metrics -> {
+                try {
+                    return cacheManager.getCacheStatistics().getEclipseLinkQueryHitRatio();
+                } catch (Exception e) {
+                    return 0.0;
+                }
+            })
+            .tag("system", "eclipselink")
+            .description("EclipseLink query-result cache hit ratio")
+            .register(meterRegistry);
     }
     
     public void recordQuarkusOperation() {
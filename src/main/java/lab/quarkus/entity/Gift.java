@@ -4,16 +4,66 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 import jakarta.persistence.Column;
 import jakarta.persistence.Cacheable;
+import jakarta.persistence.NamedQueries;
+import jakarta.persistence.NamedQuery;
+import jakarta.persistence.QueryHint;
+import jakarta.persistence.Version;
 import io.quarkus.hibernate.orm.panache.PanacheEntity;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.jpa.HibernateHints;
 
 @Entity
 @Table(name = "gifts")
 @Cacheable
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NamedQueries({
+    @NamedQuery(name = Gift.FIND_BY_CATEGORY, query = "FROM Gift g WHERE g.category = :category", hints = {
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = Gift.QUERY_CACHE_REGION)}),
+    @NamedQuery(name = Gift.FIND_BY_PRICE_RANGE, query = "FROM Gift g WHERE g.price >= :minPrice AND g.price <= :maxPrice", hints = {
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = Gift.QUERY_CACHE_REGION)}),
+    @NamedQuery(name = Gift.FIND_BY_NAME_LIKE, query = "FROM Gift g WHERE g.name LIKE :name", hints = {
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = Gift.QUERY_CACHE_REGION)}),
+    @NamedQuery(name = Gift.SEARCH_LIKE, query = "FROM Gift g WHERE lower(g.name) LIKE :pattern OR lower(g.description) LIKE :pattern "
+        + "ORDER BY g.name, g.id"),
+    @NamedQuery(name = Gift.STREAM_ALL, query = "FROM Gift g ORDER BY g.id"),
+    @NamedQuery(name = Gift.STREAM_AFTER, query = "FROM Gift g WHERE g.id > :afterId ORDER BY g.id"),
+    @NamedQuery(name = Gift.ID_RANGE_BY_CATEGORY, query = "SELECT min(g.id), max(g.id) FROM Gift g WHERE g.category = :category"),
+    @NamedQuery(name = Gift.PRICES_BY_CATEGORY, query = "SELECT g.id, g.price FROM Gift g WHERE g.category = :category ORDER BY g.id"),
+    @NamedQuery(name = Gift.PRICE_INDEX, query = "SELECT g.id, g.price, g.version FROM Gift g ORDER BY g.price, g.id"),
+    @NamedQuery(name = Gift.PRICE_SNAPSHOT, query = "SELECT g.id, g.price, g.category, g.version FROM Gift g"),
+    @NamedQuery(name = Gift.PRICE_STATISTICS,
+        query = "SELECT count(g), sum(g.price), avg(g.price), min(g.price), max(g.price) FROM Gift g"),
+    @NamedQuery(name = Gift.PRICE_STATISTICS_BY_CATEGORY,
+        query = "SELECT g.category, count(g), sum(g.price), avg(g.price), min(g.price), max(g.price) FROM Gift g "
+            + "GROUP BY g.category ORDER BY g.category")
+})
 public class Gift extends PanacheEntity {
     
+    // Named queries: checked by Hibernate when the SessionFactory starts (hibernate.query.startup_check)
+    public static final String FIND_BY_CATEGORY = "Gift.findByCategory";
+    public static final String FIND_BY_PRICE_RANGE = "Gift.findByPriceRange";
+    public static final String FIND_BY_NAME_LIKE = "Gift.findByNameLike";
+    public static final String SEARCH_LIKE = "Gift.searchLike";
+    public static final String STREAM_ALL = "Gift.streamAll";
+    public static final String STREAM_AFTER = "Gift.streamAfter";
+    public static final String ID_RANGE_BY_CATEGORY = "Gift.idRangeByCategory";
+    public static final String PRICES_BY_CATEGORY = "Gift.pricesByCategory";
+    public static final String PRICE_INDEX = "Gift.priceIndex";
+    public static final String PRICE_SNAPSHOT = "Gift.priceSnapshot";
+    public static final String PRICE_STATISTICS = "Gift.priceStatistics";
+    public static final String PRICE_STATISTICS_BY_CATEGORY = "Gift.priceStatisticsByCategory";
+    
+    /**
+     * Query-cache region of the finders: result ids per parameter set, invalidated by any write
+     * to the gifts table (Hibernate's update timestamps), the gifts themselves coming from the entity region
+     */
+    public static final String QUERY_CACHE_REGION = "gift-queries";
+    
     @Column(nullable = false)
     public String name;
     
@@ -26,6 +76,16 @@ public class Gift extends PanacheEntity {
     @Column(nullable = false)
     public String category;
     
+    /**
+     * Bumped by every update, Hibernate's or native (repriceCategory, the reactive stack), so that
+     * the in-memory index and snapshot can tell a late write from a newer one. Rows inserted
+     * without it (import.sql, COPY imports) start at 0.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    public Long version;
+    
     public Gift() {}
     
     public Gift(String name, String description, Double price, String category) {
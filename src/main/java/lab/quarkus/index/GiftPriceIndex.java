@@ -0,0 +1,485 @@
+package lab.quarkus.index;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index over Gift.price answering range queries (price BETWEEN min AND max) with ids.
+ *
+ * Entries are (price, id) pairs kept sorted in parallel double[] / long[] arrays, so a range is two
+ * binary searches and a copy of the ids in between. Writes do not shift the main arrays: new
+ * prices go to a small sorted delta, removed ones are flagged in a bitset, and both are merged
+ * into the main arrays once the delta is full or too many entries are flagged. NaN prices are not
+ * indexed (no range contains them).
+ *
+ * Writes carry the version of the gift, as reported by concurrent commits in no particular order:
+ * a write of a version the index already has, or of an older one, is ignored, and a removal leaves a
+ * tombstone with the version of the deleted gift so that a late write cannot index it again.
+ * Tombstones survive reloads (one map entry per deleted gift).
+ */
+public class GiftPriceIndex {
+    
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    /**
+     * Delta entries, and removed main entries, tolerated before a merge
+     */
+    private static final int MERGE_THRESHOLD = 1024;
+    
+    private static final long[] NO_IDS = new long[0];
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // Main arrays, sorted by (price, id); removed entries have their bit set
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] removed = new long[INITIAL_CAPACITY >> 6];
+    private int size;
+    private int removedCount;
+    
+    // Delta, sorted by (price, id)
+    private double[] deltaPrices = new double[MERGE_THRESHOLD];
+    private long[] deltaIds = new long[MERGE_THRESHOLD];
+    private int deltaSize;
+    
+    /**
+     * Price of every indexed gift, to find its entry again on update or removal
+     */
+    private final LongDoubleMap priceById = new LongDoubleMap();
+    
+    /**
+     * Version of every gift written to the index, NaN prices included
+     */
+    private final LongLongMap versionById = new LongLongMap();
+    
+    /**
+     * Version of every removed gift
+     */
+    private final LongLongMap tombstones = new LongLongMap();
+    
+    private volatile boolean ready;
+    private boolean loading;
+    
+    /**
+     * True once a full load has completed; until then callers must fall back to the database
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return priceById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Starts a full (re)load: the index is emptied and reported as not ready until {@link #finishLoad()}.
+     * Writes received in the meantime are kept unless a loaded row is newer.
+     */
+    public void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            loading = true;
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Appends a row of the load, which must come in (price, id) order (ORDER BY price, id)
+     */
+    public void load(long id, double price, long version) {
+        lock.writeLock().lock();
+        try {
+            if (!isNewer(id, version)) {
+                return;
+            }
+            if (!Double.isNaN(price) && size > 0 && compare(price, id, prices[size - 1], ids[size - 1]) <= 0) {
+                throw new IllegalArgumentException("Gift " + id + " loaded out of (price, id) order");
+            }
+            // An older write received during the load sits in the delta
+            unindex(id);
+            versionById.put(id, version);
+            if (Double.isNaN(price)) {
+                return;
+            }
+            if (size == prices.length) {
+                grow(size + (size >> 1));
+            }
+            prices[size] = price;
+            ids[size++] = id;
+            priceById.put(id, price);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void finishLoad() {
+        lock.writeLock().lock();
+        try {
+            loading = false;
+            merge();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void abortLoad() {
+        lock.writeLock().lock();
+        try {
+            loading = false;
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Indexes the gift at its new price, unless the index already has this version of it or a later one
+     */
+    public void put(long id, double price, long version) {
+        lock.writeLock().lock();
+        try {
+            if (!isNewer(id, version)) {
+                return;
+            }
+            tombstones.remove(id);
+            versionById.put(id, version);
+            double previous = priceById.get(id);
+            if (Double.compare(previous, price) == 0) {
+                return;
+            }
+            unindex(id);
+            if (!Double.isNaN(price)) {
+                insertDelta(id, price);
+                priceById.put(id, price);
+            }
+            mergeIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Drops the gift deleted at this version, unless the index has a later version of it
+     */
+    public void remove(long id, long version) {
+        lock.writeLock().lock();
+        try {
+            if (version < Math.max(versionById.get(id), tombstones.get(id))) {
+                return;
+            }
+            tombstones.put(id, version);
+            versionById.remove(id);
+            unindex(id);
+            mergeIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Ids of the gifts with minPrice <= price <= maxPrice, by ascending price (then id)
+     */
+    public long[] range(double minPrice, double maxPrice) {
+        if (!(minPrice <= maxPrice)) {
+            return NO_IDS;
+        }
+        lock.readLock().lock();
+        try {
+            int mainFrom = lowerBound(prices, size, minPrice);
+            int mainTo = upperBound(prices, size, maxPrice);
+            int deltaFrom = lowerBound(deltaPrices, deltaSize, minPrice);
+            int deltaTo = upperBound(deltaPrices, deltaSize, maxPrice);
+            int capacity = (mainTo - mainFrom) + (deltaTo - deltaFrom);
+            if (capacity == 0) {
+                return NO_IDS;
+            }
+            long[] result = new long[capacity];
+            int found = 0;
+            int main = mainFrom;
+            int delta = deltaFrom;
+            while (main < mainTo || delta < deltaTo) {
+                if (main < mainTo && isRemoved(main)) {
+                    main++;
+                } else if (delta >= deltaTo
+                        || main < mainTo && compare(prices[main], ids[main], deltaPrices[delta], deltaIds[delta]) < 0) {
+                    result[found++] = ids[main++];
+                } else {
+                    result[found++] = deltaIds[delta++];
+                }
+            }
+            return found == capacity ? result : Arrays.copyOf(result, found);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private boolean isNewer(long id, long version) {
+        return version > Math.max(versionById.get(id), tombstones.get(id));
+    }
+    
+    private void unindex(long id) {
+        double price = priceById.remove(id);
+        if (Double.isNaN(price)) {
+            return;
+        }
+        int position = indexOf(deltaPrices, deltaIds, deltaSize, price, id);
+        if (position >= 0) {
+            System.arraycopy(deltaPrices, position + 1, deltaPrices, position, deltaSize - position - 1);
+            System.arraycopy(deltaIds, position + 1, deltaIds, position, deltaSize - position - 1);
+            deltaSize--;
+            return;
+        }
+        position = indexOf(prices, ids, size, price, id);
+        if (position >= 0 && !isRemoved(position)) {
+            removed[position >> 6] |= 1L << position;
+            removedCount++;
+        }
+    }
+    
+    private void insertDelta(long id, double price) {
+        if (deltaSize == deltaPrices.length) {
+            // Only while loading, when merges are deferred
+            deltaPrices = Arrays.copyOf(deltaPrices, deltaSize * 2);
+            deltaIds = Arrays.copyOf(deltaIds, deltaSize * 2);
+        }
+        int position = -indexOf(deltaPrices, deltaIds, deltaSize, price, id) - 1;
+        System.arraycopy(deltaPrices, position, deltaPrices, position + 1, deltaSize - position);
+        System.arraycopy(deltaIds, position, deltaIds, position + 1, deltaSize - position);
+        deltaPrices[position] = price;
+        deltaIds[position] = id;
+        deltaSize++;
+    }
+    
+    private void mergeIfNeeded() {
+        // During a load the main arrays receive the rows in order, so the merge waits for finishLoad()
+        if (!loading && (deltaSize >= MERGE_THRESHOLD || removedCount >= MERGE_THRESHOLD)) {
+            merge();
+        }
+    }
+    
+    /**
+     * Rewrites the main arrays with their live entries and the delta, in one pass
+     */
+    private void merge() {
+        int merged = size - removedCount + deltaSize;
+        double[] mergedPrices = new double[Math.max(INITIAL_CAPACITY, merged)];
+        long[] mergedIds = new long[mergedPrices.length];
+        int count = 0;
+        int main = 0;
+        int delta = 0;
+        while (main < size || delta < deltaSize) {
+            if (main < size && isRemoved(main)) {
+                main++;
+            } else if (delta >= deltaSize
+                    || main < size && compare(prices[main], ids[main], deltaPrices[delta], deltaIds[delta]) < 0) {
+                mergedPrices[count] = prices[main];
+                mergedIds[count++] = ids[main++];
+            } else {
+                mergedPrices[count] = deltaPrices[delta];
+                mergedIds[count++] = deltaIds[delta++];
+            }
+        }
+        prices = mergedPrices;
+        ids = mergedIds;
+        removed = new long[(mergedPrices.length + 63) >> 6];
+        size = count;
+        removedCount = 0;
+        deltaPrices = new double[MERGE_THRESHOLD];
+        deltaIds = new long[MERGE_THRESHOLD];
+        deltaSize = 0;
+    }
+    
+    private void grow(int capacity) {
+        prices = Arrays.copyOf(prices, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        removed = Arrays.copyOf(removed, (capacity + 63) >> 6);
+    }
+    
+    private void clear() {
+        prices = new double[INITIAL_CAPACITY];
+        ids = new long[INITIAL_CAPACITY];
+        removed = new long[INITIAL_CAPACITY >> 6];
+        size = 0;
+        removedCount = 0;
+        deltaPrices = new double[MERGE_THRESHOLD];
+        deltaIds = new long[MERGE_THRESHOLD];
+        deltaSize = 0;
+        priceById.clear();
+        versionById.clear();
+    }
+    
+    private boolean isRemoved(int position) {
+        return (removed[position >> 6] & (1L << position)) != 0;
+    }
+    
+    private static int compare(double price, long id, double otherPrice, long otherId) {
+        int byPrice = Double.compare(price, otherPrice);
+        return byPrice != 0 ? byPrice : Long.compare(id, otherId);
+    }
+    
+    /**
+     * Position of the (price, id) entry, or -(insertion point) - 1 if absent
+     */
+    private static int indexOf(double[] prices, long[] ids, int size, double price, long id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compare(prices[middle], ids[middle], price, id);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+    
+    /**
+     * First position whose price is >= minPrice
+     */
+    private static int lowerBound(double[] prices, int size, double minPrice) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (prices[middle] < minPrice) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * First position whose price is > maxPrice
+     */
+    private static int upperBound(double[] prices, int size, double maxPrice) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (prices[middle] <= maxPrice) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Open-addressing long -> double map with linear probing and backward-shift deletion.
+     * NaN is returned for missing keys.
+     */
+    static final class LongDoubleMap {
+        
+        private long[] keys;
+        private double[] values;
+        private boolean[] used;
+        private int size;
+        
+        LongDoubleMap() {
+            allocate(16);
+        }
+        
+        int size() {
+            return size;
+        }
+        
+        double get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key, mask); used[slot]; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return Double.NaN;
+        }
+        
+        void put(long key, double value) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                rehash(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int slot = hash(key, mask);
+            for (; used[slot]; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    values[slot] = value;
+                    return;
+                }
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            values[slot] = value;
+            size++;
+        }
+        
+        double remove(long key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key, mask); used[slot]; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    double value = values[slot];
+                    shiftBack(slot, mask);
+                    size--;
+                    return value;
+                }
+            }
+            return Double.NaN;
+        }
+        
+        void clear() {
+            allocate(16);
+            size = 0;
+        }
+        
+        private void shiftBack(int gap, int mask) {
+            for (int slot = (gap + 1) & mask; used[slot]; slot = (slot + 1) & mask) {
+                int home = hash(keys[slot], mask);
+                // The entry may fill the gap only if the gap lies between its home slot and its slot
+                if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                    keys[gap] = keys[slot];
+                    values[gap] = values[slot];
+                    gap = slot;
+                }
+            }
+            used[gap] = false;
+        }
+        
+        private void rehash(int capacity) {
+            long[] oldKeys = keys;
+            double[] oldValues = values;
+            boolean[] oldUsed = used;
+            allocate(capacity);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+        
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            values = new double[capacity];
+            used = new boolean[capacity];
+        }
+        
+        private static int hash(long key, int mask) {
+            long mixed = key * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32)) & mask;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+package lab.quarkus.index;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import lab.concurrent.StartupWarmup;
+import lab.quarkus.repository.GiftRepository;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Builds the gift price index in the background at startup, so the application starts
+ * without waiting for it; price range searches query the database until it is ready.
+ */
+@ApplicationScoped
+public class GiftPriceIndexWarmup {
+    
+    @Inject
+    GiftRepository giftRepository;
+    
+    @ConfigProperty(name = "gift.price-index.enabled", defaultValue = "true")
+    boolean enabled;
+    
+    void onStart(@Observes StartupEvent event) {
+        StartupWarmup.start("Gift price index", enabled, "price range searches query the database",
+            giftRepository::rebuildPriceIndex);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,431 @@
+package lab.quarkus.index;
+
+import lab.quarkus.repository.GiftPriceStatistics;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Columnar in-memory copy of the gifts table for price analytics: id, price and category code of
+ * every gift in parallel primitive arrays, category names being interned in a small dictionary.
+ *
+ * Statistics are one pass over the arrays, without boxing or collecting prices, and without a
+ * database round trip; the per-category ones are kept up to date by the writes. Rows are unordered: an update overwrites the row in place and a removal moves
+ * the last row into the hole, so writes are O(1). Readers share a read lock, writers take the write
+ * lock, so a statistic never sees half of a write.
+ *
+ * Every row keeps the version of the gift it was written from. Transactions report their commits
+ * concurrently, so a write older than the row (same or lower version) is ignored, whichever
+ * arrives last; a removal leaves a tombstone with the version of the deleted gift, so that a late
+ * write cannot bring it back. Tombstones survive reloads (one map entry per deleted gift).
+ */
+public class GiftPriceSnapshot {
+    
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private int[] categoryCodes = new int[INITIAL_CAPACITY];
+    private long[] versions = new long[INITIAL_CAPACITY];
+    private int size;
+    
+    /**
+     * Row of every gift, to find it again on update or removal
+     */
+    private final LongIntMap rowById = new LongIntMap();
+    
+    /**
+     * Version of every removed gift
+     */
+    private final LongLongMap tombstones = new LongLongMap();
+    
+    // Category dictionary: codes are indexes in categoryNames, never reused
+    private final Map<String, Integer> codeByCategory = new HashMap<>();
+    private String[] categoryNames = new String[16];
+    
+    // Count, sum, min and max of the prices of each category, by code, kept up to date by the writes
+    private long[] categoryCounts = new long[16];
+    private double[] categorySums = new double[16];
+    private double[] categoryMins = new double[16];
+    private double[] categoryMaxs = new double[16];
+    
+    /**
+     * Categories that lost their min or max gift, to be recomputed by the next statisticsByCategory()
+     */
+    private boolean[] staleCategories = new boolean[16];
+    private int staleCount;
+    
+    private volatile boolean ready;
+    
+    /**
+     * True once a full load has completed; until then callers must fall back to the database
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Starts a full (re)load: the snapshot is emptied and reported as not ready until {@link #finishLoad()}.
+     * Writes received in the meantime are kept unless a loaded row is newer.
+     */
+    public void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            clearRows();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Adds a row of the load, in any order
+     */
+    public void load(long id, double price, String category, long version) {
+        put(id, price, category, version);
+    }
+    
+    public void finishLoad() {
+        lock.writeLock().lock();
+        try {
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void abortLoad() {
+        lock.writeLock().lock();
+        try {
+            clearRows();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Writes the row of the gift, unless the snapshot already has this version of it or a later one
+     */
+    public void put(long id, double price, String category, long version) {
+        lock.writeLock().lock();
+        try {
+            int row = rowById.get(id);
+            if (version <= (row < 0 ? tombstones.get(id) : versions[row])) {
+                return;
+            }
+            if (row < 0) {
+                tombstones.remove(id);
+            }
+            upsert(id, price, category, version);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Removes the row of the gift deleted at this version, unless the snapshot has a later version of it
+     */
+    public void remove(long id, long version) {
+        lock.writeLock().lock();
+        try {
+            int row = rowById.get(id);
+            if (version < (row < 0 ? tombstones.get(id) : versions[row])) {
+                return;
+            }
+            tombstones.put(id, version);
+            if (row < 0) {
+                return;
+            }
+            rowById.remove(id);
+            unaccount(categoryCodes[row], prices[row]);
+            int last = --size;
+            if (row != last) {
+                ids[row] = ids[last];
+                prices[row] = prices[last];
+                categoryCodes[row] = categoryCodes[last];
+                versions[row] = versions[last];
+                rowById.put(ids[row], row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Count, sum, average, min and max of all the prices
+     */
+    public GiftPriceStatistics statistics() {
+        lock.readLock().lock();
+        try {
+            if (size == 0) {
+                return GiftPriceStatistics.EMPTY;
+            }
+            double sum = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < size; i++) {
+                double price = prices[i];
+                sum += price;
+                min = Math.min(min, price);
+                max = Math.max(max, price);
+            }
+            return new GiftPriceStatistics(size, sum, sum / size, min, max);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * The same statistics per category, by category name: a copy of the per-category figures, except
+     * for the categories that lost their min or max gift since the last call, recomputed first in one
+     * pass over the arrays under the write lock
+     */
+    public Map<String, GiftPriceStatistics> statisticsByCategory() {
+        lock.readLock().lock();
+        if (staleCount > 0) {
+            lock.readLock().unlock();
+            lock.writeLock().lock();
+            try {
+                recomputeStaleCategories();
+                // Downgrade, so that no write comes in before the copy
+                lock.readLock().lock();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        try {
+            Map<String, GiftPriceStatistics> statistics = new TreeMap<>();
+            for (int code = 0; code < codeByCategory.size(); code++) {
+                long count = categoryCounts[code];
+                if (count > 0) {
+                    double sum = categorySums[code];
+                    statistics.put(categoryNames[code],
+                        new GiftPriceStatistics(count, sum, sum / count, categoryMins[code], categoryMaxs[code]));
+                }
+            }
+            return statistics;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private void upsert(long id, double price, String category, long version) {
+        int code = code(category);
+        int row = rowById.get(id);
+        if (row < 0) {
+            if (size == ids.length) {
+                int capacity = size + (size >> 1);
+                ids = Arrays.copyOf(ids, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+                versions = Arrays.copyOf(versions, capacity);
+            }
+            row = size++;
+            ids[row] = id;
+            rowById.put(id, row);
+            account(code, price);
+        } else if (categoryCodes[row] != code || Double.compare(prices[row], price) != 0) {
+            unaccount(categoryCodes[row], prices[row]);
+            account(code, price);
+        }
+        prices[row] = price;
+        categoryCodes[row] = code;
+        versions[row] = version;
+    }
+    
+    private int code(String category) {
+        Integer code = codeByCategory.get(category);
+        if (code != null) {
+            return code;
+        }
+        int newCode = codeByCategory.size();
+        if (newCode == categoryNames.length) {
+            int capacity = newCode * 2;
+            categoryNames = Arrays.copyOf(categoryNames, capacity);
+            categoryCounts = Arrays.copyOf(categoryCounts, capacity);
+            categorySums = Arrays.copyOf(categorySums, capacity);
+            categoryMins = Arrays.copyOf(categoryMins, capacity);
+            categoryMaxs = Arrays.copyOf(categoryMaxs, capacity);
+            staleCategories = Arrays.copyOf(staleCategories, capacity);
+        }
+        categoryNames[newCode] = category;
+        categoryMins[newCode] = Double.POSITIVE_INFINITY;
+        categoryMaxs[newCode] = Double.NEGATIVE_INFINITY;
+        codeByCategory.put(category, newCode);
+        return newCode;
+    }
+    
+    private void account(int code, double price) {
+        categoryCounts[code]++;
+        categorySums[code] += price;
+        categoryMins[code] = Math.min(categoryMins[code], price);
+        categoryMaxs[code] = Math.max(categoryMaxs[code], price);
+    }
+    
+    private void unaccount(int code, double price) {
+        if (--categoryCounts[code] == 0) {
+            resetCategory(code);
+            return;
+        }
+        categorySums[code] -= price;
+        if (!staleCategories[code] && (price <= categoryMins[code] || price >= categoryMaxs[code])) {
+            staleCategories[code] = true;
+            staleCount++;
+        }
+    }
+    
+    /**
+     * Min and max of the stale categories, and their sum (which removals may have drifted), from the rows
+     */
+    private void recomputeStaleCategories() {
+        int categories = codeByCategory.size();
+        for (int code = 0; code < categories; code++) {
+            if (staleCategories[code]) {
+                categorySums[code] = 0;
+                categoryMins[code] = Double.POSITIVE_INFINITY;
+                categoryMaxs[code] = Double.NEGATIVE_INFINITY;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            int code = categoryCodes[i];
+            if (staleCategories[code]) {
+                double price = prices[i];
+                categorySums[code] += price;
+                categoryMins[code] = Math.min(categoryMins[code], price);
+                categoryMaxs[code] = Math.max(categoryMaxs[code], price);
+            }
+        }
+        Arrays.fill(staleCategories, 0, categories, false);
+        staleCount = 0;
+    }
+    
+    private void resetCategory(int code) {
+        categoryCounts[code] = 0;
+        categorySums[code] = 0;
+        categoryMins[code] = Double.POSITIVE_INFINITY;
+        categoryMaxs[code] = Double.NEGATIVE_INFINITY;
+        if (staleCategories[code]) {
+            staleCategories[code] = false;
+            staleCount--;
+        }
+    }
+    
+    private void clearRows() {
+        rowById.clear();
+        size = 0;
+        for (int code = 0; code < codeByCategory.size(); code++) {
+            resetCategory(code);
+        }
+    }
+    
+    /**
+     * Open-addressing map from id to a non-negative int, -1 meaning absent
+     */
+    static final class LongIntMap {
+        
+        private long[] keys;
+        private int[] values;
+        private boolean[] used;
+        private int size;
+        
+        LongIntMap() {
+            allocate(16);
+        }
+        
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key, mask); used[slot]; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return -1;
+        }
+        
+        void put(long key, int value) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                rehash(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int slot = hash(key, mask);
+            for (; used[slot]; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    values[slot] = value;
+                    return;
+                }
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            values[slot] = value;
+            size++;
+        }
+        
+        int remove(long key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key, mask); used[slot]; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    int value = values[slot];
+                    shiftBack(slot, mask);
+                    size--;
+                    return value;
+                }
+            }
+            return -1;
+        }
+        
+        void clear() {
+            allocate(16);
+            size = 0;
+        }
+        
+        private void shiftBack(int gap, int mask) {
+            for (int slot = (gap + 1) & mask; used[slot]; slot = (slot + 1) & mask) {
+                int home = hash(keys[slot], mask);
+                // The entry may fill the gap only if the gap lies between its home slot and its slot
+                if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                    keys[gap] = keys[slot];
+                    values[gap] = values[slot];
+                    gap = slot;
+                }
+            }
+            used[gap] = false;
+        }
+        
+        private void rehash(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            boolean[] oldUsed = used;
+            allocate(capacity);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+        
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            values = new int[capacity];
+            used = new boolean[capacity];
+        }
+        
+        private static int hash(long key, int mask) {
+            long mixed = key * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32)) & mask;
+        }
+    }
+}
\ No newline at end of file
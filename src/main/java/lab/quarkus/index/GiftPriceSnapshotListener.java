@@ -0,0 +1,80 @@
+package lab.quarkus.index;
+
+import lab.quarkus.entity.Gift;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Keeps a {@link GiftPriceSnapshot} current from Hibernate's post-commit events: only the gift
+ * inserts, updates and deletes of committed transactions reach it, in the thread that committed,
+ * with the version the flush gave the gift (so that concurrent commits reported out of order do not
+ * leave an older price behind).
+ * Writes that bypass the session (native SQL, stateless sessions, the reactive stack, COPY imports)
+ * must update the snapshot themselves.
+ */
+public class GiftPriceSnapshotListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+    
+    private final GiftPriceSnapshot snapshot;
+    
+    private GiftPriceSnapshotListener(GiftPriceSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+    
+    public static void register(SessionFactory sessionFactory, GiftPriceSnapshot snapshot) {
+        GiftPriceSnapshotListener listener = new GiftPriceSnapshotListener(snapshot);
+        EventListenerRegistry registry = sessionFactory.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+    }
+    
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return persister.getMappedClass() == Gift.class;
+    }
+    
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Gift gift) {
+            snapshot.put(gift.id, gift.price, gift.category, gift.version);
+        }
+    }
+    
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Gift gift) {
+            snapshot.put(gift.id, gift.price, gift.category, gift.version);
+        }
+    }
+    
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Gift gift) {
+            snapshot.remove(gift.id, gift.version);
+        }
+    }
+    
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+    
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+    
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+package lab.quarkus.index;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import lab.concurrent.StartupWarmup;
+import lab.quarkus.repository.GiftRepository;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Loads the gift price snapshot in the background at startup, so the application starts
+ * without waiting for it; price statistics use the SQL aggregates until it is ready.
+ */
+@ApplicationScoped
+public class GiftPriceSnapshotWarmup {
+    
+    @Inject
+    GiftRepository giftRepository;
+    
+    @ConfigProperty(name = "gift.price-snapshot.enabled", defaultValue = "true")
+    boolean enabled;
+    
+    void onStart(@Observes StartupEvent event) {
+        StartupWarmup.start("Gift price snapshot", enabled, "price statistics use SQL aggregates",
+            giftRepository::rebuildPriceSnapshot);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+package lab.quarkus.index;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import lab.concurrent.StartupWarmup;
+import lab.quarkus.repository.GiftRepository;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Sets up the pg_trgm search of gifts in the background at startup (building the trigram index
+ * can take a while on a large catalog); gift searches use LIKE until it is ready.
+ */
+@ApplicationScoped
+public class GiftSearchIndexWarmup {
+    
+    private static final Logger LOG = Logger.getLogger(GiftSearchIndexWarmup.class);
+    
+    @Inject
+    GiftRepository giftRepository;
+    
+    @ConfigProperty(name = "gift.search.trigram.enabled", defaultValue = "true")
+    boolean enabled;
+    
+    void onStart(@Observes StartupEvent event) {
+        StartupWarmup.start("Gift trigram search", enabled, "gift searches use LIKE", () -> {
+            if (!giftRepository.enableTrigramSearch()) {
+                LOG.info("Database without pg_trgm, gift searches use LIKE");
+            }
+        });
+    }
+}
\ No newline at end of file
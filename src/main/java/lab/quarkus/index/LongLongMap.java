@@ -0,0 +1,104 @@
+package lab.quarkus.index;
+
+/**
+ * Open-addressing map from id to a non-negative long (a gift version), -1 meaning absent.
+ * Linear probing and backward-shift deletion, like the maps of the index and the snapshot.
+ */
+final class LongLongMap {
+    
+    private long[] keys;
+    private long[] values;
+    private boolean[] used;
+    private int size;
+    
+    LongLongMap() {
+        allocate(16);
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    long get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key, mask); used[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return -1;
+    }
+    
+    void put(long key, long value) {
+        if ((size + 1) * 4 > keys.length * 3) {
+            rehash(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key, mask);
+        for (; used[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+    
+    long remove(long key) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key, mask); used[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                long value = values[slot];
+                shiftBack(slot, mask);
+                size--;
+                return value;
+            }
+        }
+        return -1;
+    }
+    
+    void clear() {
+        allocate(16);
+        size = 0;
+    }
+    
+    private void shiftBack(int gap, int mask) {
+        for (int slot = (gap + 1) & mask; used[slot]; slot = (slot + 1) & mask) {
+            int home = hash(keys[slot], mask);
+            // The entry may fill the gap only if the gap lies between its home slot and its slot
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        used[gap] = false;
+    }
+    
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+    
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+    }
+    
+    private static int hash(long key, int mask) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,29 @@
+package lab.quarkus.repository;
+
+/**
+ * Price aggregates of a set of gifts, computed by the database (see {@link GiftRepository#priceStatistics()}).
+ * Sum, average, min and max are 0 when there is no gift.
+ */
+public record GiftPriceStatistics(long count, double sum, double average, double min, double max) {
+    
+    public static final GiftPriceStatistics EMPTY = new GiftPriceStatistics(0, 0, 0, 0, 0);
+    
+    public boolean isEmpty() {
+        return count == 0;
+    }
+    
+    /**
+     * From a row of COUNT, SUM, AVG, MIN, MAX (the last four are null over no rows)
+     */
+    static GiftPriceStatistics of(Object[] row, int offset) {
+        long count = ((Number) row[offset]).longValue();
+        if (count == 0) {
+            return EMPTY;
+        }
+        return new GiftPriceStatistics(count,
+            ((Number) row[offset + 1]).doubleValue(),
+            ((Number) row[offset + 2]).doubleValue(),
+            ((Number) row[offset + 3]).doubleValue(),
+            ((Number) row[offset + 4]).doubleValue());
+    }
+}
\ No newline at end of file
@@ -1,22 +1,599 @@
 package lab.quarkus.repository;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.PersistenceException;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import jakarta.transaction.Transactional;
+import io.agroal.api.AgroalDataSource;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.panache.common.Parameters;
 import lab.quarkus.entity.Gift;
+import lab.quarkus.index.GiftPriceIndex;
+import lab.quarkus.index.GiftPriceSnapshot;
+import lab.quarkus.index.GiftPriceSnapshotListener;
+import lab.routing.ReadRouter;
+import org.hibernate.Cache;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.query.SelectionQuery;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @ApplicationScoped
 public class GiftRepository implements PanacheRepository<Gift> {
     
+    /**
+     * Gifts loaded per query when resolving index hits missing from the second-level cache
+     */
+    private static final int ID_BATCH_SIZE = 500;
+    
+    /**
+     * Rows fetched per round trip when building the price index
+     */
+    private static final int INDEX_FETCH_SIZE = 1000;
+    
+    /**
+     * Updates per JDBC batch in rewriteAll
+     */
+    private static final int REWRITE_BATCH_SIZE = 50;
+    
+    /**
+     * Text matched by search(), the expression of the GIN trigram index
+     */
+    private static final String SEARCH_TEXT = "(name || ' ' || description)";
+    
+    // Substring matches and close spellings (word similarity above pg_trgm.word_similarity_threshold),
+    // both served by the trigram index, best matches first
+    private static final String TRIGRAM_SEARCH = "SELECT * FROM gifts WHERE " + SEARCH_TEXT + " ILIKE ?2 "
+        + "OR ?1 <% " + SEARCH_TEXT + " ORDER BY word_similarity(?1, " + SEARCH_TEXT + ") DESC, id LIMIT ?3";
+    
+    @Inject
+    ReadRouter readRouter;
+    
+    @Inject
+    SessionFactory sessionFactory;
+    
+    @Inject
+    TransactionSynchronizationRegistry transactions;
+    
+    @Inject
+    AgroalDataSource dataSource;
+    
+    /**
+     * Serves findByPriceRange once built by rebuildPriceIndex(), kept current by GiftService's writes
+     */
+    private final GiftPriceIndex priceIndex = new GiftPriceIndex();
+    
+    /**
+     * Served once built by rebuildPriceSnapshot(), kept current by Hibernate's post-commit events
+     */
+    private final GiftPriceSnapshot priceSnapshot = new GiftPriceSnapshot();
+    private boolean priceSnapshotListening;
+    
+    /**
+     * Set by enableTrigramSearch() once pg_trgm and the search index are in place
+     */
+    private volatile boolean trigramSearch;
+    
+    /**
+     * Whether the database supports UPDATE ... RETURNING, set by the first repriceCategory()
+     */
+    private volatile Boolean updateReturning;
+    
     public List<Gift> findByCategory(String category) {
-        return find("category", category).list();
+        return listNamed(Gift.FIND_BY_CATEGORY, Parameters.with("category", category));
     }
     
+    /**
+     * Answered from the in-memory price index when it is built, with a query otherwise
+     */
     public List<Gift> findByPriceRange(Double minPrice, Double maxPrice) {
-        return find("price >= ?1 and price <= ?2", minPrice, maxPrice).list();
+        if (priceIndex.isReady() && minPrice != null && maxPrice != null) {
+            return findAllById(priceIndex.range(minPrice, maxPrice));
+        }
+        return listNamed(Gift.FIND_BY_PRICE_RANGE, Parameters.with("minPrice", minPrice).and("maxPrice", maxPrice));
     }
     
     public List<Gift> findByNameContaining(String name) {
-        return find("name like ?1", "%" + name + "%").list();
+        return listNamed(Gift.FIND_BY_NAME_LIKE, Parameters.with("name", "%" + name + "%"));
+    }
+    
+    /**
+     * Gifts whose name or description contains the text or, with pg_trgm, is spelled close to it:
+     * at most limit, best matches first. Until enableTrigramSearch() succeeds (and on H2), a
+     * case-insensitive LIKE on name and description ordered by name, which cannot use an index.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Gift> search(String text, int limit) {
+        String pattern = "%" + text.toLowerCase() + "%";
+        if (trigramSearch) {
+            return getEntityManager().createNativeQuery(TRIGRAM_SEARCH, Gift.class)
+                .setParameter(1, text)
+                .setParameter(2, pattern)
+                .setParameter(3, limit)
+                .getResultList();
+        }
+        return getEntityManager().createNamedQuery(Gift.SEARCH_LIKE, Gift.class)
+            .setParameter("pattern", pattern)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+    
+    /**
+     * Switches search() to pg_trgm: creates the extension and the GIN trigram index over name and
+     * description when missing, the index concurrently so that writes go on while it builds. Must be
+     * called outside a transaction. Returns false on other databases, search() then keeps using LIKE.
+     */
+    public boolean enableTrigramSearch() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            if (!"PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())) {
+                return false;
+            }
+            statement.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            statement.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS gifts_search_trgm ON gifts USING gin ("
+                + SEARCH_TEXT + " gin_trgm_ops)");
+        } catch (SQLException e) {
+            throw new PersistenceException("Could not set up the trigram search of gifts", e);
+        }
+        trigramSearch = true;
+        return true;
+    }
+    
+    public boolean isTrigramSearchEnabled() {
+        return trigramSearch;
+    }
+    
+    /**
+     * Count, sum, average, min and max of the gift prices, in one aggregate query
+     */
+    public GiftPriceStatistics priceStatistics() {
+        Object[] row = getEntityManager().createNamedQuery(Gift.PRICE_STATISTICS, Object[].class).getSingleResult();
+        return GiftPriceStatistics.of(row, 0);
+    }
+    
+    /**
+     * The same aggregates per category, by category name
+     */
+    public Map<String, GiftPriceStatistics> priceStatisticsByCategory() {
+        Map<String, GiftPriceStatistics> statistics = new LinkedHashMap<>();
+        for (Object[] row : getEntityManager().createNamedQuery(Gift.PRICE_STATISTICS_BY_CATEGORY, Object[].class).getResultList()) {
+            statistics.put((String) row[0], GiftPriceStatistics.of(row, 1));
+        }
+        return statistics;
+    }
+    
+    /**
+     * (Re)builds the price index from the database. findByPriceRange queries the database until
+     * the build completes; writes reported during the build are kept.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void rebuildPriceIndex() {
+        priceIndex.beginLoad();
+        boolean loaded = false;
+        try (ScrollableResults<Object[]> rows = getEntityManager().unwrap(Session.class)
+                .createNamedSelectionQuery(Gift.PRICE_INDEX, Object[].class)
+                .setReadOnly(true)
+                .setFetchSize(INDEX_FETCH_SIZE)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (rows.next()) {
+                Object[] row = rows.get();
+                priceIndex.load((Long) row[0], (Double) row[1], (Long) row[2]);
+            }
+            loaded = true;
+        } finally {
+            if (loaded) {
+                priceIndex.finishLoad();
+            } else {
+                priceIndex.abortLoad();
+            }
+        }
+    }
+    
+    /**
+     * (Re)builds the columnar price snapshot from the database, after making sure that Hibernate's
+     * post-commit events update it; writes committed during the build are kept.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void rebuildPriceSnapshot() {
+        listenForPriceSnapshot();
+        priceSnapshot.beginLoad();
+        boolean loaded = false;
+        try (ScrollableResults<Object[]> rows = getEntityManager().unwrap(Session.class)
+                .createNamedSelectionQuery(Gift.PRICE_SNAPSHOT, Object[].class)
+                .setReadOnly(true)
+                .setFetchSize(INDEX_FETCH_SIZE)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (rows.next()) {
+                Object[] row = rows.get();
+                priceSnapshot.load((Long) row[0], (Double) row[1], (String) row[2], (Long) row[3]);
+            }
+            loaded = true;
+        } finally {
+            if (loaded) {
+                priceSnapshot.finishLoad();
+            } else {
+                priceSnapshot.abortLoad();
+            }
+        }
+    }
+    
+    private synchronized void listenForPriceSnapshot() {
+        if (!priceSnapshotListening) {
+            GiftPriceSnapshotListener.register(sessionFactory, priceSnapshot);
+            priceSnapshotListening = true;
+        }
+    }
+    
+    /**
+     * Price statistics over the in-memory copy of the table, to be used once isReady()
+     */
+    public GiftPriceSnapshot priceSnapshot() {
+        return priceSnapshot;
+    }
+    
+    /**
+     * For the writes made without Hibernate (reactive stack), once committed
+     */
+    public void snapshotPrices(Collection<Gift> gifts) {
+        for (Gift gift : gifts) {
+            priceSnapshot.put(gift.id, gift.price, gift.category, gift.version);
+        }
+    }
+    
+    /**
+     * For the deletes made without Hibernate (reactive stack), once committed
+     */
+    public void unsnapshotPrice(long id, long version) {
+        priceSnapshot.remove(id, version);
+    }
+    
+    public boolean isPriceIndexReady() {
+        return priceIndex.isReady();
+    }
+    
+    public int priceIndexSize() {
+        return priceIndex.size();
+    }
+    
+    /**
+     * Puts the prices of the gifts in the index once the current transaction commits. They are read
+     * then, when the flush has given the gifts their version.
+     */
+    public void indexPrices(Collection<Gift> gifts) {
+        afterCommit(() -> {
+            for (Gift gift : gifts) {
+                priceIndex.put(gift.id, gift.price, gift.version);
+            }
+        });
+    }
+    
+    /**
+     * Drops the gift, deleted at this version, from the index once the current transaction commits
+     */
+    public void unindexPrice(long id, long version) {
+        afterCommit(() -> priceIndex.remove(id, version));
+    }
+    
+    private void afterCommit(Runnable indexWrite) {
+        if (transactions.getTransactionKey() == null) {
+            indexWrite.run();
+            return;
+        }
+        transactions.registerInterposedSynchronization(new Synchronization() {
+            
+            @Override
+            public void beforeCompletion() {
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    indexWrite.run();
+                }
+            }
+        });
+    }
+    
+    /**
+     * Resolves index hits through the second-level cache, the misses being loaded in batches.
+     * Gifts deleted in the meantime are skipped.
+     */
+    private List<Gift> findAllById(long[] ids) {
+        List<Long> boxedIds = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            boxedIds.add(id);
+        }
+        List<Gift> gifts = getEntityManager().unwrap(Session.class).byMultipleIds(Gift.class)
+            .withBatchSize(ID_BATCH_SIZE)
+            .multiLoad(boxedIds);
+        gifts.removeIf(Objects::isNull);
+        return gifts;
+    }
+    
+    /**
+     * Runs a named finder on the replica when the read router allows it, on the primary otherwise
+     */
+    private List<Gift> listNamed(String namedQuery, Parameters parameters) {
+        if (readRouter.useReplica()) {
+            return listOnReplica(namedQuery, parameters);
+        }
+        return find("#" + namedQuery, parameters).list();
+    }
+    
+    /**
+     * Short-lived session on a replica connection; the gifts come back detached. The session only
+     * reads the second-level cache, so that a lagging replica cannot put older versions in it.
+     */
+    private List<Gift> listOnReplica(String namedQuery, Parameters parameters) {
+        try (Connection connection = readRouter.replica().getConnection();
+             Session session = sessionFactory.withOptions().connection(connection).openSession()) {
+            session.setDefaultReadOnly(true);
+            session.setCacheMode(CacheMode.GET);
+            SelectionQuery<Gift> query = session.createNamedSelectionQuery(namedQuery, Gift.class);
+            parameters.map().forEach(query::setParameter);
+            return query.getResultList();
+        } catch (SQLException e) {
+            throw new PersistenceException("Could not read gifts from the replica", e);
+        }
+    }
+    
+    /**
+     * Streams every gift in id order through a forward-only cursor. Gifts are loaded read-only and
+     * detached once consumed, so the persistence context does not grow. Needs an active transaction
+     * (PostgreSQL only honours the fetch size outside auto-commit); the stream must be closed.
+     */
+    public Stream<Gift> streamAllDetached(int fetchSize) {
+        Session session = getEntityManager().unwrap(Session.class);
+        ScrollableResults<Gift> results = session.createNamedSelectionQuery(Gift.STREAM_ALL, Gift.class)
+            .setReadOnly(true)
+            .setFetchSize(fetchSize)
+            .setCacheMode(CacheMode.IGNORE)
+            .scroll(ScrollMode.FORWARD_ONLY);
+        Spliterator<Gift> spliterator = new Spliterators.AbstractSpliterator<Gift>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            
+            @Override
+            public boolean tryAdvance(Consumer<? super Gift> action) {
+                if (!results.next()) {
+                    return false;
+                }
+                Gift gift = results.get();
+                action.accept(gift);
+                session.detach(gift);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(results::close);
+    }
+    
+    /**
+     * Calls the action on every gift in id order, through a stateless session: nothing is kept in a
+     * persistence context or put in the second-level cache, so memory stays flat over millions of
+     * gifts. Gifts are read chunkSize at a time, each chunk in its own transaction.
+     * Returns the number of gifts scanned.
+     */
+    public long scanAll(int chunkSize, Consumer<Gift> action) {
+        long scanned = 0;
+        for (long afterId = Long.MIN_VALUE; ; ) {
+            long from = afterId;
+            Chunk chunk = QuarkusTransaction.requiringNew().call(() -> rewriteChunk(from, chunkSize, gift -> {
+                action.accept(gift);
+                return false;
+            }));
+            scanned += chunk.scanned();
+            if (chunk.scanned() < chunkSize) {
+                return scanned;
+            }
+            afterId = chunk.lastId();
+        }
+    }
+    
+    /**
+     * Passes every gift in id order to rewrite, which changes it in place and returns true when it
+     * has to be saved. Same stateless chunks as scanAll, the updates of a chunk going out as JDBC
+     * batches before it commits; once it has, the changed gifts are evicted from the second-level
+     * cache and re-indexed. A chunk that fails is rolled back, the ones before it stay committed.
+     * Returns the number of gifts updated.
+     */
+    public long rewriteAll(int chunkSize, Predicate<Gift> rewrite) {
+        long changed = 0;
+        for (long afterId = Long.MIN_VALUE; ; ) {
+            long from = afterId;
+            Chunk chunk = QuarkusTransaction.requiringNew().call(() -> rewriteChunk(from, chunkSize, rewrite));
+            changed += chunk.changed();
+            if (chunk.scanned() < chunkSize) {
+                return changed;
+            }
+            afterId = chunk.lastId();
+        }
+    }
+    
+    private Chunk rewriteChunk(long afterId, int chunkSize, Predicate<Gift> rewrite) {
+        long[] ids = new long[chunkSize];
+        double[] prices = new double[chunkSize];
+        long[] versions = new long[chunkSize];
+        String[] categories = new String[chunkSize];
+        int scanned = 0;
+        int changed = 0;
+        long lastId = afterId;
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(REWRITE_BATCH_SIZE);
+            try (ScrollableResults<Gift> gifts = session.createNamedSelectionQuery(Gift.STREAM_AFTER, Gift.class)
+                    .setParameter("afterId", afterId)
+                    .setMaxResults(chunkSize)
+                    .setFetchSize(chunkSize)
+                    .setCacheMode(CacheMode.IGNORE)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                while (gifts.next()) {
+                    Gift gift = gifts.get();
+                    scanned++;
+                    lastId = gift.id;
+                    if (rewrite.test(gift)) {
+                        // Sets the incremented version on the gift
+                        session.update(gift);
+                        ids[changed] = gift.id;
+                        prices[changed] = gift.price;
+                        versions[changed] = gift.version;
+                        categories[changed++] = gift.category;
+                    }
+                }
+            }
+        }
+        if (changed > 0) {
+            repricedAfterCommit(ids, prices, versions, categories, changed);
+        }
+        return new Chunk(scanned, lastId, changed);
+    }
+    
+    /**
+     * Prices of the gifts of the category in id order, read as (id, price) rows without loading the entities
+     */
+    public double[] pricesByCategory(String category) {
+        List<Object[]> rows = getEntityManager().createNamedQuery(Gift.PRICES_BY_CATEGORY, Object[].class)
+            .setParameter("category", category)
+            .getResultList();
+        double[] prices = new double[rows.size()];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = (Double) rows.get(i)[1];
+        }
+        return prices;
+    }
+    
+    /**
+     * Lowest and highest id of the gifts of the category, null when it has none
+     */
+    public long[] idRange(String category) {
+        Object[] row = getEntityManager().createNamedQuery(Gift.ID_RANGE_BY_CATEGORY, Object[].class)
+            .setParameter("category", category)
+            .getSingleResult();
+        return row[0] == null ? null : new long[] {(Long) row[0], (Long) row[1]};
+    }
+    
+    /**
+     * Multiplies the price of the gifts of the category with an id in [fromId, toId], in one UPDATE.
+     * The statement bypasses the session, so that Hibernate does not clear the whole Gift region as it
+     * does after a bulk update: the UPDATE returns the new prices, and once the transaction commits
+     * only those gifts are evicted from the second-level cache and re-indexed. Returns their count.
+     * UPDATE ... RETURNING is PostgreSQL's; elsewhere the UPDATE is followed by a SELECT of the id
+     * range, and every gift of the range is evicted and re-indexed, changed or not. The UPDATE bumps
+     * the version of the gifts it changes, as Hibernate would.
+     */
+    public int repriceCategory(String category, double multiplier, long fromId, long toId) {
+        Session session = getEntityManager().unwrap(Session.class);
+        if (updateReturning == null) {
+            updateReturning = session.doReturningWork(connection ->
+                "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()));
+        }
+        List<Object[]> rows = new ArrayList<>();
+        int changed;
+        if (updateReturning) {
+            @SuppressWarnings("unchecked")
+            List<Object[]> returned = getEntityManager().createNativeQuery(
+                    "UPDATE gifts SET price = price * ?1, version = version + 1 "
+                        + "WHERE category = ?2 AND id BETWEEN ?3 AND ?4 AND price * ?1 <> price RETURNING id, price, version",
+                    Object[].class)
+                .setParameter(1, multiplier)
+                .setParameter(2, category)
+                .setParameter(3, fromId)
+                .setParameter(4, toId)
+                .getResultList();
+            rows.addAll(returned);
+            changed = rows.size();
+        } else {
+            changed = session.doReturningWork(connection -> repriceThenSelect(connection, category, multiplier, fromId, toId, rows));
+        }
+        long[] ids = new long[rows.size()];
+        double[] prices = new double[rows.size()];
+        long[] versions = new long[rows.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = ((Number) rows.get(i)[0]).longValue();
+            prices[i] = ((Number) rows.get(i)[1]).doubleValue();
+            versions[i] = ((Number) rows.get(i)[2]).longValue();
+        }
+        if (changed > 0) {
+            String[] categories = new String[ids.length];
+            Arrays.fill(categories, category);
+            repricedAfterCommit(ids, prices, versions, categories, ids.length);
+        }
+        return changed;
+    }
+    
+    /**
+     * repriceCategory without RETURNING, in plain JDBC so that Hibernate does not see a bulk update:
+     * adds the id, price and version of every gift of the range to rows, returns the number of gifts changed
+     */
+    static int repriceThenSelect(Connection connection, String category, double multiplier, long fromId, long toId,
+                                 List<Object[]> rows) throws SQLException {
+        int changed;
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE gifts SET price = price * ?, version = version + 1 WHERE category = ? AND id BETWEEN ? AND ? "
+                    + "AND price * ? <> price")) {
+            update.setDouble(1, multiplier);
+            update.setString(2, category);
+            update.setLong(3, fromId);
+            update.setLong(4, toId);
+            update.setDouble(5, multiplier);
+            changed = update.executeUpdate();
+        }
+        if (changed == 0) {
+            return 0;
+        }
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id, price, version FROM gifts WHERE category = ? AND id BETWEEN ? AND ?")) {
+            select.setString(1, category);
+            select.setLong(2, fromId);
+            select.setLong(3, toId);
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new Object[] {rs.getLong(1), rs.getDouble(2), rs.getLong(3)});
+                }
+            }
+        }
+        return changed;
+    }
+    
+    /**
+     * Once the transaction commits, evicts the first count gifts of ids from the second-level cache,
+     * puts their new prices and versions in the index and the snapshot (these writes raise no
+     * Hibernate event), and drops the finder results, which may hold their old prices
+     */
+    private void repricedAfterCommit(long[] ids, double[] prices, long[] versions, String[] categories, int count) {
+        afterCommit(() -> {
+            Cache cache = sessionFactory.getCache();
+            for (int i = 0; i < count; i++) {
+                cache.evict(Gift.class, ids[i]);
+                priceIndex.put(ids[i], prices[i], versions[i]);
+                priceSnapshot.put(ids[i], prices[i], categories[i], versions[i]);
+            }
+            cache.evictQueryRegion(Gift.QUERY_CACHE_REGION);
+        });
+    }
+    
+    private record Chunk(int scanned, long lastId, int changed) {
     }
 }
\ No newline at end of file
@@ -0,0 +1,167 @@
+package lab.quarkus.repository;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.SqlClient;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lab.quarkus.entity.Gift;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link GiftRepository} on the Vert.x PostgreSQL client: the queries
+ * run on the event loop and hold a connection, not a thread, while in flight. Rows are mapped to
+ * detached {@link Gift} instances (same table and columns as the Hibernate mapping); the caches of
+ * the blocking stack are kept current by ReactiveGiftService.
+ */
+@ApplicationScoped
+public class ReactiveGiftRepository {
+    
+    private static final String COLUMNS = "id, name, description, price, category, version";
+    
+    // New ids come from Hibernate's sequence: each nextval is the upper bound of a block of the pooled
+    // optimizer that Hibernate itself never hands out, so both stacks can insert side by side.
+    // Versions start at 0 and are bumped by every update, as Hibernate does.
+    private static final String INSERT = "INSERT INTO gifts (" + COLUMNS + ") "
+        + "VALUES (nextval('gifts_seq'), $1, $2, $3, $4, 0) RETURNING id, version";
+    
+    @Inject
+    Pool client;
+    
+    public Uni<List<Gift>> listAll() {
+        return list(client, "SELECT " + COLUMNS + " FROM gifts", Tuple.tuple());
+    }
+    
+    public Uni<Gift> findById(Long id) {
+        return client.preparedQuery("SELECT " + COLUMNS + " FROM gifts WHERE id = $1")
+            .execute(Tuple.of(id))
+            .map(ReactiveGiftRepository::first);
+    }
+    
+    public Uni<List<Gift>> findByCategory(String category) {
+        return list(client, "SELECT " + COLUMNS + " FROM gifts WHERE category = $1", Tuple.of(category));
+    }
+    
+    public Uni<List<Gift>> findByPriceRange(Double minPrice, Double maxPrice) {
+        return list(client, "SELECT " + COLUMNS + " FROM gifts WHERE price >= $1 AND price <= $2", Tuple.of(minPrice, maxPrice));
+    }
+    
+    public Uni<List<Gift>> findByNameContaining(String name) {
+        return list(client, "SELECT " + COLUMNS + " FROM gifts WHERE name LIKE $1", Tuple.of("%" + name + "%"));
+    }
+    
+    public Uni<Long> count() {
+        return client.query("SELECT count(*) FROM gifts").execute()
+            .map(rows -> rows.iterator().next().getLong(0));
+    }
+    
+    /**
+     * Count, sum, average, min and max of the prices, in one aggregate query (see GiftRepository#priceStatistics())
+     */
+    public Uni<GiftPriceStatistics> priceStatistics() {
+        return client.query("SELECT count(*), sum(price), avg(price), min(price), max(price) FROM gifts").execute()
+            .map(rows -> {
+                Row row = rows.iterator().next();
+                Object[] values = new Object[row.size()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = row.getValue(i);
+                }
+                return GiftPriceStatistics.of(values, 0);
+            });
+    }
+    
+    /**
+     * Every gift in id order, read through a cursor of fetchSize rows in a read-only transaction:
+     * the rows are requested as the subscriber consumes them, so memory does not grow with the table
+     */
+    public Multi<Gift> streamAll(int fetchSize) {
+        return client.getConnection().toMulti().flatMap(connection -> connection.begin().toMulti()
+            .flatMap(transaction -> connection.prepare("SELECT " + COLUMNS + " FROM gifts ORDER BY id").toMulti()
+                .flatMap(statement -> statement.createStream(fetchSize).toMulti())
+                .map(ReactiveGiftRepository::toGift)
+                .onCompletion().call(transaction::commit))
+            .onTermination().call(connection::close));
+    }
+    
+    /**
+     * Inserts the gift and sets its id and version
+     */
+    public Uni<Gift> persist(SqlClient sqlClient, Gift gift) {
+        return sqlClient.preparedQuery(INSERT)
+            .execute(Tuple.of(gift.name, gift.description, gift.price, gift.category))
+            .map(rows -> {
+                Row row = rows.iterator().next();
+                gift.id = row.getLong("id");
+                gift.version = row.getLong("version");
+                return gift;
+            });
+    }
+    
+    /**
+     * Inserts the gifts as one batch of the prepared insert and sets their ids and versions
+     */
+    public Uni<List<Gift>> persistAll(SqlClient sqlClient, List<Gift> gifts) {
+        List<Tuple> batch = new ArrayList<>(gifts.size());
+        for (Gift gift : gifts) {
+            batch.add(Tuple.of(gift.name, gift.description, gift.price, gift.category));
+        }
+        return sqlClient.preparedQuery(INSERT).executeBatch(batch)
+            .map(rows -> {
+                // One row set per tuple, in batch order
+                RowSet<Row> result = rows;
+                for (Gift gift : gifts) {
+                    Row row = result.iterator().next();
+                    gift.id = row.getLong("id");
+                    gift.version = row.getLong("version");
+                    result = result.next();
+                }
+                return gifts;
+            });
+    }
+    
+    /**
+     * Overwrites the fields of the gift, null when it does not exist
+     */
+    public Uni<Gift> update(SqlClient sqlClient, Long id, Gift gift) {
+        return sqlClient.preparedQuery("UPDATE gifts SET name = $1, description = $2, price = $3, category = $4, "
+                + "version = version + 1 WHERE id = $5 RETURNING " + COLUMNS)
+            .execute(Tuple.of(gift.name, gift.description, gift.price, gift.category, id))
+            .map(ReactiveGiftRepository::first);
+    }
+    
+    /**
+     * Deletes the gift and returns the version it had, null when it does not exist
+     */
+    public Uni<Long> deleteById(SqlClient sqlClient, Long id) {
+        return sqlClient.preparedQuery("DELETE FROM gifts WHERE id = $1 RETURNING version")
+            .execute(Tuple.of(id))
+            .map(rows -> rows.size() == 0 ? null : rows.iterator().next().getLong("version"));
+    }
+    
+    private static Uni<List<Gift>> list(SqlClient sqlClient, String sql, Tuple parameters) {
+        return sqlClient.preparedQuery(sql).execute(parameters)
+            .map(rows -> {
+                List<Gift> gifts = new ArrayList<>(rows.size());
+                for (Row row : rows) {
+                    gifts.add(toGift(row));
+                }
+                return gifts;
+            });
+    }
+    
+    private static Gift first(RowSet<Row> rows) {
+        return rows.size() == 0 ? null : toGift(rows.iterator().next());
+    }
+    
+    private static Gift toGift(Row row) {
+        Gift gift = new Gift(row.getString("name"), row.getString("description"), row.getDouble("price"), row.getString("category"));
+        gift.id = row.getLong("id");
+        gift.version = row.getLong("version");
+        return gift;
+    }
+}
\ No newline at end of file
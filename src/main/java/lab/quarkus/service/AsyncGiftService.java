@@ -0,0 +1,120 @@
+package lab.quarkus.service;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ManagedContext;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lab.concurrent.BlockingCallExecutor;
+import lab.quarkus.entity.Gift;
+import lab.routing.ReadRouter;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking variants of the {@link GiftService} finders, for callers that fan out several
+ * lookups. At most async.gift.max-concurrency finders run at once, so that they cannot exhaust the
+ * shared connection pool. Each finder also comes as a lazy Mutiny Uni, submitted on subscription.
+ */
+@ApplicationScoped
+public class AsyncGiftService {
+    
+    @Inject
+    GiftService giftService;
+    
+    @Inject
+    ReadRouter readRouter;
+    
+    @ConfigProperty(name = "async.gift.max-concurrency", defaultValue = "10")
+    int maxConcurrency;
+    
+    private BlockingCallExecutor executor;
+    
+    @PostConstruct
+    void init() {
+        executor = new BlockingCallExecutor("gift", maxConcurrency);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.close();
+    }
+    
+    public CompletableFuture<List<Gift>> findAll() {
+        return supply(giftService::findAll);
+    }
+    
+    public CompletableFuture<Optional<Gift>> findById(Long id) {
+        return supply(() -> giftService.findById(id));
+    }
+    
+    public CompletableFuture<List<Gift>> findByCategory(String category) {
+        return supply(() -> giftService.findByCategory(category));
+    }
+    
+    public CompletableFuture<List<Gift>> findByPriceRange(Double minPrice, Double maxPrice) {
+        return supply(() -> giftService.findByPriceRange(minPrice, maxPrice));
+    }
+    
+    public CompletableFuture<List<Gift>> findByNameContaining(String name) {
+        return supply(() -> giftService.findByNameContaining(name));
+    }
+    
+    public Uni<List<Gift>> findAllUni() {
+        return uni(giftService::findAll);
+    }
+    
+    public Uni<Optional<Gift>> findByIdUni(Long id) {
+        return uni(() -> giftService.findById(id));
+    }
+    
+    public Uni<List<Gift>> findByCategoryUni(String category) {
+        return uni(() -> giftService.findByCategory(category));
+    }
+    
+    public Uni<List<Gift>> findByPriceRangeUni(Double minPrice, Double maxPrice) {
+        return uni(() -> giftService.findByPriceRange(minPrice, maxPrice));
+    }
+    
+    public Uni<List<Gift>> findByNameContainingUni(String name) {
+        return uni(() -> giftService.findByNameContaining(name));
+    }
+    
+    public int activeCalls() {
+        return executor.activeCalls();
+    }
+    
+    private <T> CompletableFuture<T> supply(Supplier<T> finder) {
+        return executor.supply(call(finder));
+    }
+    
+    /**
+     * The caller's last write is captured when the Uni is created, not when it is subscribed to
+     */
+    private <T> Uni<T> uni(Supplier<T> finder) {
+        Supplier<T> call = call(finder);
+        return Uni.createFrom().completionStage(() -> executor.supply(call));
+    }
+    
+    /**
+     * Each call gets its own request context, hence its own Hibernate session,
+     * closed (and the gifts detached) when the call returns. The caller's last write goes with the
+     * call, so that a read right after it is not served by a replica that has not replayed it.
+     */
+    private <T> Supplier<T> call(Supplier<T> finder) {
+        return readRouter.inheritWrites(() -> {
+            ManagedContext requestContext = Arc.container().requestContext();
+            requestContext.activate();
+            try {
+                return finder.get();
+            } finally {
+                requestContext.terminate();
+            }
+        });
+    }
+}
\ No newline at end of file
@@ -3,8 +3,12 @@ package lab.quarkus.service;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import lab.quarkus.entity.Gift;
 import lab.quarkus.repository.GiftRepository;
+import lab.routing.ReadRouter;
+import lab.routing.ReplicaRead;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,12 +18,45 @@ public class GiftService {
     @Inject
     GiftRepository giftRepository;
     
+    @Inject
+    ReadRouter readRouter;
+    
+    @ConfigProperty(name = "gift.bulk.flush-size", defaultValue = "500")
+    int bulkFlushSize;
+    
+    @ConfigProperty(name = "gift.reprice.chunk-size", defaultValue = "10000")
+    long repriceChunkSize;
+    
     @Transactional
     public Gift create(Gift gift) {
         giftRepository.persist(gift);
+        giftRepository.indexPrices(List.of(gift));
+        readRouter.writeInTransaction();
         return gift;
     }
     
+    /**
+     * Persists the gifts in one transaction. The inserts go out as JDBC batches, and the session is
+     * flushed and cleared every gift.bulk.flush-size gifts so that it does not grow with the list;
+     * the returned gifts carry their ids but are detached. A flush size of 0 or less flushes once,
+     * at commit, and the returned gifts stay managed.
+     */
+    @Transactional
+    public List<Gift> createAll(List<Gift> gifts) {
+        for (int i = 0; i < gifts.size(); i++) {
+            giftRepository.persist(gifts.get(i));
+            if (bulkFlushSize > 0 && (i + 1) % bulkFlushSize == 0) {
+                giftRepository.flush();
+                giftRepository.getEntityManager().clear();
+            }
+        }
+        if (!gifts.isEmpty()) {
+            giftRepository.indexPrices(gifts);
+            readRouter.writeInTransaction();
+        }
+        return gifts;
+    }
+    
     public List<Gift> findAll() {
         return giftRepository.listAll();
     }
@@ -37,24 +74,79 @@ public class GiftService {
             gift.price = updatedGift.price;
             gift.category = updatedGift.category;
             giftRepository.persist(gift);
+            giftRepository.indexPrices(List.of(gift));
+            readRouter.writeInTransaction();
         }
         return gift;
     }
     
     @Transactional
     public boolean delete(Long id) {
-        return giftRepository.deleteById(id);
+        Gift gift = giftRepository.findById(id);
+        if (gift == null) {
+            return false;
+        }
+        giftRepository.delete(gift);
+        giftRepository.unindexPrice(id, gift.version);
+        readRouter.writeInTransaction();
+        return true;
     }
     
+    /**
+     * Multiplies the price of every gift in the category, with one set-based UPDATE per range of
+     * gift.reprice.chunk-size ids, each in its own transaction (a failure leaves the ranges before it
+     * repriced). Only the repriced gifts are evicted from the second-level cache.
+     * Returns the number of gifts whose price changed.
+     */
+    public long repriceCategory(String category, double multiplier) {
+        if (!(multiplier >= 0) || Double.isInfinite(multiplier)) {
+            throw new IllegalArgumentException("Invalid price multiplier: " + multiplier);
+        }
+        long[] range = QuarkusTransaction.requiringNew().call(() -> giftRepository.idRange(category));
+        if (range == null) {
+            return 0;
+        }
+        long changed = 0;
+        for (long fromId = range[0]; fromId <= range[1]; fromId += repriceChunkSize) {
+            long from = fromId;
+            long to = Math.min(range[1], fromId + repriceChunkSize - 1);
+            changed += QuarkusTransaction.requiringNew().call(() -> giftRepository.repriceCategory(category, multiplier, from, to));
+        }
+        if (changed > 0) {
+            readRouter.writeCommitted();
+        }
+        return changed;
+    }
+    
+    /**
+     * Takes discountPercent percent off the price of every gift in the category, see repriceCategory
+     */
+    public long applyDiscountToCategory(String category, double discountPercent) {
+        return repriceCategory(category, 1 - discountPercent / 100);
+    }
+    
+    @ReplicaRead
     public List<Gift> findByCategory(String category) {
         return giftRepository.findByCategory(category);
     }
     
+    @ReplicaRead
     public List<Gift> findByPriceRange(Double minPrice, Double maxPrice) {
         return giftRepository.findByPriceRange(minPrice, maxPrice);
     }
     
+    @ReplicaRead
     public List<Gift> findByNameContaining(String name) {
         return giftRepository.findByNameContaining(name);
     }
+    
+    /**
+     * Ranked search over names and descriptions, at most limit gifts (see GiftRepository.search)
+     */
+    public List<Gift> search(String text, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Invalid search limit: " + limit);
+        }
+        return giftRepository.search(text, limit);
+    }
 }
\ No newline at end of file
@@ -2,12 +2,16 @@ package lab.quarkus.service;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import lab.guice.service.PriceRule;
 import lab.guice.service.PureGuiceService;
 import lab.quarkus.entity.Gift;
+import lab.quarkus.index.GiftPriceSnapshot;
+import lab.quarkus.repository.GiftPriceStatistics;
 import lab.quarkus.repository.GiftRepository;
 import org.jboss.logging.Logger;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -26,42 +30,32 @@ public class HybridCalculatorService {
     GiftRepository giftRepository; // Service CDI natif
     
     /**
-     * Calcule le prix total de tous les gifts en utilisant le service Guice
+     * Calcule le prix total de tous les gifts (snapshot en mémoire ou SUM côté base, formaté par le service Guice)
      */
     public String calculateTotalGiftValue() {
         LOG.info("Calculating total gift value using Guice calculator");
         
-        List<Gift> allGifts = giftRepository.listAll();
-        double total = 0.0;
-        
-        for (Gift gift : allGifts) {
-            total = guiceCalculator.calculate(total, gift.price, "add");
-        }
+        double total = priceStatistics().sum();
         
         String formatted = guiceCalculator.formatResult(total);
         return "Total Gift Value: " + formatted + " (calculated by " + guiceCalculator.getServiceId() + ")";
     }
     
     /**
-     * Calcule le prix moyen des gifts en utilisant Guice
+     * Calcule le prix moyen des gifts en utilisant Guice, à partir de la somme et du nombre de gifts
      */
     public String calculateAverageGiftPrice() {
         LOG.info("Calculating average gift price using Guice calculator");
         
-        List<Gift> allGifts = giftRepository.listAll();
-        if (allGifts.isEmpty()) {
+        GiftPriceStatistics statistics = priceStatistics();
+        if (statistics.isEmpty()) {
             return "No gifts available for average calculation";
         }
         
-        double total = 0.0;
-        for (Gift gift : allGifts) {
-            total = guiceCalculator.calculate(total, gift.price, "add");
-        }
-        
-        double average = guiceCalculator.calculate(total, (double) allGifts.size(), "divide");
+        double average = guiceCalculator.calculate(statistics.sum(), (double) statistics.count(), "divide");
         String formatted = guiceCalculator.formatResult(average);
         
-        return "Average Gift Price: " + formatted + " (from " + allGifts.size() + " gifts)";
+        return "Average Gift Price: " + formatted + " (from " + statistics.count() + " gifts)";
     }
     
     /**
@@ -90,21 +84,38 @@ public class HybridCalculatorService {
     }
     
     /**
-     * Statistiques des prix des gifts utilisant Guice
+     * Statistiques des prix des gifts utilisant Guice (snapshot en mémoire, agrégats SQL à défaut)
      */
     public String getGiftPriceStatistics() {
         LOG.info("Getting gift price statistics using Guice calculator");
         
-        List<Gift> allGifts = giftRepository.listAll();
-        if (allGifts.isEmpty()) {
+        GiftPriceStatistics statistics = priceStatistics();
+        if (statistics.isEmpty()) {
             return "No gifts available for statistics";
         }
         
-        double[] prices = allGifts.stream()
-            .mapToDouble(gift -> gift.price)
-            .toArray();
-            
-        return guiceCalculator.getStats(prices);
+        return guiceCalculator.getStats(statistics.count(), statistics.sum(), statistics.min(), statistics.max());
+    }
+    
+    /**
+     * Statistiques des prix par catégorie, une ligne par catégorie (un seul parcours du snapshot,
+     * ou un seul GROUP BY côté base)
+     */
+    public String getGiftPriceStatisticsByCategory() {
+        LOG.info("Getting gift price statistics by category using Guice calculator");
+        
+        GiftPriceSnapshot snapshot = giftRepository.priceSnapshot();
+        Map<String, GiftPriceStatistics> byCategory = snapshot.isReady()
+            ? snapshot.statisticsByCategory() : giftRepository.priceStatisticsByCategory();
+        if (byCategory.isEmpty()) {
+            return "No gifts available for statistics";
+        }
+        
+        StringBuilder result = new StringBuilder();
+        byCategory.forEach((category, statistics) -> result.append(category).append(": ")
+            .append(guiceCalculator.getStats(statistics.count(), statistics.sum(), statistics.min(), statistics.max()))
+            .append("\n"));
+        return result.toString();
     }
     
     /**
@@ -126,7 +137,8 @@ public class HybridCalculatorService {
     }
     
     /**
-     * Logique métier complexe combinant CDI et Guice
+     * Logique métier complexe combinant CDI et Guice ; la règle métier est compilée une fois
+     * pour toute la catégorie, les prix ne sont plus convertis en chaîne puis relus
      */
     public String processGiftBusinessLogic(String category, double multiplier) {
         LOG.info("Processing gift business logic for category: " + category);
@@ -136,19 +148,61 @@ public class HybridCalculatorService {
             return "No gifts found in category: " + category;
         }
         
+        PriceRule businessRule = guiceCalculator.businessRule();
         StringBuilder result = new StringBuilder();
         result.append("Business Logic Results for category '").append(category).append("':\n");
         
         for (Gift gift : categoryGifts) {
-            String businessResult = guiceCalculator.processBusinessLogic(
-                String.valueOf(gift.price), multiplier
-            );
+            String businessResult = guiceCalculator.processBusinessLogic(gift.price, multiplier, businessRule);
             result.append("- ").append(gift.name).append(": ").append(businessResult).append("\n");
         }
         
         return result.toString();
     }
     
+    /**
+     * Calcule l'effet d'une règle de prix ("price * m - 5"...) sur tous les gifts d'une catégorie, sans
+     * rien enregistrer : la règle est compilée une fois (et gardée en cache par le service Guice), puis
+     * évaluée sur le tableau des prix, lus sans charger les entités
+     */
+    public String applyPriceRuleToCategory(String category, String rule, double multiplier) {
+        LOG.info("Applying price rule '" + rule + "' to category: " + category);
+        
+        PriceRule priceRule;
+        try {
+            priceRule = guiceCalculator.compileRule(rule);
+        } catch (IllegalArgumentException e) {
+            return "ERROR: " + e.getMessage();
+        }
+        
+        double[] prices = giftRepository.pricesByCategory(category);
+        if (prices.length == 0) {
+            return "No gifts found in category: " + category;
+        }
+        try {
+            priceRule.apply(prices, multiplier, prices);
+        } catch (IllegalArgumentException e) {
+            return "ERROR: " + e.getMessage();
+        }
+        
+        double min = prices[0];
+        double max = prices[0];
+        for (double price : prices) {
+            min = Math.min(min, price);
+            max = Math.max(max, price);
+        }
+        return "Rule '" + rule + "' on category '" + category + "': "
+            + guiceCalculator.getStats(prices.length, guiceCalculator.sum(prices), min, max);
+    }
+    
+    /**
+     * Agrégats des prix lus dans le snapshot en mémoire une fois chargé, calculés par la base sinon
+     */
+    private GiftPriceStatistics priceStatistics() {
+        GiftPriceSnapshot snapshot = giftRepository.priceSnapshot();
+        return snapshot.isReady() ? snapshot.statistics() : giftRepository.priceStatistics();
+    }
+    
     /**
      * Retourne les informations du service Guice utilisé
      */
@@ -0,0 +1,122 @@
+package lab.quarkus.service;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.vertx.mutiny.sqlclient.Pool;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lab.quarkus.entity.Gift;
+import lab.quarkus.repository.GiftRepository;
+import lab.quarkus.repository.ReactiveGiftRepository;
+import org.hibernate.SessionFactory;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link GiftService} on the reactive stack: the same operations returning Uni/Multi, for callers
+ * that keep many requests in flight without a worker thread each. Writes run in a transaction of
+ * the reactive pool; once it commits they drop the gift from Hibernate's second-level cache and the
+ * finder query cache, and update the price index and snapshot, so the blocking stack does not serve
+ * stale gifts. That maintenance takes locks, so it runs on a worker thread, not on the event loop;
+ * the Uni completes once it is done.
+ * Finders always read the primary (no replica routing).
+ */
+@ApplicationScoped
+public class ReactiveGiftService {
+    
+    private static final int STREAM_FETCH_SIZE = 1000;
+    
+    @Inject
+    ReactiveGiftRepository reactiveGiftRepository;
+    
+    @Inject
+    GiftRepository giftRepository;
+    
+    @Inject
+    Pool client;
+    
+    @Inject
+    SessionFactory sessionFactory;
+    
+    public Uni<Gift> create(Gift gift) {
+        return client.withTransaction(connection -> reactiveGiftRepository.persist(connection, gift))
+            .call(created -> onWorker(() -> written(List.of(created))));
+    }
+    
+    /**
+     * Inserts the gifts in one transaction, as a single batch of the prepared insert
+     */
+    public Uni<List<Gift>> createAll(List<Gift> gifts) {
+        if (gifts.isEmpty()) {
+            return Uni.createFrom().item(gifts);
+        }
+        return client.withTransaction(connection -> reactiveGiftRepository.persistAll(connection, gifts))
+            .call(created -> onWorker(() -> written(created)));
+    }
+    
+    public Uni<List<Gift>> findAll() {
+        return reactiveGiftRepository.listAll();
+    }
+    
+    /**
+     * Every gift in id order, fetched as the subscriber requests them
+     */
+    public Multi<Gift> streamAll() {
+        return reactiveGiftRepository.streamAll(STREAM_FETCH_SIZE);
+    }
+    
+    public Uni<Optional<Gift>> findById(Long id) {
+        return reactiveGiftRepository.findById(id).map(Optional::ofNullable);
+    }
+    
+    public Uni<Gift> update(Long id, Gift updatedGift) {
+        return client.withTransaction(connection -> reactiveGiftRepository.update(connection, id, updatedGift))
+            .call(gift -> gift == null ? Uni.createFrom().voidItem() : onWorker(() -> {
+                sessionFactory.getCache().evict(Gift.class, id);
+                written(List.of(gift));
+            }));
+    }
+    
+    public Uni<Boolean> delete(Long id) {
+        return client.withTransaction(connection -> reactiveGiftRepository.deleteById(connection, id))
+            .call(version -> version == null ? Uni.createFrom().voidItem() : onWorker(() -> {
+                sessionFactory.getCache().evict(Gift.class, id);
+                sessionFactory.getCache().evictQueryRegion(Gift.QUERY_CACHE_REGION);
+                giftRepository.unindexPrice(id, version);
+                giftRepository.unsnapshotPrice(id, version);
+            }))
+            .map(version -> version != null);
+    }
+    
+    public Uni<List<Gift>> findByCategory(String category) {
+        return reactiveGiftRepository.findByCategory(category);
+    }
+    
+    public Uni<List<Gift>> findByPriceRange(Double minPrice, Double maxPrice) {
+        return reactiveGiftRepository.findByPriceRange(minPrice, maxPrice);
+    }
+    
+    public Uni<List<Gift>> findByNameContaining(String name) {
+        return reactiveGiftRepository.findByNameContaining(name);
+    }
+    
+    /**
+     * Hibernate only invalidates its query cache on its own writes, so the finder results are dropped here
+     */
+    private void written(List<Gift> gifts) {
+        sessionFactory.getCache().evictQueryRegion(Gift.QUERY_CACHE_REGION);
+        giftRepository.indexPrices(gifts);
+        giftRepository.snapshotPrices(gifts);
+    }
+    
+    /**
+     * Runs the maintenance of the blocking stack's caches on the default worker pool: it waits for the
+     * index and snapshot write locks, which the event loop must not do
+     */
+    private static Uni<Void> onWorker(Runnable maintenance) {
+        return Uni.createFrom().voidItem()
+            .invoke(maintenance)
+            .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+    }
+}
\ No newline at end of file
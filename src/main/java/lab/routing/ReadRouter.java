@@ -0,0 +1,249 @@
+package lab.routing;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.agroal.DataSource;
+import io.quarkus.arc.Arc;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Decides whether a read goes to the replica datasource or to the primary.
+ *
+ * A read uses the replica when routing is enabled, it runs inside a {@link ReplicaRead} method and
+ * outside any JTA transaction, and the current request has no write the replica may not have
+ * replayed yet (read-your-writes). Repositories report their committed writes through
+ * {@link #writeCommitted()} or {@link #writeInTransaction()}; the primary's position is only read
+ * when the request next wants the replica.
+ *
+ * Hibernate reads open a session on {@link #replica()}; EclipseLink reads run through
+ * {@link #onReplica(Supplier)}, which points its datasource at the replica for the current thread.
+ *
+ * A read whose request state is unknown (no request context, and none handed over with
+ * {@link #inheritWrites(Supplier)}) goes to the primary: a write of its caller may not be replayed yet.
+ */
+@ApplicationScoped
+public class ReadRouter {
+    
+    public static final String REPLICA = "replica";
+    
+    private static final ThreadLocal<Boolean> REPLICA_CONNECTIONS = new ThreadLocal<>();
+    
+    /**
+     * Read-your-writes state handed over to a task running on another thread, see {@link #inheritWrites(Supplier)}
+     */
+    private static final ThreadLocal<Inherited> INHERITED = new ThreadLocal<>();
+    
+    @Inject
+    AgroalDataSource primary;
+    
+    @Inject
+    @DataSource(REPLICA)
+    AgroalDataSource replica;
+    
+    @Inject
+    ReadYourWrites readYourWrites;
+    
+    @Inject
+    TransactionSynchronizationRegistry transactions;
+    
+    @ConfigProperty(name = "routing.replica.enabled", defaultValue = "false")
+    boolean enabled;
+    
+    /**
+     * How long after a write the replica is assumed current when its position cannot be checked
+     */
+    @ConfigProperty(name = "routing.replica.max-lag", defaultValue = "5s")
+    Duration maxLag;
+    
+    private ReplicaLag lag;
+    
+    /**
+     * Outside CDI: a single read-your-writes state, as if every call belonged to one request
+     */
+    private boolean standalone;
+    
+    ReadRouter() {
+    }
+    
+    /**
+     * Standalone router (tests, tools): routing enabled, no JTA transactions, and one read-your-writes
+     * state shared by all the calls, as if they belonged to a single request
+     */
+    public ReadRouter(AgroalDataSource primary, AgroalDataSource replica, Duration maxLag) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLag = maxLag;
+        this.readYourWrites = new ReadYourWrites();
+        this.enabled = true;
+        this.standalone = true;
+        init();
+    }
+    
+    @PostConstruct
+    void init() {
+        lag = new ReplicaLag(primary, replica, maxLag);
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public AgroalDataSource replica() {
+        return replica;
+    }
+    
+    /**
+     * Whether the read about to run may go to the replica
+     */
+    public boolean useReplica() {
+        if (!enabled || !ReplicaReadScope.isActive() || inTransaction()) {
+            return false;
+        }
+        ReadYourWrites writes = currentWrites();
+        if (writes == null) {
+            return false;
+        }
+        WritePosition pending = writes.pending();
+        if (pending == null) {
+            return true;
+        }
+        if (!pending.located()) {
+            pending = lag.locate(pending);
+            writes.written(pending);
+        }
+        if (lag.caughtUp(pending)) {
+            writes.caughtUp();
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Programmatic {@link ReplicaRead}, for callers that CDI does not intercept (Guice components,
+     * standalone repositories)
+     */
+    public <T> T replicaRead(Supplier<T> read) {
+        ReplicaReadScope.enter();
+        try {
+            return read.get();
+        } finally {
+            ReplicaReadScope.exit();
+        }
+    }
+    
+    /**
+     * Wraps a read to be run on another thread so that it keeps the caller's read-your-writes state:
+     * the pending write is captured now, on the caller's thread, and checked by the task's reads
+     * (a fresh request context on the task's thread would not know it). Writes made by the task are
+     * not reported back to the caller.
+     */
+    public <T> Supplier<T> inheritWrites(Supplier<T> read) {
+        ReadYourWrites caller = currentWrites();
+        WritePosition pending = caller != null ? caller.pending() : null;
+        return () -> {
+            ReadYourWrites writes = null;
+            if (caller != null) {
+                writes = new ReadYourWrites();
+                writes.written(pending);
+            }
+            Inherited previous = INHERITED.get();
+            INHERITED.set(new Inherited(writes));
+            try {
+                return read.get();
+            } finally {
+                if (previous != null) {
+                    INHERITED.set(previous);
+                } else {
+                    INHERITED.remove();
+                }
+            }
+        };
+    }
+    
+    /**
+     * Runs a read whose connections are taken from the replica, see {@link #isReplicaConnection()}
+     */
+    public <T> T onReplica(Supplier<T> read) {
+        if (REPLICA_CONNECTIONS.get() != null) {
+            return read.get();
+        }
+        REPLICA_CONNECTIONS.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            REPLICA_CONNECTIONS.remove();
+        }
+    }
+    
+    /**
+     * Whether a datasource acquiring a connection on this thread should take it from the replica
+     */
+    public static boolean isReplicaConnection() {
+        return REPLICA_CONNECTIONS.get() != null;
+    }
+    
+    /**
+     * Records a write that is already committed (EclipseLink resource-local transactions)
+     */
+    public void writeCommitted() {
+        ReadYourWrites writes = enabled ? currentWrites() : null;
+        if (writes != null) {
+            writes.written(WritePosition.now());
+        }
+    }
+    
+    /**
+     * Records a write of the current JTA transaction once (and if) it commits
+     */
+    public void writeInTransaction() {
+        if (!enabled || currentWrites() == null) {
+            return;
+        }
+        if (!inTransaction()) {
+            writeCommitted();
+            return;
+        }
+        transactions.registerInterposedSynchronization(new Synchronization() {
+            
+            @Override
+            public void beforeCompletion() {
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    writeCommitted();
+                }
+            }
+        });
+    }
+    
+    /**
+     * Read-your-writes state of the current thread: handed over by the caller, else the request's;
+     * null when unknown
+     */
+    private ReadYourWrites currentWrites() {
+        Inherited inherited = INHERITED.get();
+        if (inherited != null) {
+            return inherited.writes();
+        }
+        return standalone || Arc.container().requestContext().isActive() ? readYourWrites : null;
+    }
+    
+    private boolean inTransaction() {
+        return transactions != null && transactions.getTransactionKey() != null;
+    }
+    
+    /**
+     * writes is null when the caller's state was unknown
+     */
+    private record Inherited(ReadYourWrites writes) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,24 @@
+package lab.routing;
+
+import jakarta.enterprise.context.RequestScoped;
+
+/**
+ * The last write of the current request that the replica may not have replayed yet
+ */
+@RequestScoped
+public class ReadYourWrites {
+    
+    private WritePosition pending;
+    
+    WritePosition pending() {
+        return pending;
+    }
+    
+    void written(WritePosition position) {
+        pending = position;
+    }
+    
+    void caughtUp() {
+        pending = null;
+    }
+}
\ No newline at end of file
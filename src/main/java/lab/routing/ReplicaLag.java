@@ -0,0 +1,77 @@
+package lab.routing;
+
+import org.jboss.logging.Logger;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Tells whether the replica has caught up with a write made on the primary.
+ *
+ * On PostgreSQL this compares the primary's WAL position after the commit with the position the
+ * replica has replayed (a replica that is not in recovery is the primary itself). Other databases,
+ * or a failing check, fall back to a fixed window: the replica is assumed current once maxLag has
+ * elapsed since the write.
+ */
+final class ReplicaLag {
+    
+    private static final Logger LOG = Logger.getLogger(ReplicaLag.class);
+    
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long maxLagNanos;
+    
+    ReplicaLag(DataSource primary, DataSource replica, Duration maxLag) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLagNanos = maxLag.toNanos();
+    }
+    
+    /**
+     * Reads the primary's current WAL position. Being read after the commit, it is at or past the
+     * write's own position, which is all read-your-writes needs.
+     */
+    WritePosition locate(WritePosition write) {
+        try (Connection connection = primary.getConnection()) {
+            if (!isPostgres(connection)) {
+                return write.at(null);
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT pg_current_wal_lsn()::text")) {
+                rs.next();
+                return write.at(rs.getString(1));
+            }
+        } catch (SQLException e) {
+            LOG.debug("Could not read the primary WAL position, using the lag window", e);
+            return write.at(null);
+        }
+    }
+    
+    boolean caughtUp(WritePosition position) {
+        if (System.nanoTime() - position.nanoTime() >= maxLagNanos) {
+            return true;
+        }
+        if (position.lsn() == null) {
+            return false;
+        }
+        try (Connection connection = replica.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                 "SELECT NOT pg_is_in_recovery() OR pg_last_wal_replay_lsn() >= CAST(? AS pg_lsn)")) {
+            statement.setString(1, position.lsn());
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        } catch (SQLException e) {
+            LOG.debug("Could not read the replica WAL position, using the lag window", e);
+            return false;
+        }
+    }
+    
+    private static boolean isPostgres(Connection connection) throws SQLException {
+        return "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+    }
+}
\ No newline at end of file
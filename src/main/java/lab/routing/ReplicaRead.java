@@ -0,0 +1,20 @@
+package lab.routing;
+
+import jakarta.interceptor.InterceptorBinding;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a finder whose queries may be served by the read replica (see {@link ReadRouter}).
+ * Unannotated methods, writes and anything running in a JTA transaction use the primary.
+ */
+@InterceptorBinding
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface ReplicaRead {
+}
\ No newline at end of file
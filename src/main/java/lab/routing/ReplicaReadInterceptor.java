@@ -0,0 +1,25 @@
+package lab.routing;
+
+import jakarta.annotation.Priority;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+/**
+ * Opens a {@link ReplicaReadScope} for the duration of a {@link ReplicaRead} method
+ */
+@ReplicaRead
+@Interceptor
+@Priority(Interceptor.Priority.LIBRARY_BEFORE)
+public class ReplicaReadInterceptor {
+    
+    @AroundInvoke
+    Object route(InvocationContext context) throws Exception {
+        ReplicaReadScope.enter();
+        try {
+            return context.proceed();
+        } finally {
+            ReplicaReadScope.exit();
+        }
+    }
+}
\ No newline at end of file
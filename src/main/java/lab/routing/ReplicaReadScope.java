@@ -0,0 +1,27 @@
+package lab.routing;
+
+/**
+ * Per-thread nesting depth of {@link ReplicaRead} methods
+ */
+final class ReplicaReadScope {
+    
+    private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+    
+    private ReplicaReadScope() {
+    }
+    
+    static void enter() {
+        DEPTH.get()[0]++;
+    }
+    
+    static void exit() {
+        int[] depth = DEPTH.get();
+        if (--depth[0] <= 0) {
+            DEPTH.remove();
+        }
+    }
+    
+    static boolean isActive() {
+        return DEPTH.get()[0] > 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,16 @@
+package lab.routing;
+
+/**
+ * A committed write of the current request: when it happened and, once located, the primary's WAL
+ * position read after it (null on databases without one)
+ */
+record WritePosition(long nanoTime, boolean located, String lsn) {
+    
+    static WritePosition now() {
+        return new WritePosition(System.nanoTime(), false, null);
+    }
+    
+    WritePosition at(String lsn) {
+        return new WritePosition(nanoTime, true, lsn);
+    }
+}
\ No newline at end of file
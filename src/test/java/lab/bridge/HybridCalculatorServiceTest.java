@@ -11,6 +11,8 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.jboss.logging.Logger;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @QuarkusTest
@@ -92,6 +94,23 @@ public class HybridCalculatorServiceTest {
         LOG.info("Gift price statistics: " + result);
     }
     
+    @Test
+    @DisplayName("Test statistiques des prix par catégorie utilisant Guice")
+    public void testGetGiftPriceStatisticsByCategory() {
+        String result = hybridCalculatorService.getGiftPriceStatisticsByCategory();
+        
+        assertNotNull(result);
+        String[] lines = result.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("Books: Stats[GUICE-"));
+        assertTrue(lines[0].contains("Sum=45,00") || lines[0].contains("Sum=45.00"));
+        assertTrue(lines[1].startsWith("Electronics: Stats[GUICE-"));
+        assertTrue(lines[1].contains("Min=10,00") || lines[1].contains("Min=10.00"));
+        assertTrue(lines[1].contains("Max=25,00") || lines[1].contains("Max=25.00"));
+        
+        LOG.info("Gift price statistics by category: " + result);
+    }
+    
     @Test
     @DisplayName("Test validation des prix utilisant Guice")
     public void testValidateGiftPrices() {
@@ -118,6 +137,26 @@ public class HybridCalculatorServiceTest {
         LOG.info("Business logic result: " + result);
     }
     
+    @Test
+    @DisplayName("Test règle de prix compilée appliquée à une catégorie")
+    public void testApplyPriceRuleToCategory() {
+        String result = hybridCalculatorService.applyPriceRuleToCategory("Electronics", "price * m - 5", 2.0);
+        
+        assertTrue(result.startsWith("Rule 'price * m - 5' on category 'Electronics': Stats[GUICE-"), result);
+        assertTrue(result.contains("Count=2"), result);
+        assertTrue(result.contains("Sum=60,00") || result.contains("Sum=60.00"), result);
+        assertTrue(result.contains("Max=45,00") || result.contains("Max=45.00"), result);
+        // Calcul seul : les prix enregistrés ne changent pas
+        assertEquals(List.of(10.0, 25.0), electronicsPrices());
+        assertTrue(hybridCalculatorService.applyPriceRuleToCategory("Electronics", "price *", 2.0).startsWith("ERROR: "));
+        assertEquals("ERROR: Division by zero",
+            hybridCalculatorService.applyPriceRuleToCategory("Electronics", "price / (price - 10)", 2.0));
+        assertEquals("No gifts found in category: NonExistent",
+            hybridCalculatorService.applyPriceRuleToCategory("NonExistent", "price * m", 2.0));
+        
+        LOG.info("Price rule result: " + result);
+    }
+    
     @Test
     @DisplayName("Test informations du service Guice")
     public void testGetGuiceServiceInfo() {
@@ -150,4 +189,8 @@ public class HybridCalculatorServiceTest {
         
         LOG.info("Invalid gift ID result: " + result);
     }
+    
+    private List<Double> electronicsPrices() {
+        return giftService.findByCategory("Electronics").stream().map(gift -> gift.price).sorted().toList();
+    }
 }
\ No newline at end of file
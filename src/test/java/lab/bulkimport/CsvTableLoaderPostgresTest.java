@@ -0,0 +1,133 @@
+package lab.bulkimport;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * COPY path of the catalog import: COPY FROM STDIN into the staging table, INSERT ... SELECT with
+ * ids drawn from the sequence, and setval() past the imported ids, on a Testcontainers PostgreSQL
+ */
+@Testcontainers
+public class CsvTableLoaderPostgresTest {
+    
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+    
+    private Connection connection;
+    
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        CsvTableLoaderTest.createSchema(connection);
+        connection.setAutoCommit(false);
+    }
+    
+    @AfterEach
+    public void tearDown() throws SQLException {
+        connection.rollback();
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE shops, gifts");
+            statement.execute("DROP SEQUENCE shops_seq, gifts_seq");
+        }
+        connection.close();
+    }
+    
+    @Test
+    @DisplayName("Test COPY of shops draws ids from the sequence and sets the version")
+    public void testCopyShops() throws Exception {
+        String csv = "name,city,category,address,phone\n"
+            + "Book Corner,Paris,Books,1 Rue A,555-0001\n"
+            + "\"Tech, Inc.\",Lyon,Electronics,\"2 \"\"Main\"\" St\",\"\"\n";
+        
+        long rows = new CsvTableLoader(connection, 1).load(ImportTarget.SHOPS, new StringReader(csv));
+        connection.commit();
+        
+        assertEquals(2, rows);
+        assertEquals(List.of(
+            Arrays.asList("Book Corner", "1 Rue A", "Paris", "555-0001", "Books", "1"),
+            Arrays.asList("Tech, Inc.", "2 \"Main\" St", "Lyon", "", "Electronics", "1")),
+            query("SELECT name, address, city, phone, category, version FROM shops ORDER BY id"));
+        assertEquals(2, query("SELECT DISTINCT id FROM shops").size());
+    }
+    
+    @Test
+    @DisplayName("Test COPY of gifts with explicit ids realigns the sequence past them")
+    public void testCopyGiftsWithIds() throws Exception {
+        String csv = "id,name,description,price,category\n"
+            + "1000,Teddy Bear,Soft,25.50,Toys\n"
+            + ",Coffee Mug,\"\",9.99,Home\r\n"
+            + "1200,Book Set,\"Two\nlines\",45,Books\n";
+        
+        long rows = new CsvTableLoader(connection, 2).load(ImportTarget.GIFTS, new StringReader(csv));
+        connection.commit();
+        
+        assertEquals(3, rows);
+        assertEquals(List.of(
+            Arrays.asList("1000", "Teddy Bear", "Soft", "25.5"),
+            Arrays.asList("1200", "Book Set", "Two\nlines", "45")),
+            query("SELECT id, name, description, price FROM gifts WHERE id >= 1000 ORDER BY id"));
+        assertEquals(List.of(Arrays.asList("Coffee Mug", "")), query("SELECT name, description FROM gifts WHERE id < 1000"));
+        
+        // The next block handed out by the sequence lies entirely above the imported ids
+        long next = Long.parseLong(query("SELECT nextval('gifts_seq')").get(0).get(0));
+        assertTrue(next - 50 + 1 > 1200, "Next sequence value " + next);
+    }
+    
+    @Test
+    @DisplayName("Test two imports in one transaction each get their staging table")
+    public void testTwoCopiesInOneTransaction() throws Exception {
+        CsvTableLoader loader = new CsvTableLoader(connection, 100);
+        
+        loader.load(ImportTarget.GIFTS, new StringReader("name,description,price,category\nTeddy Bear,Soft,25.5,Toys\n"));
+        loader.load(ImportTarget.GIFTS, new StringReader("name,description,price,category\nCoffee Mug,Blue,9.99,Home\n"));
+        connection.commit();
+        
+        assertEquals(List.of(List.of("Coffee Mug"), List.of("Teddy Bear")), query("SELECT name FROM gifts ORDER BY name"));
+        assertEquals(List.of(Arrays.asList((String) null)), query("SELECT to_regclass('import_gifts')::text"));
+    }
+    
+    @Test
+    @DisplayName("Test an empty unquoted field is NULL and violates NOT NULL columns")
+    public void testNullField() {
+        String csv = "name,description,price,category\n"
+            + "Coffee Mug,,9.99,Home\n";
+        
+        assertThrows(SQLException.class, () -> new CsvTableLoader(connection, 10).load(ImportTarget.GIFTS, new StringReader(csv)));
+    }
+    
+    private List<List<String>> query(String sql) throws SQLException {
+        List<List<String>> rows = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                List<String> row = new ArrayList<>();
+                for (int i = 1; i <= columns; i++) {
+                    row.add(rs.getString(i));
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
\ No newline at end of file
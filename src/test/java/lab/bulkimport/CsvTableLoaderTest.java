@@ -0,0 +1,147 @@
+package lab.bulkimport;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Batched-insert path of the catalog import, on an in-memory H2 database
+ */
+public class CsvTableLoaderTest {
+    
+    private Connection connection;
+    
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:import;DB_CLOSE_DELAY=-1");
+        createSchema(connection);
+        connection.setAutoCommit(false);
+    }
+    
+    /**
+     * The shops and gifts tables as the ORMs map them (Shop, Gift): every column NOT NULL, so that an
+     * import producing NULLs fails here as it would in the application
+     */
+    static void createSchema(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SEQUENCE shops_seq START WITH 1 INCREMENT BY 50");
+            statement.execute("CREATE SEQUENCE gifts_seq START WITH 1 INCREMENT BY 50");
+            statement.execute("CREATE TABLE shops (id BIGINT PRIMARY KEY, name VARCHAR(255) NOT NULL, address VARCHAR(255) NOT NULL, "
+                + "city VARCHAR(255) NOT NULL, phone VARCHAR(255) NOT NULL, category VARCHAR(255) NOT NULL, version BIGINT)");
+            statement.execute("CREATE TABLE gifts (id BIGINT PRIMARY KEY, name VARCHAR(255) NOT NULL, "
+                + "description VARCHAR(255) NOT NULL, price DOUBLE PRECISION NOT NULL, category VARCHAR(255) NOT NULL)");
+        }
+    }
+    
+    @AfterEach
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+    
+    @Test
+    @DisplayName("Test importing shops draws ids from the sequence and sets the version")
+    public void testImportShops() throws Exception {
+        String csv = "name,city,category,address,phone\n"
+            + "Book Corner,Paris,Books,1 Rue A,555-0001\n"
+            + "\"Tech, Inc.\",Lyon,Electronics,\"2 \"\"Main\"\" St\",\"\"\n";
+        
+        long rows = new CsvTableLoader(connection, 1).load(ImportTarget.SHOPS, new StringReader(csv));
+        connection.commit();
+        
+        assertEquals(2, rows);
+        List<List<String>> shops = query("SELECT name, address, city, phone, category, version FROM shops ORDER BY id");
+        assertEquals(List.of(
+            Arrays.asList("Book Corner", "1 Rue A", "Paris", "555-0001", "Books", "1"),
+            Arrays.asList("Tech, Inc.", "2 \"Main\" St", "Lyon", "", "Electronics", "1")), shops);
+        assertEquals(2, query("SELECT DISTINCT id FROM shops").size());
+    }
+    
+    @Test
+    @DisplayName("Test importing gifts with explicit ids realigns the sequence past them")
+    public void testImportGiftsWithIds() throws Exception {
+        String csv = "id,name,description,price,category\n"
+            + "1000,Teddy Bear,Soft,25.50,Toys\n"
+            + ",Coffee Mug,\"\",9.99,Home\r\n"
+            + "1200,Book Set,\"Two\nlines\",45,Books\n";
+        
+        long rows = new CsvTableLoader(connection, 2).load(ImportTarget.GIFTS, new StringReader(csv));
+        connection.commit();
+        
+        assertEquals(3, rows);
+        assertEquals(List.of(
+            Arrays.asList("1000", "Teddy Bear", "Soft", "25.5"),
+            Arrays.asList("1200", "Book Set", "Two\nlines", "45.0")),
+            query("SELECT id, name, description, price FROM gifts WHERE id >= 1000 ORDER BY id"));
+        assertEquals(List.of(Arrays.asList("Coffee Mug", "")), query("SELECT name, description FROM gifts WHERE id < 1000"));
+        
+        // The next block handed out by the sequence lies entirely above the imported ids
+        long next = Long.parseLong(query("SELECT NEXT VALUE FOR gifts_seq").get(0).get(0));
+        assertTrue(next - 50 + 1 > 1200, "Next sequence value " + next);
+    }
+    
+    @Test
+    @DisplayName("Test an empty unquoted field is NULL and violates NOT NULL columns")
+    public void testNullField() {
+        String csv = "name,description,price,category\n"
+            + "Coffee Mug,,9.99,Home\n";
+        
+        assertThrows(SQLException.class, () -> new CsvTableLoader(connection, 10).load(ImportTarget.GIFTS, new StringReader(csv)));
+    }
+    
+    @Test
+    @DisplayName("Test unknown columns and malformed rows are rejected")
+    public void testInvalidInput() throws Exception {
+        CsvTableLoader loader = new CsvTableLoader(connection, 100);
+        
+        assertThrows(IllegalArgumentException.class,
+            () -> loader.load(ImportTarget.GIFTS, new StringReader("name,colour\nTeddy,Red\n")));
+        assertThrows(IllegalArgumentException.class,
+            () -> loader.load(ImportTarget.GIFTS, new StringReader("id\n1\n")));
+        assertThrows(IllegalArgumentException.class,
+            () -> loader.load(ImportTarget.GIFTS, new StringReader("name,price\nTeddy,10,extra\n")));
+        assertEquals(0, loader.load(ImportTarget.GIFTS, new StringReader("")));
+    }
+    
+    @Test
+    @DisplayName("Test the CSV reader stops right after the record it returns")
+    public void testCsvReaderPosition() throws Exception {
+        BufferedReader in = new BufferedReader(new StringReader("a,\"b\r\nc\",\"\"\r\nrest"));
+        CsvReader reader = new CsvReader(in);
+        
+        assertEquals(Arrays.asList("a", "b\r\nc", ""), reader.readRecord());
+        assertEquals("rest", in.readLine());
+        assertNull(reader.readRecord());
+    }
+    
+    private List<List<String>> query(String sql) throws SQLException {
+        List<List<String>> rows = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                List<String> row = new ArrayList<>();
+                for (int i = 1; i <= columns; i++) {
+                    row.add(rs.getString(i));
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
\ No newline at end of file
@@ -108,4 +108,26 @@ public class DualOrmCacheTest {
         assertTrue(stats.hibernateMissCount >= 0);
         assertTrue(stats.hibernatePutCount >= 0);
     }
+    
+    @Test
+    @DisplayName("Test Hibernate query cache of the gift finders")
+    public void testGiftQueryCache() {
+        giftService.create(new Gift("Query Gift 1", "Query cache", 10.0, "QueryCache"));
+        giftService.create(new Gift("Query Gift 2", "Query cache", 20.0, "QueryCache"));
+        
+        // First call fills the region, the next ones are served from it
+        assertEquals(2, giftService.findByCategory("QueryCache").size());
+        var afterFirstCall = cacheManager.getCacheStatistics();
+        assertEquals(2, giftService.findByCategory("QueryCache").size());
+        assertEquals(2, giftService.findByCategory("QueryCache").size());
+        var afterHits = cacheManager.getCacheStatistics();
+        LOG.info("Query cache stats: " + afterHits);
+        
+        assertTrue(afterFirstCall.hibernateQueryPutCount > 0);
+        assertTrue(afterHits.hibernateQueryHitCount > afterFirstCall.hibernateQueryHitCount);
+        
+        // A write to the gifts table invalidates the cached results
+        giftService.create(new Gift("Query Gift 3", "Query cache", 30.0, "QueryCache"));
+        assertEquals(3, giftService.findByCategory("QueryCache").size());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,168 @@
+package lab.concurrent;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import lab.eclipselink.entity.Shop;
+import lab.eclipselink.service.AsyncShopService;
+import lab.eclipselink.service.ShopService;
+import lab.quarkus.service.AsyncGiftService;
+import lab.quarkus.service.GiftService;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A fan-out "request" issuing eight shop and gift finders, run with the blocking services
+ * (one finder after the other) and with the async ones (all finders in flight together), as
+ * CompletableFutures and as Mutiny Unis.
+ * Run with: ./mvnw test -Pbenchmark -Dbenchmark.requests=2000
+ */
+@QuarkusTest
+@Tag("benchmark")
+public class AsyncFinderBenchmarkTest {
+    
+    private static final Logger LOG = Logger.getLogger(AsyncFinderBenchmarkTest.class);
+    
+    private static final int REQUESTS = Integer.getInteger("benchmark.requests", 500);
+    
+    private static final String[] CITIES = {"Paris", "Lyon", "Marseille", "Lille"};
+    
+    private static final String[] CATEGORIES = {"Electronics", "Books", "Food", "Clothing"};
+    
+    @Inject
+    ShopService shopService;
+    
+    @Inject
+    GiftService giftService;
+    
+    @Inject
+    AsyncShopService asyncShopService;
+    
+    @Inject
+    AsyncGiftService asyncGiftService;
+    
+    @Inject
+    EntityManager em;
+    
+    @BeforeEach
+    public void setUp() {
+        List<Shop> shops = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            shops.add(new Shop("Async Shop " + i, i + " Main St", CITIES[i % CITIES.length], "555-0000", CATEGORIES[i % CATEGORIES.length]));
+        }
+        shopService.saveAll(shops);
+        QuarkusTransaction.requiringNew().run(() -> em.createNativeQuery(
+            "INSERT INTO gifts (id, name, description, price, category) "
+                + "SELECT nextval('gifts_seq'), 'Async Gift ' || g, 'Benchmark', g % 500, "
+                + "(ARRAY['Electronics', 'Books', 'Food', 'Clothing'])[g % 4 + 1] FROM generate_series(1, 20000) g")
+            .executeUpdate());
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        QuarkusTransaction.requiringNew().run(() ->
+            em.createNativeQuery("DELETE FROM gifts WHERE description = 'Benchmark'").executeUpdate());
+        shopService.deleteAllById(shopService.findAll().stream().map(Shop::getId).toList());
+    }
+    
+    @Test
+    @DisplayName("Benchmark blocking vs async fan-out of shop and gift finders")
+    public void benchmarkFanOut() {
+        // Warm-up
+        runBlocking(REQUESTS / 10);
+        runAsync(REQUESTS / 10);
+        runUni(REQUESTS / 10);
+        
+        long start = System.nanoTime();
+        int blockingResults = runBlocking(REQUESTS);
+        double blockingRate = REQUESTS / ((System.nanoTime() - start) / 1_000_000_000.0);
+        
+        start = System.nanoTime();
+        int asyncResults = runAsync(REQUESTS);
+        double asyncRate = REQUESTS / ((System.nanoTime() - start) / 1_000_000_000.0);
+        
+        start = System.nanoTime();
+        int uniResults = runUni(REQUESTS);
+        double uniRate = REQUESTS / ((System.nanoTime() - start) / 1_000_000_000.0);
+        
+        LOG.infof("%d fan-out requests of 8 finders: blocking %.0f requests/s, async %.0f requests/s (x%.1f), Uni %.0f requests/s (x%.1f)",
+            REQUESTS, blockingRate, asyncRate, asyncRate / blockingRate, uniRate, uniRate / blockingRate);
+        assertEquals(blockingResults, asyncResults);
+        assertEquals(blockingResults, uniResults);
+        assertEquals(0, asyncShopService.activeCalls());
+        assertEquals(0, asyncGiftService.activeCalls());
+    }
+    
+    private int runBlocking(int requests) {
+        int results = 0;
+        for (int r = 0; r < requests; r++) {
+            String category = CATEGORIES[r % CATEGORIES.length];
+            results += shopService.findByNameContaining("Shop " + r % 100).size()
+                + shopService.findAllAfter((long) r, 20).size()
+                + shopService.findByCity(CITIES[r % CITIES.length]).size()
+                + shopService.findById((long) r).stream().count()
+                + giftService.findByCategory(category).size()
+                + giftService.findByPriceRange((double) (r % 400), (double) (r % 400 + 5)).size()
+                + giftService.findByNameContaining("Gift " + r % 1000).size()
+                + giftService.findById((long) r).stream().count();
+        }
+        return results;
+    }
+    
+    private int runAsync(int requests) {
+        int results = 0;
+        for (int r = 0; r < requests; r++) {
+            String category = CATEGORIES[r % CATEGORIES.length];
+            String city = CITIES[r % CITIES.length];
+            long id = r;
+            List<CompletableFuture<Integer>> finders = List.of(
+                asyncShopService.findByNameContaining("Shop " + r % 100).thenApply(List::size),
+                asyncShopService.findAllAfter(id, 20).thenApply(List::size),
+                asyncShopService.findByCity(city).thenApply(List::size),
+                asyncShopService.findById(id).thenApply(shop -> shop.isPresent() ? 1 : 0),
+                asyncGiftService.findByCategory(category).thenApply(List::size),
+                asyncGiftService.findByPriceRange((double) (r % 400), (double) (r % 400 + 5)).thenApply(List::size),
+                asyncGiftService.findByNameContaining("Gift " + r % 1000).thenApply(List::size),
+                asyncGiftService.findById(id).thenApply(gift -> gift.isPresent() ? 1 : 0));
+            CompletableFuture.allOf(finders.toArray(CompletableFuture[]::new)).join();
+            for (CompletableFuture<Integer> finder : finders) {
+                results += finder.join();
+            }
+        }
+        return results;
+    }
+    
+    private int runUni(int requests) {
+        int results = 0;
+        for (int r = 0; r < requests; r++) {
+            String category = CATEGORIES[r % CATEGORIES.length];
+            String city = CITIES[r % CITIES.length];
+            long id = r;
+            List<Uni<Integer>> finders = List.of(
+                asyncShopService.findByNameContainingUni("Shop " + r % 100).map(List::size),
+                asyncShopService.findAllAfterUni(id, 20).map(List::size),
+                asyncShopService.findByCityUni(city).map(List::size),
+                asyncShopService.findByIdUni(id).map(shop -> shop.isPresent() ? 1 : 0),
+                asyncGiftService.findByCategoryUni(category).map(List::size),
+                asyncGiftService.findByPriceRangeUni((double) (r % 400), (double) (r % 400 + 5)).map(List::size),
+                asyncGiftService.findByNameContainingUni("Gift " + r % 1000).map(List::size),
+                asyncGiftService.findByIdUni(id).map(gift -> gift.isPresent() ? 1 : 0));
+            results += Uni.combine().all().unis(finders)
+                .with(counts -> counts.stream().mapToInt(count -> (Integer) count).sum())
+                .await().indefinitely();
+        }
+        return results;
+    }
+}
\ No newline at end of file
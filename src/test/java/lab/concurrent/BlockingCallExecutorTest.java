@@ -0,0 +1,99 @@
+package lab.concurrent;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlockingCallExecutorTest {
+    
+    @Test
+    @DisplayName("Test no more calls than maxConcurrency run at once")
+    public void testConcurrencyCap() throws Exception {
+        try (BlockingCallExecutor executor = new BlockingCallExecutor("test", 3)) {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger peak = new AtomicInteger();
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                int value = i;
+                futures.add(executor.supply(() -> {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    sleep(5);
+                    running.decrementAndGet();
+                    return value;
+                }));
+            }
+            
+            int sum = 0;
+            for (CompletableFuture<Integer> future : futures) {
+                sum += future.get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(435, sum);
+            assertEquals(3, peak.get());
+            assertEquals(0, executor.activeCalls());
+        }
+    }
+    
+    @Test
+    @DisplayName("Test calls overlap up to the cap")
+    public void testOverlap() throws Exception {
+        try (BlockingCallExecutor executor = new BlockingCallExecutor("test", 4)) {
+            CountDownLatch allStarted = new CountDownLatch(4);
+            List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.supply(() -> {
+                    allStarted.countDown();
+                    try {
+                        return allStarted.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }));
+            }
+            
+            for (CompletableFuture<Boolean> future : futures) {
+                assertTrue(future.get(10, TimeUnit.SECONDS));
+            }
+        }
+    }
+    
+    @Test
+    @DisplayName("Test a failing call completes its future exceptionally and releases its permit")
+    public void testFailure() throws Exception {
+        try (BlockingCallExecutor executor = new BlockingCallExecutor("test", 1)) {
+            CompletableFuture<Object> failed = executor.supply(() -> {
+                throw new IllegalArgumentException("boom");
+            });
+            
+            ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, e.getCause());
+            assertEquals("ok", executor.supply(() -> "ok").get(10, TimeUnit.SECONDS));
+        }
+    }
+    
+    @Test
+    @DisplayName("Test calls submitted after close are rejected")
+    public void testClosed() {
+        BlockingCallExecutor executor = new BlockingCallExecutor("test", 2);
+        executor.close();
+        
+        assertTrue(executor.supply(() -> "late").isCompletedExceptionally());
+        assertThrows(IllegalArgumentException.class, () -> new BlockingCallExecutor("test", 0));
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,58 @@
+package lab.eclipselink;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import lab.eclipselink.entity.Shop;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Helpers shared by the EclipseLink tests running against a Testcontainers PostgreSQL.
+ */
+public final class EclipseLinkTestSupport {
+    
+    private EclipseLinkTestSupport() {
+    }
+    
+    /**
+     * Persistence properties pointing "eclipselink-pu" at the container, with SQL logging turned down
+     * so that large data sets do not flood the test output.
+     */
+    public static Map<String, Object> properties(PostgreSQLContainer<?> postgres) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("jakarta.persistence.jdbc.driver", "org.postgresql.Driver");
+        String url = postgres.getJdbcUrl();
+        properties.put("jakarta.persistence.jdbc.url", url + (url.contains("?") ? "&" : "?") + "reWriteBatchedInserts=true");
+        properties.put("jakarta.persistence.jdbc.user", postgres.getUsername());
+        properties.put("jakarta.persistence.jdbc.password", postgres.getPassword());
+        properties.put("eclipselink.target-database", "PostgreSQL");
+        properties.put("eclipselink.ddl-generation", "drop-and-create-tables");
+        properties.put("eclipselink.ddl-generation.output-mode", "database");
+        properties.put("eclipselink.logging.level", "WARNING");
+        properties.put("eclipselink.logging.level.sql", "WARNING");
+        properties.put("eclipselink.logging.level.cache", "WARNING");
+        return properties;
+    }
+    
+    public static EntityManagerFactory createEntityManagerFactory(PostgreSQLContainer<?> postgres) {
+        return Persistence.createEntityManagerFactory("eclipselink-pu", properties(postgres));
+    }
+    
+    /**
+     * Generates transient shops spread over a few cities and categories
+     */
+    public static List<Shop> generateShops(int count, String prefix) {
+        String[] cities = {"Paris", "Lyon", "Marseille", "Lille", "Nantes"};
+        String[] categories = {"Electronics", "Books", "Food", "Clothing"};
+        List<Shop> shops = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            shops.add(new Shop(prefix + " Shop " + i, i + " Main St", cities[i % cities.length],
+                "555-" + (1000 + i % 9000), categories[i % categories.length]));
+        }
+        return shops;
+    }
+}
@@ -0,0 +1,93 @@
+package lab.eclipselink;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Startup time, retained heap and PostgreSQL connections of one shared "eclipselink-pu"
+ * factory against the two factories previously created by ShopRepository and DualOrmCacheManager.
+ */
+@Tag("benchmark")
+@Testcontainers
+public class EntityManagerFactoryFootprintBenchmarkTest {
+    
+    private static final Logger LOG = Logger.getLogger(EntityManagerFactoryFootprintBenchmarkTest.class);
+    
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+    
+    @Test
+    @DisplayName("Benchmark one shared EntityManagerFactory vs one per component")
+    public void benchmarkSharedFactory() throws SQLException {
+        Footprint shared = measure(1);
+        Footprint perComponent = measure(2);
+        
+        LOG.infof("1 EMF: startup %d ms, heap %d KB, %d connections",
+            shared.startupMillis, shared.heapKb, shared.connections);
+        LOG.infof("2 EMFs: startup %d ms, heap %d KB, %d connections",
+            perComponent.startupMillis, perComponent.heapKb, perComponent.connections);
+        assertTrue(shared.connections < perComponent.connections);
+    }
+    
+    private Footprint measure(int factories) throws SQLException {
+        long heapBefore = usedHeapAfterGc();
+        long start = System.nanoTime();
+        List<EntityManagerFactory> emfs = new ArrayList<>();
+        try {
+            for (int i = 0; i < factories; i++) {
+                EntityManagerFactory emf = Persistence.createEntityManagerFactory("eclipselink-pu",
+                    EclipseLinkTestSupport.properties(postgres));
+                emf.createEntityManager().close();
+                emfs.add(emf);
+            }
+            Footprint footprint = new Footprint();
+            footprint.startupMillis = (System.nanoTime() - start) / 1_000_000;
+            footprint.heapKb = (usedHeapAfterGc() - heapBefore) / 1024;
+            footprint.connections = countConnections();
+            return footprint;
+        } finally {
+            emfs.forEach(EntityManagerFactory::close);
+        }
+    }
+    
+    private static long usedHeapAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+    
+    private static int countConnections() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+             ResultSet rs = connection.createStatement().executeQuery(
+                "SELECT count(*) FROM pg_stat_activity WHERE datname = current_database() AND pid <> pg_backend_pid()")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+    
+    private static class Footprint {
+        long startupMillis;
+        long heapKb;
+        int connections;
+    }
+}
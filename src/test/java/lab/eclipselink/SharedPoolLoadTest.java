@@ -0,0 +1,201 @@
+package lab.eclipselink;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import lab.eclipselink.entity.Shop;
+import lab.eclipselink.repository.ShopRepository;
+import lab.quarkus.entity.Gift;
+import lab.quarkus.service.GiftService;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Mixed shop/gift traffic with EclipseLink on the shared Agroal pool (the application setup) and on
+ * a pool of its own (the previous persistence.xml: initial 2, max 10). Reports the peak number of
+ * server connections (pg_stat_activity) and the p99 latency of each run.
+ * Run with: ./mvnw test -Pbenchmark -Dbenchmark.clients=32
+ */
+@QuarkusTest
+@Tag("benchmark")
+public class SharedPoolLoadTest {
+    
+    private static final Logger LOG = Logger.getLogger(SharedPoolLoadTest.class);
+    
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 24);
+    
+    private static final int OPS_PER_CLIENT = Integer.getInteger("benchmark.ops", 400);
+    
+    private static final String[] CATEGORIES = {"Electronics", "Books", "Food", "Clothing"};
+    
+    @Inject
+    ShopRepository shopRepository;
+    
+    @Inject
+    GiftService giftService;
+    
+    @Inject
+    EntityManager em;
+    
+    @ConfigProperty(name = "quarkus.datasource.jdbc.url")
+    String url;
+    
+    @ConfigProperty(name = "quarkus.datasource.username")
+    String username;
+    
+    @ConfigProperty(name = "quarkus.datasource.password")
+    String password;
+    
+    @ConfigProperty(name = "quarkus.datasource.jdbc.max-size")
+    int maxPoolSize;
+    
+    @AfterEach
+    public void tearDown() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            em.createNativeQuery("DELETE FROM gifts WHERE description = 'Load'").executeUpdate();
+            em.createNativeQuery("DELETE FROM shops WHERE name LIKE 'Load Shop %'").executeUpdate();
+        });
+    }
+    
+    @Test
+    @DisplayName("Benchmark mixed traffic on one shared pool vs two pools")
+    public void benchmarkSharedPool() throws Exception {
+        List<Long> shopIds = shopRepository.saveAll(EclipseLinkTestSupport.generateShops(1000, "Load")).stream()
+            .map(Shop::getId).collect(Collectors.toList());
+        List<Long> giftIds = QuarkusTransaction.requiringNew().call(() -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                Gift gift = giftService.create(new Gift("Load Gift " + i, "Load", (double) (i % 100), CATEGORIES[i % CATEGORIES.length]));
+                ids.add(gift.id);
+            }
+            return ids;
+        });
+        
+        Map<String, Object> ownPool = new HashMap<>();
+        ownPool.put("jakarta.persistence.jdbc.driver", "org.postgresql.Driver");
+        ownPool.put("jakarta.persistence.jdbc.url", url);
+        ownPool.put("jakarta.persistence.jdbc.user", username);
+        ownPool.put("jakarta.persistence.jdbc.password", password);
+        ownPool.put("eclipselink.connection-pool.default.initial", "2");
+        ownPool.put("eclipselink.connection-pool.default.min", "2");
+        ownPool.put("eclipselink.connection-pool.default.max", "10");
+        ownPool.put("eclipselink.ddl-generation", "none");
+        ownPool.put("eclipselink.logging.level", "WARNING");
+        ownPool.put("eclipselink.logging.level.sql", "WARNING");
+        EntityManagerFactory separateEmf = Persistence.createEntityManagerFactory("eclipselink-pu", ownPool);
+        Result separate;
+        try {
+            separate = run(new ShopRepository(separateEmf), shopIds, giftIds);
+        } finally {
+            separateEmf.close();
+        }
+        Result shared = run(shopRepository, shopIds, giftIds);
+        
+        LOG.infof("%d clients x %d ops, two pools: peak %d connections, p50 %.2f ms, p99 %.2f ms",
+            CLIENTS, OPS_PER_CLIENT, separate.peakConnections, separate.p50Millis, separate.p99Millis);
+        LOG.infof("%d clients x %d ops, shared pool: peak %d connections, p50 %.2f ms, p99 %.2f ms",
+            CLIENTS, OPS_PER_CLIENT, shared.peakConnections, shared.p50Millis, shared.p99Millis);
+        assertTrue(shared.peakConnections <= maxPoolSize, "Shared pool opened " + shared.peakConnections + " connections");
+    }
+    
+    static class Result {
+        int peakConnections;
+        double p50Millis;
+        double p99Millis;
+    }
+    
+    /**
+     * Each client alternates shop reads, shop updates, gift reads and gift updates
+     */
+    private Result run(ShopRepository shops, List<Long> shopIds, List<Long> giftIds) throws Exception {
+        long[] latencies = new long[CLIENTS * OPS_PER_CLIENT];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread monitor = new Thread(() -> {
+            try (Connection connection = DriverManager.getConnection(url, username, password);
+                 Statement statement = connection.createStatement()) {
+                while (running.get()) {
+                    try (ResultSet rs = statement.executeQuery("SELECT count(*) FROM pg_stat_activity "
+                            + "WHERE datname = current_database() AND backend_type = 'client backend' AND pid <> pg_backend_pid()")) {
+                        rs.next();
+                        peak.accumulateAndGet(rs.getInt(1), Math::max);
+                    }
+                    Thread.sleep(10);
+                }
+            } catch (SQLException | InterruptedException e) {
+                LOG.warn("Connection monitor stopped", e);
+            }
+        }, "connection-monitor");
+        monitor.start();
+        
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                futures.add(clients.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < OPS_PER_CLIENT; i++) {
+                        long start = System.nanoTime();
+                        Long shopId = shopIds.get(random.nextInt(shopIds.size()));
+                        Long giftId = giftIds.get(random.nextInt(giftIds.size()));
+                        switch (i % 4) {
+                            case 0 -> shops.findById(shopId);
+                            case 1 -> {
+                                Shop values = shops.findById(shopId).orElseThrow();
+                                values.setPhone("555-" + random.nextInt(10_000));
+                                shops.update(shopId, values);
+                            }
+                            case 2 -> QuarkusTransaction.requiringNew().call(() ->
+                                giftService.findByCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]));
+                            default -> giftService.update(giftId,
+                                new Gift("Load Gift " + giftId, "Load", (double) random.nextInt(100), CATEGORIES[0]));
+                        }
+                        latencies[next.getAndIncrement()] = System.nanoTime() - start;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            clients.shutdown();
+            running.set(false);
+            monitor.join();
+        }
+        
+        Arrays.sort(latencies);
+        Result result = new Result();
+        result.peakConnections = peak.get();
+        result.p50Millis = latencies[latencies.length / 2] / 1_000_000.0;
+        result.p99Millis = latencies[(int) (latencies.length * 0.99)] / 1_000_000.0;
+        return result;
+    }
+}
\ No newline at end of file
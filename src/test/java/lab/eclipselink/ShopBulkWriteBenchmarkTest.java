@@ -0,0 +1,110 @@
+package lab.eclipselink;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lab.eclipselink.entity.Shop;
+import lab.eclipselink.repository.ShopRepository;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rows/sec of the per-shop save()/deleteById() path against the chunked, batch-written
+ * saveAll()/deleteAllById() path. Run with: ./mvnw test -Pbenchmark -Dbenchmark.shops=200000
+ */
+@Tag("benchmark")
+@Testcontainers
+public class ShopBulkWriteBenchmarkTest {
+    
+    private static final Logger LOG = Logger.getLogger(ShopBulkWriteBenchmarkTest.class);
+    
+    private static final int ROWS = Integer.getInteger("benchmark.shops", 20_000);
+    
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+    
+    private EntityManagerFactory emf;
+    private ShopRepository shopRepository;
+    
+    @BeforeEach
+    public void setUp() {
+        emf = EclipseLinkTestSupport.createEntityManagerFactory(postgres);
+        shopRepository = new ShopRepository(emf);
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        if (emf != null) {
+            emf.close();
+        }
+    }
+    
+    @Test
+    @DisplayName("Benchmark save() loop vs saveAll() with JDBC batch writing")
+    public void benchmarkInserts() {
+        List<Shop> singleShops = EclipseLinkTestSupport.generateShops(ROWS, "Single");
+        long start = System.nanoTime();
+        singleShops.forEach(shopRepository::save);
+        double singleRate = rowsPerSecond(ROWS, System.nanoTime() - start);
+        
+        List<Shop> bulkShops = EclipseLinkTestSupport.generateShops(ROWS, "Bulk");
+        start = System.nanoTime();
+        shopRepository.saveAll(bulkShops);
+        double bulkRate = rowsPerSecond(ROWS, System.nanoTime() - start);
+        
+        LOG.infof("Insert %d shops: save() loop %.0f rows/s, saveAll() %.0f rows/s (x%.1f)",
+            ROWS, singleRate, bulkRate, bulkRate / singleRate);
+        assertEquals(2L * ROWS, countShops());
+    }
+    
+    @Test
+    @DisplayName("Benchmark deleteById() loop vs deleteAllById()")
+    public void benchmarkDeletes() {
+        List<Long> singleIds = ids(shopRepository.saveAll(EclipseLinkTestSupport.generateShops(ROWS, "Single")));
+        List<Long> bulkIds = ids(shopRepository.saveAll(EclipseLinkTestSupport.generateShops(ROWS, "Bulk")));
+        
+        long start = System.nanoTime();
+        singleIds.forEach(shopRepository::deleteById);
+        double singleRate = rowsPerSecond(ROWS, System.nanoTime() - start);
+        
+        start = System.nanoTime();
+        int deleted = shopRepository.deleteAllById(bulkIds);
+        double bulkRate = rowsPerSecond(ROWS, System.nanoTime() - start);
+        
+        LOG.infof("Delete %d shops: deleteById() loop %.0f rows/s, deleteAllById() %.0f rows/s (x%.1f)",
+            ROWS, singleRate, bulkRate, bulkRate / singleRate);
+        assertEquals(ROWS, deleted);
+        assertEquals(0L, countShops());
+    }
+    
+    private long countShops() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.createQuery("SELECT COUNT(s) FROM Shop s", Long.class).getSingleResult();
+        } finally {
+            em.close();
+        }
+    }
+    
+    private static List<Long> ids(List<Shop> shops) {
+        return shops.stream().map(Shop::getId).collect(Collectors.toList());
+    }
+    
+    private static double rowsPerSecond(int rows, long elapsedNanos) {
+        return rows / (elapsedNanos / 1_000_000_000.0);
+    }
+}
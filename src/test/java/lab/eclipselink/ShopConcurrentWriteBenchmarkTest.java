@@ -0,0 +1,169 @@
+package lab.eclipselink;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.RollbackException;
+import lab.eclipselink.entity.Shop;
+import lab.eclipselink.repository.ShopPatch;
+import lab.eclipselink.repository.ShopRepository;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrent writers on a small set of shops: the previous update path (findById, then save()
+ * merging in a second EntityManager) against patch(), and find-then-delete against deleteById().
+ * Run with: ./mvnw test -Pbenchmark -Dbenchmark.writers=16
+ */
+@Tag("benchmark")
+@Testcontainers
+public class ShopConcurrentWriteBenchmarkTest {
+    
+    private static final Logger LOG = Logger.getLogger(ShopConcurrentWriteBenchmarkTest.class);
+    
+    private static final int WRITERS = Integer.getInteger("benchmark.writers", 8);
+    
+    private static final int UPDATES_PER_WRITER = Integer.getInteger("benchmark.updates", 500);
+    
+    private static final int HOT_SHOPS = 50;
+    
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+    
+    private EntityManagerFactory emf;
+    private ShopRepository shopRepository;
+    
+    @BeforeEach
+    public void setUp() {
+        emf = EclipseLinkTestSupport.createEntityManagerFactory(postgres);
+        shopRepository = new ShopRepository(emf);
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        if (emf != null) {
+            emf.close();
+        }
+    }
+    
+    @Test
+    @DisplayName("Benchmark find + merge vs versioned patch under concurrent writers")
+    public void benchmarkUpdates() throws Exception {
+        List<Long> ids = ids(shopRepository.saveAll(EclipseLinkTestSupport.generateShops(HOT_SHOPS, "Hot")));
+        
+        AtomicLong mergeRetries = new AtomicLong();
+        double mergeRate = run(() -> {
+            Long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+            while (true) {
+                Shop shop = shopRepository.findById(id).orElseThrow();
+                shop.setPhone("555-" + ThreadLocalRandom.current().nextInt(10_000));
+                try {
+                    shopRepository.save(shop);
+                    return;
+                } catch (RollbackException | OptimisticLockException e) {
+                    mergeRetries.incrementAndGet();
+                }
+            }
+        });
+        
+        AtomicLong patchRetries = new AtomicLong();
+        double patchRate = run(() -> {
+            Long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+            while (true) {
+                // Callers normally hold the version from an earlier read; here it comes from the shared cache
+                long version = shopRepository.findById(id).orElseThrow().getVersion();
+                try {
+                    shopRepository.patch(id, version,
+                        ShopPatch.empty().withPhone("555-" + ThreadLocalRandom.current().nextInt(10_000)));
+                    return;
+                } catch (OptimisticLockException e) {
+                    patchRetries.incrementAndGet();
+                }
+            }
+        });
+        
+        LOG.infof("%d writers x %d updates on %d shops: find+merge %.0f updates/s (%d retries), patch %.0f updates/s (%d retries)",
+            WRITERS, UPDATES_PER_WRITER, HOT_SHOPS, mergeRate, mergeRetries.get(), patchRate, patchRetries.get());
+        assertTrue(patchRate > 0);
+    }
+    
+    @Test
+    @DisplayName("Benchmark find + remove vs deleteById under concurrent writers")
+    public void benchmarkDeletes() throws Exception {
+        int perWriter = UPDATES_PER_WRITER / 5;
+        List<Long> loadedIds = ids(shopRepository.saveAll(EclipseLinkTestSupport.generateShops(WRITERS * perWriter, "Find")));
+        List<Long> directIds = ids(shopRepository.saveAll(EclipseLinkTestSupport.generateShops(WRITERS * perWriter, "Direct")));
+        AtomicLong loadedNext = new AtomicLong();
+        AtomicLong directNext = new AtomicLong();
+        
+        double findRemoveRate = run(perWriter, () -> {
+            Long id = loadedIds.get((int) loadedNext.getAndIncrement());
+            shopRepository.findById(id).orElseThrow();
+            EntityManager em = emf.createEntityManager();
+            try {
+                em.getTransaction().begin();
+                em.remove(em.find(Shop.class, id));
+                em.getTransaction().commit();
+            } finally {
+                em.close();
+            }
+        });
+        double deleteRate = run(perWriter, () -> shopRepository.deleteById(directIds.get((int) directNext.getAndIncrement())));
+        
+        LOG.infof("%d writers: find+remove %.0f deletes/s, deleteById %.0f deletes/s", WRITERS, findRemoveRate, deleteRate);
+        assertTrue(shopRepository.findAll().isEmpty());
+    }
+    
+    private double run(Runnable operation) throws Exception {
+        return run(UPDATES_PER_WRITER, operation);
+    }
+    
+    /**
+     * Runs the operation opsPerWriter times on each writer thread, returns operations per second
+     */
+    private static double run(int opsPerWriter, Runnable operation) throws Exception {
+        ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                futures.add(writers.submit(() -> {
+                    for (int i = 0; i < opsPerWriter; i++) {
+                        operation.run();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return (double) WRITERS * opsPerWriter / ((System.nanoTime() - start) / 1_000_000_000.0);
+        } finally {
+            writers.shutdown();
+        }
+    }
+    
+    private static List<Long> ids(List<Shop> shops) {
+        return shops.stream().map(Shop::getId).collect(Collectors.toList());
+    }
+}
\ No newline at end of file
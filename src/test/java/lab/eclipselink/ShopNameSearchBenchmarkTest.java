@@ -0,0 +1,113 @@
+package lab.eclipselink;
+
+import jakarta.persistence.EntityManagerFactory;
+import lab.eclipselink.entity.Shop;
+import lab.eclipselink.repository.ShopRepository;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * findByNameContaining latency with a LIKE '%x%' query against the in-memory trigram index,
+ * and the heap taken by the index. Run with: ./mvnw test -Pbenchmark -Dbenchmark.catalog.shops=1000000
+ */
+@Tag("benchmark")
+@Testcontainers
+public class ShopNameSearchBenchmarkTest {
+    
+    private static final Logger LOG = Logger.getLogger(ShopNameSearchBenchmarkTest.class);
+    
+    private static final int SHOPS = Integer.getInteger("benchmark.catalog.shops", 1_000_000);
+    
+    private static final int SEARCHES = 200;
+    
+    private static final String[] NEEDLES = {"Shop 4242", "Catalog Shop 9", "Shop 12345", "p 77", "31337"};
+    
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+    
+    private static EntityManagerFactory emf;
+    private static ShopRepository shopRepository;
+    
+    @BeforeAll
+    public static void setUp() {
+        emf = EclipseLinkTestSupport.createEntityManagerFactory(postgres);
+        shopRepository = new ShopRepository(emf);
+        for (int loaded = 0; loaded < SHOPS; loaded += 100_000) {
+            List<Shop> shops = EclipseLinkTestSupport.generateShops(Math.min(100_000, SHOPS - loaded), "Catalog");
+            for (int i = 0; i < shops.size(); i++) {
+                shops.get(i).setName("Catalog Shop " + (loaded + i));
+            }
+            shopRepository.saveAll(shops);
+        }
+    }
+    
+    @AfterAll
+    public static void tearDown() {
+        if (emf != null) {
+            emf.close();
+        }
+    }
+    
+    @Test
+    @DisplayName("Benchmark LIKE query vs trigram index for substring search")
+    public void benchmarkNameSearch() {
+        long[] likeNanos = searchLatencies();
+        int[] likeCounts = resultCounts();
+        
+        Runtime runtime = Runtime.getRuntime();
+        long heapBefore = usedHeap(runtime);
+        long start = System.nanoTime();
+        shopRepository.rebuildNameIndex();
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        long indexBytes = usedHeap(runtime) - heapBefore;
+        
+        long[] indexNanos = searchLatencies();
+        
+        LOG.infof("Trigram index over %d shops: built in %d ms, ~%d MB of heap",
+            shopRepository.nameIndexSize(), buildMillis, indexBytes / (1024 * 1024));
+        LOG.infof("LIKE query: p50 %.2f ms, p99 %.2f ms", percentile(likeNanos, 50), percentile(likeNanos, 99));
+        LOG.infof("Trigram index: p50 %.2f ms, p99 %.2f ms", percentile(indexNanos, 50), percentile(indexNanos, 99));
+        assertEquals(SHOPS, shopRepository.nameIndexSize());
+        assertArrayEquals(likeCounts, resultCounts());
+    }
+    
+    private static long[] searchLatencies() {
+        long[] nanos = new long[SEARCHES];
+        for (int i = 0; i < SEARCHES; i++) {
+            long start = System.nanoTime();
+            shopRepository.findByNameContaining(NEEDLES[i % NEEDLES.length]);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+    
+    private static int[] resultCounts() {
+        return Arrays.stream(NEEDLES).mapToInt(needle -> shopRepository.findByNameContaining(needle).size()).toArray();
+    }
+    
+    private static double percentile(long[] sortedNanos, int percentile) {
+        int index = Math.min(sortedNanos.length - 1, sortedNanos.length * percentile / 100);
+        return sortedNanos[index] / 1_000_000.0;
+    }
+    
+    private static long usedHeap(Runtime runtime) {
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,97 @@
+package lab.eclipselink;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import lab.eclipselink.entity.Shop;
+import lab.eclipselink.repository.ShopRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the per-call cost of a small keyset page: JPQL string passed to createQuery
+ * (the previous repository code) against the named query, with and without EclipseLink statement
+ * caching. Launched by {@link ShopQueryOverheadBenchmarkTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ShopQueryOverheadBenchmark {
+    
+    private static final int SHOPS = Integer.getInteger("benchmark.shops", 20_000);
+    
+    private static final String JPQL = "SELECT s FROM Shop s WHERE s.city = :city AND s.id > :lastSeenId ORDER BY s.id";
+    
+    @Param({"false", "true"})
+    public String cacheStatements;
+    
+    private PostgreSQLContainer<?> postgres;
+    private EntityManagerFactory emf;
+    private long minId;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+        postgres.start();
+        Map<String, Object> properties = EclipseLinkTestSupport.properties(postgres);
+        properties.put("eclipselink.jdbc.cache-statements", cacheStatements);
+        emf = Persistence.createEntityManagerFactory("eclipselink-pu", properties);
+        List<Shop> shops = new ShopRepository(emf).saveAll(EclipseLinkTestSupport.generateShops(SHOPS, "Query"));
+        minId = shops.get(0).getId();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        emf.close();
+        postgres.stop();
+    }
+    
+    @Benchmark
+    public List<Shop> dynamicQuery() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.createQuery(JPQL, Shop.class)
+                .setParameter("city", "Lyon")
+                .setParameter("lastSeenId", randomId())
+                .setMaxResults(10)
+                .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+    
+    @Benchmark
+    public List<Shop> namedQuery() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.createNamedQuery(Shop.FIND_BY_CITY_AFTER, Shop.class)
+                .setParameter("city", "Lyon")
+                .setParameter("lastSeenId", randomId())
+                .setMaxResults(10)
+                .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+    
+    private long randomId() {
+        return minId + ThreadLocalRandom.current().nextInt(SHOPS - 100);
+    }
+}
\ No newline at end of file
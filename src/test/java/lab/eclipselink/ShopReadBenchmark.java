@@ -0,0 +1,75 @@
+package lab.eclipselink;
+
+import jakarta.persistence.EntityManagerFactory;
+import lab.eclipselink.entity.Shop;
+import lab.eclipselink.repository.ShopRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the managed finders against their read-only (non-tracking) variants.
+ * Launched by {@link ShopReadBenchmarkTest}; allocation per call is reported by the GC profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ShopReadBenchmark {
+    
+    private static final int SHOPS = Integer.getInteger("benchmark.shops", 20_000);
+    
+    private PostgreSQLContainer<?> postgres;
+    private EntityManagerFactory emf;
+    private ShopRepository shopRepository;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+        postgres.start();
+        emf = EclipseLinkTestSupport.createEntityManagerFactory(postgres);
+        shopRepository = new ShopRepository(emf);
+        shopRepository.saveAll(EclipseLinkTestSupport.generateShops(SHOPS, "Read"));
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        emf.close();
+        postgres.stop();
+    }
+    
+    @Benchmark
+    public List<Shop> findAllManaged() {
+        return shopRepository.findAll();
+    }
+    
+    @Benchmark
+    public List<Shop> findAllReadOnly() {
+        return shopRepository.readOnly().findAll();
+    }
+    
+    @Benchmark
+    public List<Shop> findByCategoryManaged() {
+        // Measure the query itself, not the query-result cache
+        shopRepository.clearQueryCache();
+        return shopRepository.findByCategory("Books");
+    }
+    
+    @Benchmark
+    public List<Shop> findByCategoryReadOnly() {
+        shopRepository.clearQueryCache();
+        return shopRepository.readOnly().findByCategory("Books");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+package lab.eclipselink;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link ShopReadBenchmark}: latency (us/op) and allocation (gc.alloc.rate.norm, B/op) of
+ * findAll / findByCategory, managed vs read-only. Run with: ./mvnw test -Pbenchmark -Dtest=ShopReadBenchmarkTest
+ */
+@Tag("benchmark")
+public class ShopReadBenchmarkTest {
+    
+    @Test
+    @DisplayName("JMH: managed vs read-only finders")
+    public void runBenchmark() throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(ShopReadBenchmark.class.getName())
+            // Forked JVMs would not see Surefire's test classpath
+            .forks(0)
+            .warmupIterations(3)
+            .warmupTime(TimeValue.seconds(2))
+            .measurementIterations(5)
+            .measurementTime(TimeValue.seconds(2))
+            .addProfiler(GCProfiler.class)
+            .build();
+        
+        Collection<RunResult> results = new Runner(options).run();
+        
+        assertEquals(4, results.size());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,140 @@
+package lab.eclipselink;
+
+import com.arjuna.ats.jta.TransactionManager;
+import io.agroal.api.AgroalDataSource;
+import io.agroal.api.configuration.supplier.AgroalDataSourceConfigurationSupplier;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import lab.eclipselink.entity.Shop;
+import lab.eclipselink.repository.ShopRepository;
+import lab.routing.ReadRouter;
+import org.eclipse.persistence.config.PersistenceUnitProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Replica routing of the shop finders, on two in-memory H2 databases standing in for the primary
+ * and the replica. Each holds a different shop, so the shops returned tell which one served a read.
+ * The EclipseLink session runs on the primary's pool through ResourceLocalDataSource, as in the
+ * application, with the replica's pool for the routed reads.
+ */
+public class ShopReplicaRoutingTest {
+    
+    private static final String H2_PLATFORM = "org.eclipse.persistence.platform.database.H2Platform";
+    
+    private AgroalDataSource primary;
+    private AgroalDataSource replica;
+    private EntityManagerFactory emf;
+    private ReadRouter router;
+    private ShopRepository repository;
+    
+    @BeforeEach
+    public void setUp() throws SQLException {
+        String primaryUrl = seed("primary", "Primary Shop");
+        String replicaUrl = seed("replica", "Replica Shop");
+        primary = pool(primaryUrl);
+        replica = pool(replicaUrl);
+        // The replica is assumed behind for a minute after a write: H2 has no WAL position to compare
+        router = new ReadRouter(primary, replica, Duration.ofMinutes(1));
+        
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PersistenceUnitProperties.NON_JTA_DATASOURCE,
+            new ResourceLocalDataSource(primary, replica, TransactionManager.transactionManager()));
+        properties.put("eclipselink.target-database", H2_PLATFORM);
+        properties.put("eclipselink.ddl-generation", "none");
+        properties.put("eclipselink.logging.level", "WARNING");
+        properties.put("eclipselink.logging.level.sql", "WARNING");
+        properties.put("eclipselink.logging.level.cache", "WARNING");
+        emf = Persistence.createEntityManagerFactory(EclipseLinkEntityManagerFactoryProducer.PERSISTENCE_UNIT, properties);
+        repository = new ShopRepository(emf, 1000, Duration.ofMinutes(10), router);
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        emf.close();
+        primary.close();
+        replica.close();
+    }
+    
+    @Test
+    @DisplayName("Test a replica read finder is served by the replica")
+    public void testReplicaRead() {
+        assertEquals(List.of("Replica Shop"), names(router.replicaRead(repository::findAll)));
+        // Without the replica read scope, the same finder reads the primary
+        assertEquals(List.of("Primary Shop"), names(repository.findAll()));
+    }
+    
+    @Test
+    @DisplayName("Test the same finder is served by the primary after a write of the request")
+    public void testReadYourWrites() {
+        assertEquals(List.of("Replica Shop"), names(router.replicaRead(repository::findAll)));
+        
+        repository.save(new Shop("New Shop", "1 Main St", "Paris", "555-1000", "Books"));
+        
+        assertEquals(List.of("New Shop", "Primary Shop"), names(router.replicaRead(repository::findAll)));
+    }
+    
+    @Test
+    @DisplayName("Test an async read after a write keeps the caller's last write")
+    public void testAsyncReadYourWrites() throws Exception {
+        assertEquals(List.of("Replica Shop"), names(async(() -> router.replicaRead(repository::findAll))));
+        
+        repository.save(new Shop("New Shop", "1 Main St", "Paris", "555-1000", "Books"));
+        
+        assertEquals(List.of("New Shop", "Primary Shop"), names(async(() -> router.replicaRead(repository::findAll))));
+    }
+    
+    private List<Shop> async(Supplier<List<Shop>> read) throws Exception {
+        return CompletableFuture.supplyAsync(router.inheritWrites(read)).get(10, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Creates the schema of an in-memory database with one shop, and returns its URL
+     */
+    private static String seed(String database, String shopName) {
+        String url = "jdbc:h2:mem:routing-" + database + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("jakarta.persistence.jdbc.driver", "org.h2.Driver");
+        properties.put("jakarta.persistence.jdbc.url", url);
+        properties.put("eclipselink.target-database", H2_PLATFORM);
+        properties.put("eclipselink.logging.level", "WARNING");
+        properties.put("eclipselink.logging.level.sql", "WARNING");
+        EntityManagerFactory seedEmf = Persistence.createEntityManagerFactory(EclipseLinkEntityManagerFactoryProducer.PERSISTENCE_UNIT, properties);
+        try {
+            EntityManager em = seedEmf.createEntityManager();
+            em.getTransaction().begin();
+            em.persist(new Shop(shopName, "1 Main St", "Lyon", "555-0000", "Food"));
+            em.getTransaction().commit();
+            em.close();
+        } finally {
+            seedEmf.close();
+        }
+        return url;
+    }
+    
+    private static AgroalDataSource pool(String url) throws SQLException {
+        return AgroalDataSource.from(new AgroalDataSourceConfigurationSupplier()
+            .connectionPoolConfiguration(pool -> pool
+                .maxSize(5)
+                .connectionFactoryConfiguration(factory -> factory.jdbcUrl(url))));
+    }
+    
+    private static List<String> names(List<Shop> shops) {
+        return shops.stream().map(Shop::getName).sorted().collect(Collectors.toList());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,302 @@
+package lab.eclipselink;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.OptimisticLockException;
+import lab.eclipselink.entity.Shop;
+import lab.eclipselink.repository.ShopPatch;
+import lab.eclipselink.repository.ShopRepository;
+import org.eclipse.persistence.descriptors.ClassDescriptor;
+import org.eclipse.persistence.descriptors.changetracking.AttributeChangeTrackingPolicy;
+import org.eclipse.persistence.jpa.JpaHelper;
+import org.eclipse.persistence.sessions.UnitOfWork;
+import org.eclipse.persistence.sessions.changesets.ObjectChangeSet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+public class ShopRepositoryTest {
+    
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+    
+    private EntityManagerFactory emf;
+    private ShopRepository shopRepository;
+    
+    @BeforeEach
+    public void setUp() {
+        emf = EclipseLinkTestSupport.createEntityManagerFactory(postgres);
+        shopRepository = new ShopRepository(emf);
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        if (emf != null) {
+            emf.close();
+        }
+    }
+    
+    @Test
+    @DisplayName("Test saveAll persists every shop across several chunks")
+    public void testSaveAllInChunks() {
+        List<Shop> saved = shopRepository.saveAll(EclipseLinkTestSupport.generateShops(250, "Bulk"), 100);
+        
+        assertEquals(250, saved.size());
+        assertTrue(saved.stream().allMatch(shop -> shop.getId() != null));
+        assertEquals(250, saved.stream().map(Shop::getId).distinct().count());
+        assertEquals(250, shopRepository.findAll().size());
+    }
+    
+    @Test
+    @DisplayName("Test saveAll merges shops that already have an id")
+    public void testSaveAllMergesExistingShops() {
+        List<Shop> saved = shopRepository.saveAll(EclipseLinkTestSupport.generateShops(3, "Merge"));
+        saved.forEach(shop -> shop.setCity("Bordeaux"));
+        
+        shopRepository.saveAll(saved);
+        
+        assertEquals(3, shopRepository.findByCity("Bordeaux").size());
+    }
+    
+    @Test
+    @DisplayName("Test deleteAllById removes only the given shops")
+    public void testDeleteAllById() {
+        List<Shop> saved = shopRepository.saveAll(EclipseLinkTestSupport.generateShops(10, "Delete"));
+        List<Long> toDelete = saved.subList(0, 7).stream().map(Shop::getId).collect(Collectors.toList());
+        
+        int deleted = shopRepository.deleteAllById(toDelete, 3);
+        
+        assertEquals(7, deleted);
+        assertEquals(3, shopRepository.findAll().size());
+        assertTrue(shopRepository.findById(toDelete.get(0)).isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Test bulk methods reject a non-positive chunk size")
+    public void testInvalidChunkSize() {
+        assertThrows(IllegalArgumentException.class, () -> shopRepository.saveAll(List.of(), 0));
+        assertThrows(IllegalArgumentException.class, () -> shopRepository.deleteAllById(List.of(), -1));
+    }
+    
+    @Test
+    @DisplayName("Test keyset pagination walks every shop once in id order")
+    public void testKeysetPagination() {
+        List<Long> expectedIds = shopRepository.saveAll(EclipseLinkTestSupport.generateShops(23, "Page")).stream()
+            .map(Shop::getId).sorted().collect(Collectors.toList());
+        
+        List<Long> pagedIds = new ArrayList<>();
+        Long lastSeenId = null;
+        List<Shop> page;
+        do {
+            page = shopRepository.findAllAfter(lastSeenId, 5);
+            assertTrue(page.size() <= 5);
+            page.forEach(shop -> pagedIds.add(shop.getId()));
+            lastSeenId = page.isEmpty() ? lastSeenId : page.get(page.size() - 1).getId();
+        } while (!page.isEmpty());
+        
+        assertEquals(expectedIds, pagedIds);
+    }
+    
+    @Test
+    @DisplayName("Test keyset pagination filtered by city")
+    public void testKeysetPaginationByCity() {
+        shopRepository.saveAll(EclipseLinkTestSupport.generateShops(20, "City"));
+        
+        List<Shop> firstPage = shopRepository.findByCityAfter("Paris", null, 3);
+        List<Shop> secondPage = shopRepository.findByCityAfter("Paris", firstPage.get(2).getId(), 3);
+        
+        assertEquals(3, firstPage.size());
+        assertEquals(1, secondPage.size());
+        assertTrue(Stream.concat(firstPage.stream(), secondPage.stream())
+            .allMatch(shop -> "Paris".equals(shop.getCity())));
+    }
+    
+    @Test
+    @DisplayName("Test cursor streaming returns every matching shop")
+    public void testStreaming() {
+        shopRepository.saveAll(EclipseLinkTestSupport.generateShops(40, "Stream"));
+        
+        try (Stream<Shop> shops = shopRepository.streamAll(7)) {
+            assertEquals(40, shops.count());
+        }
+        try (Stream<Shop> shops = shopRepository.streamByCategory("Books", 3)) {
+            List<Shop> books = shops.collect(Collectors.toList());
+            assertEquals(10, books.size());
+            assertTrue(books.stream().allMatch(shop -> "Books".equals(shop.getCategory())));
+        }
+    }
+    
+    @Test
+    @DisplayName("Test name search gives the same shops with the index cold and built, and follows writes")
+    public void testNameIndex() {
+        List<Shop> saved = shopRepository.saveAll(EclipseLinkTestSupport.generateShops(30, "Index"));
+        List<Long> likeIds = ids(shopRepository.findByNameContaining("Shop 1"));
+        assertFalse(shopRepository.isNameIndexReady());
+        
+        shopRepository.rebuildNameIndex();
+        
+        assertTrue(shopRepository.isNameIndexReady());
+        assertEquals(30, shopRepository.nameIndexSize());
+        assertEquals(likeIds, ids(shopRepository.findByNameContaining("Shop 1")));
+        
+        Shop renamed = saved.get(0);
+        renamed.setName("Renamed Boutique");
+        shopRepository.save(renamed);
+        shopRepository.deleteById(saved.get(1).getId());
+        shopRepository.deleteAllById(List.of(saved.get(10).getId()));
+        
+        assertEquals(List.of(renamed.getId()), ids(shopRepository.findByNameContaining("Boutique")));
+        assertTrue(shopRepository.findByNameContaining("Index Shop 0").isEmpty());
+        assertTrue(shopRepository.findByNameContaining("Index Shop 1").stream()
+            .noneMatch(shop -> shop.getId().equals(saved.get(1).getId()) || shop.getId().equals(saved.get(10).getId())));
+    }
+    
+    @Test
+    @DisplayName("Test findByCity / findByCategory results are cached and evicted by writes")
+    public void testQueryCache() {
+        List<Shop> saved = shopRepository.saveAll(EclipseLinkTestSupport.generateShops(20, "Cached"));
+        
+        assertEquals(4, shopRepository.findByCity("Paris").size());
+        List<Shop> cached = shopRepository.findByCity("Paris");
+        assertEquals(4, cached.size());
+        assertEquals(1, shopRepository.queryCacheStatistics().hitCount());
+        assertEquals(1, shopRepository.queryCacheStatistics().missCount());
+        
+        // Modifying a returned shop does not leak into the cache
+        cached.get(0).setCity("Nowhere");
+        assertEquals(4, shopRepository.findByCity("Paris").stream().filter(shop -> "Paris".equals(shop.getCity())).count());
+        
+        // Moving a shop evicts both the old and the new city
+        assertEquals(4, shopRepository.findByCity("Lyon").size());
+        Shop moved = saved.get(0);
+        moved.setCity("Lyon");
+        shopRepository.save(moved);
+        assertEquals(3, shopRepository.findByCity("Paris").size());
+        assertEquals(5, shopRepository.findByCity("Lyon").size());
+        
+        assertEquals(5, shopRepository.findByCategory("Books").size());
+        shopRepository.deleteAllById(List.of(saved.get(1).getId()));
+        assertEquals(4, shopRepository.findByCategory("Books").size());
+        
+        assertEquals(4, shopRepository.findByCity("Marseille").size());
+        shopRepository.deleteById(saved.get(2).getId());
+        assertEquals(3, shopRepository.findByCity("Marseille").size());
+    }
+    
+    @Test
+    @DisplayName("Test read-only finders return the shared cache instances with the same results")
+    public void testReadOnly() {
+        List<Shop> saved = shopRepository.saveAll(EclipseLinkTestSupport.generateShops(12, "ReadOnly"));
+        Long id = saved.get(0).getId();
+        
+        assertEquals(ids(shopRepository.findAll()), ids(shopRepository.readOnly().findAll()));
+        assertEquals(ids(shopRepository.findByCategory("Food")), ids(shopRepository.readOnly().findByCategory("Food")));
+        assertEquals(ids(shopRepository.findAllAfter(null, 5)), ids(shopRepository.readOnly().findAllAfter(null, 5)));
+        
+        assertSame(shopRepository.readOnly().findById(id).get(), shopRepository.readOnly().findById(id).get());
+        assertNotSame(shopRepository.findById(id).get(), shopRepository.findById(id).get());
+        try (Stream<Shop> shops = shopRepository.readOnly().streamByCity("Paris")) {
+            assertEquals(3, shops.count());
+        }
+    }
+    
+    @Test
+    @DisplayName("Test woven Shop uses attribute change tracking, so a merge only records the changed column")
+    public void testAttributeChangeTracking() {
+        ClassDescriptor descriptor = JpaHelper.getServerSession(emf).getDescriptor(Shop.class);
+        assertInstanceOf(AttributeChangeTrackingPolicy.class, descriptor.getObjectChangePolicy());
+        
+        Shop detached = shopRepository.save(new Shop("Tracked", "1 Main St", "Paris", "555-0001", "Books"));
+        detached.setPhone("555-0002");
+        
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            Shop managed = em.merge(detached);
+            ObjectChangeSet changes = em.unwrap(UnitOfWork.class).getCurrentChanges().getObjectChangeSetForClone(managed);
+            assertEquals(List.of("phone"), changes.getChangedAttributeNames());
+            em.getTransaction().rollback();
+        } finally {
+            em.close();
+        }
+    }
+    
+    @Test
+    @DisplayName("Test every finder is a named query registered with the session")
+    public void testNamedQueries() {
+        for (String name : Shop.NAMED_QUERIES) {
+            assertNotNull(JpaHelper.getServerSession(emf).getQuery(name), name);
+        }
+        
+        EntityManager em = emf.createEntityManager();
+        try {
+            assertThrows(IllegalArgumentException.class, () -> em.createNamedQuery("Shop.missing"));
+        } finally {
+            em.close();
+        }
+    }
+    
+    @Test
+    @DisplayName("Test patch updates only the supplied fields and bumps the version")
+    public void testPatch() {
+        Shop shop = shopRepository.save(new Shop("Patched", "1 Main St", "Paris", "555-0001", "Books"));
+        long version = shop.getVersion();
+        
+        assertTrue(shopRepository.patch(shop.getId(), version, ShopPatch.empty().withCity("Lyon").withPhone("555-0002")));
+        
+        Shop patched = shopRepository.findById(shop.getId()).get();
+        assertEquals("Lyon", patched.getCity());
+        assertEquals("555-0002", patched.getPhone());
+        assertEquals("Patched", patched.getName());
+        assertEquals("1 Main St", patched.getAddress());
+        assertEquals(version + 1, patched.getVersion());
+    }
+    
+    @Test
+    @DisplayName("Test patch rejects a stale version and reports a missing shop")
+    public void testPatchConflicts() {
+        Shop shop = shopRepository.save(new Shop("Contended", "1 Main St", "Paris", "555-0001", "Books"));
+        long version = shop.getVersion();
+        assertTrue(shopRepository.patch(shop.getId(), version, ShopPatch.empty().withName("First writer")));
+        
+        assertThrows(OptimisticLockException.class,
+            () -> shopRepository.patch(shop.getId(), version, ShopPatch.empty().withName("Second writer")));
+        assertEquals("First writer", shopRepository.findById(shop.getId()).get().getName());
+        assertFalse(shopRepository.patch(-1L, 1, ShopPatch.empty().withName("Nobody")));
+        assertThrows(IllegalArgumentException.class, () -> shopRepository.patch(shop.getId(), version + 1, ShopPatch.empty()));
+    }
+    
+    @Test
+    @DisplayName("Test update in one transaction and delete without preliminary load")
+    public void testUpdateAndDelete() {
+        Shop shop = shopRepository.save(new Shop("Updated", "1 Main St", "Paris", "555-0001", "Books"));
+        
+        Shop values = new Shop("Updated", "2 Main St", "Lille", "555-0001", "Books");
+        assertEquals("Lille", shopRepository.update(shop.getId(), values).get().getCity());
+        assertTrue(shopRepository.update(-1L, values).isEmpty());
+        assertEquals(shop.getVersion() + 1, shopRepository.findById(shop.getId()).get().getVersion());
+        
+        assertTrue(shopRepository.deleteById(shop.getId()));
+        assertTrue(shopRepository.findById(shop.getId()).isEmpty());
+        assertFalse(shopRepository.deleteById(shop.getId()));
+    }
+    
+    private static List<Long> ids(List<Shop> shops) {
+        return shops.stream().map(Shop::getId).sorted().collect(Collectors.toList());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,37 @@
+package lab.eclipselink;
+
+import lab.eclipselink.entity.Shop;
+import org.eclipse.persistence.descriptors.changetracking.ChangeTracker;
+import org.eclipse.persistence.internal.descriptors.PersistenceEntity;
+import org.eclipse.persistence.internal.weaving.PersistenceWeaved;
+import org.eclipse.persistence.internal.weaving.PersistenceWeavedChangeTracking;
+import org.eclipse.persistence.internal.weaving.PersistenceWeavedFetchGroups;
+import org.eclipse.persistence.queries.FetchGroupTracker;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the entity classes on the test classpath went through the static weaving step
+ * of the Maven build (process-classes phase).
+ */
+public class StaticWeavingTest {
+    
+    @Test
+    @DisplayName("Test Shop is statically woven")
+    public void testShopIsWoven() {
+        assertTrue(PersistenceWeaved.class.isAssignableFrom(Shop.class),
+            "Shop is not woven, was the build run through the process-classes phase?");
+        assertTrue(PersistenceEntity.class.isAssignableFrom(Shop.class));
+    }
+    
+    @Test
+    @DisplayName("Test weaving enabled attribute change tracking and fetch groups")
+    public void testChangeTrackingAndFetchGroups() {
+        assertTrue(PersistenceWeavedChangeTracking.class.isAssignableFrom(Shop.class));
+        assertTrue(ChangeTracker.class.isAssignableFrom(Shop.class));
+        assertTrue(PersistenceWeavedFetchGroups.class.isAssignableFrom(Shop.class));
+        assertTrue(FetchGroupTracker.class.isAssignableFrom(Shop.class));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,130 @@
+package lab.eclipselink.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShopNameIndexTest {
+    
+    @Test
+    @DisplayName("Test substring search matches like a case-sensitive LIKE")
+    public void testSearch() {
+        ShopNameIndex index = loaded("Paris Books", "Lyon Bookstore", "Book", "books corner", "Food Court");
+        
+        assertArrayEquals(new long[] {1, 2, 3}, index.search("Book"));
+        assertArrayEquals(new long[] {4}, index.search("books"));
+        assertArrayEquals(new long[] {2}, index.search("kstor"));
+        assertArrayEquals(new long[0], index.search("Bookshelf"));
+        assertArrayEquals(new long[0], index.search("zzz"));
+    }
+    
+    @Test
+    @DisplayName("Test needles shorter than a trigram and the empty needle")
+    public void testShortNeedles() {
+        ShopNameIndex index = loaded("ab", "abc", "xyz");
+        
+        assertArrayEquals(new long[] {1, 2}, index.search("ab"));
+        assertArrayEquals(new long[] {3}, index.search("z"));
+        assertArrayEquals(new long[] {1, 2, 3}, index.search(""));
+    }
+    
+    @Test
+    @DisplayName("Test trigrams must be contiguous, not just all present")
+    public void testCandidatesAreVerified() {
+        ShopNameIndex index = loaded("abcd bcde", "abcde");
+        
+        assertArrayEquals(new long[] {2}, index.search("abcde"));
+    }
+    
+    @Test
+    @DisplayName("Test put replaces a name and remove drops the shop")
+    public void testWrites() {
+        ShopNameIndex index = loaded("Old Name", "Other");
+        
+        index.put(1, "New Name");
+        index.put(3, "Brand New");
+        index.remove(2);
+        
+        assertArrayEquals(new long[0], index.search("Old"));
+        assertArrayEquals(new long[] {1, 3}, sorted(index.search("New")));
+        assertArrayEquals(new long[0], index.search("Other"));
+        assertEquals(2, index.size());
+    }
+    
+    @Test
+    @DisplayName("Test writes made while loading win over the loaded rows")
+    public void testWritesDuringLoad() {
+        ShopNameIndex index = new ShopNameIndex();
+        index.beginLoad();
+        index.load(1, "Loaded One");
+        index.put(1, "Written One");
+        index.put(2, "Written Two");
+        index.remove(3);
+        index.load(2, "Stale Two");
+        index.load(3, "Deleted Three");
+        assertFalse(index.isReady());
+        index.finishLoad();
+        
+        assertTrue(index.isReady());
+        assertArrayEquals(new long[] {1, 2}, sorted(index.search("Written")));
+        assertArrayEquals(new long[0], index.search("Stale"));
+        assertArrayEquals(new long[0], index.search("Deleted"));
+    }
+    
+    @Test
+    @DisplayName("Test search results match a brute-force scan across churn and compaction")
+    public void testMatchesBruteForce() {
+        Random random = new Random(42);
+        String[] words = {"Paris", "Lyon", "Books", "Food", "Tech", "Corner", "Shop", "Market"};
+        String[] names = new String[20_000];
+        ShopNameIndex index = new ShopNameIndex();
+        index.beginLoad();
+        for (int id = 0; id < names.length; id++) {
+            names[id] = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + id;
+            index.load(id, names[id]);
+        }
+        index.finishLoad();
+        // Deleting most shops triggers compaction
+        for (int id = 0; id < 15_000; id++) {
+            index.remove(id);
+            names[id] = null;
+        }
+        for (int id = 15_000; id < 16_000; id++) {
+            names[id] = words[random.nextInt(words.length)] + " renamed " + id;
+            index.put(id, names[id]);
+        }
+        
+        for (String needle : new String[] {"Books", "ok", "renamed", "Lyon Tech", "1599", "Shop Shop", "x"}) {
+            List<Long> expected = new ArrayList<>();
+            for (int id = 0; id < names.length; id++) {
+                if (names[id] != null && names[id].contains(needle)) {
+                    expected.add((long) id);
+                }
+            }
+            assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), sorted(index.search(needle)), needle);
+        }
+        assertEquals(5_000, index.size());
+    }
+    
+    private static ShopNameIndex loaded(String... names) {
+        ShopNameIndex index = new ShopNameIndex();
+        index.beginLoad();
+        for (int i = 0; i < names.length; i++) {
+            index.load(i + 1, names[i]);
+        }
+        index.finishLoad();
+        return index;
+    }
+    
+    private static long[] sorted(long[] ids) {
+        long[] copy = ids.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
\ No newline at end of file
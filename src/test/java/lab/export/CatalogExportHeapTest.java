@@ -0,0 +1,151 @@
+package lab.export;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import lab.eclipselink.repository.ShopRepository;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exports millions of shops and gifts and checks that the live heap (measured after each GC)
+ * does not grow with the number of rows. Run with: ./mvnw test -Pbenchmark -Dbenchmark.export.rows=5000000
+ */
+@QuarkusTest
+@Tag("benchmark")
+public class CatalogExportHeapTest {
+    
+    private static final Logger LOG = Logger.getLogger(CatalogExportHeapTest.class);
+    
+    private static final int ROWS = Integer.getInteger("benchmark.export.rows", 2_000_000);
+    
+    /**
+     * Far below what materializing the rows would take (several hundred bytes per entity)
+     */
+    private static final long MAX_LIVE_HEAP_GROWTH = 64L * 1024 * 1024;
+    
+    @Inject
+    CatalogExporter exporter;
+    
+    @Inject
+    ShopRepository shopRepository;
+    
+    @Inject
+    EntityManager em;
+    
+    @AfterEach
+    public void tearDown() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            em.createNativeQuery("DELETE FROM gifts WHERE category = 'Export'").executeUpdate();
+            em.createNativeQuery("DELETE FROM shops WHERE category = 'Export'").executeUpdate();
+        });
+    }
+    
+    @Test
+    @DisplayName("Test exporting shops as NDJSON keeps the live heap bounded")
+    public void testShopExportHeap() throws Exception {
+        // Deploys the EclipseLink persistence unit, which creates the shops table
+        shopRepository.findAllAfter(null, 1);
+        insert("INSERT INTO shops (id, name, address, city, phone, category, version) "
+            + "SELECT nextval('shops_seq'), 'Export Shop ' || g, g || ' Main St', 'Paris', '555-0000', 'Export', 1 "
+            + "FROM generate_series(1, " + ROWS + ") g");
+        
+        CountingOutputStream out = new CountingOutputStream();
+        long growth = measureLiveHeapGrowth(() -> assertTrue(exporter.exportShops(ExportFormat.NDJSON, out) >= ROWS));
+        
+        LOG.infof("Exported %d shops (%d MB of NDJSON), live heap growth %d MB",
+            ROWS, out.count.get() / (1024 * 1024), growth / (1024 * 1024));
+        assertTrue(growth < MAX_LIVE_HEAP_GROWTH, "Live heap grew by " + growth + " bytes");
+    }
+    
+    @Test
+    @DisplayName("Test exporting gifts as CSV keeps the live heap bounded")
+    public void testGiftExportHeap() throws Exception {
+        insert("INSERT INTO gifts (id, name, description, price, category) "
+            + "SELECT nextval('gifts_seq'), 'Export Gift ' || g, 'Description, \"quoted\" ' || g, g % 1000, 'Export' "
+            + "FROM generate_series(1, " + ROWS + ") g");
+        
+        CountingOutputStream out = new CountingOutputStream();
+        long growth = measureLiveHeapGrowth(() -> assertTrue(exporter.exportGifts(ExportFormat.CSV, out) >= ROWS));
+        
+        LOG.infof("Exported %d gifts (%d MB of CSV), live heap growth %d MB",
+            ROWS, out.count.get() / (1024 * 1024), growth / (1024 * 1024));
+        assertTrue(growth < MAX_LIVE_HEAP_GROWTH, "Live heap grew by " + growth + " bytes");
+    }
+    
+    private void insert(String sql) {
+        QuarkusTransaction.requiringNew().timeout(600).run(() -> em.createNativeQuery(sql).executeUpdate());
+    }
+    
+    interface Export {
+        void run() throws Exception;
+    }
+    
+    /**
+     * Peak of the heap left after garbage collections while the export runs, minus the baseline
+     */
+    private static long measureLiveHeapGrowth(Export export) throws Exception {
+        System.gc();
+        long baseline = liveHeap();
+        AtomicLong peak = new AtomicLong(baseline);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                peak.accumulateAndGet(liveHeap(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "heap-sampler");
+        sampler.start();
+        try {
+            export.run();
+        } finally {
+            running.set(false);
+            sampler.join();
+        }
+        return peak.get() - baseline;
+    }
+    
+    private static long liveHeap() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage afterGc = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && afterGc != null) {
+                used += afterGc.getUsed();
+            }
+        }
+        return used;
+    }
+    
+    private static class CountingOutputStream extends OutputStream {
+        
+        final AtomicLong count = new AtomicLong();
+        
+        @Override
+        public void write(int b) {
+            count.incrementAndGet();
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count.addAndGet(len);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+package lab.export;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import lab.bulkimport.CatalogImporter;
+import lab.quarkus.entity.Gift;
+import lab.quarkus.repository.GiftRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A CSV export of the gifts imported back into an empty table gives the same rows
+ */
+@QuarkusTest
+public class CatalogRoundTripTest {
+    
+    @Inject
+    CatalogExporter exporter;
+    
+    @Inject
+    CatalogImporter importer;
+    
+    @Inject
+    GiftRepository giftRepository;
+    
+    @BeforeEach
+    public void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> giftRepository.deleteAll());
+    }
+    
+    @Test
+    @DisplayName("Test gifts survive a CSV export and import, empty descriptions included")
+    public void testGiftRoundTrip() throws Exception {
+        QuarkusTransaction.requiringNew().run(() -> {
+            giftRepository.persist(new Gift("Coffee Mug", "", 9.99, "Home"));
+            giftRepository.persist(new Gift("Teddy \"Bear\", large", "Soft\nand warm", 25.5, "Toys"));
+        });
+        Map<Long, List<Object>> exported = rows();
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(2, exporter.exportGifts(ExportFormat.CSV, out));
+        QuarkusTransaction.requiringNew().run(() -> giftRepository.deleteAll());
+        assertEquals(2, importer.importGifts(new StringReader(out.toString(StandardCharsets.UTF_8))));
+        
+        assertEquals(exported, rows());
+    }
+    
+    private Map<Long, List<Object>> rows() {
+        return QuarkusTransaction.requiringNew().call(() -> giftRepository.listAll().stream()
+            .collect(Collectors.toMap(gift -> gift.id, gift -> List.of(gift.name, gift.description, gift.price, gift.category))));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,67 @@
+package lab.export;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogWriterTest {
+    
+    @Test
+    @DisplayName("Test NDJSON rows with escaping, numbers and nulls")
+    public void testNdjson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CatalogWriter writer = new CatalogWriter(out, ExportFormat.NDJSON, "id", "name", "price");
+        
+        writer.write(1L, "Teddy \"Bear\"\n\\", 25.5);
+        writer.write(2L, "Café\u0001", null);
+        writer.flush();
+        
+        assertEquals("{\"id\":1,\"name\":\"Teddy \\\"Bear\\\"\\n\\\\\",\"price\":25.5}\n"
+            + "{\"id\":2,\"name\":\"Café\\u0001\",\"price\":null}\n", out.toString(StandardCharsets.UTF_8));
+    }
+    
+    @Test
+    @DisplayName("Test CSV header and RFC 4180 quoting")
+    public void testCsv() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CatalogWriter writer = new CatalogWriter(out, ExportFormat.CSV, "id", "name", "price");
+        
+        writer.write(1L, "Books, Paris", 10.0);
+        writer.write(2L, "Say \"hi\"", null);
+        writer.write(3L, "Plain", 7.25);
+        writer.flush();
+        
+        assertEquals("id,name,price\n"
+            + "1,\"Books, Paris\",10.0\n"
+            + "2,\"Say \"\"hi\"\"\",\n"
+            + "3,Plain,7.25\n", out.toString(StandardCharsets.UTF_8));
+    }
+    
+    @Test
+    @DisplayName("Test CSV keeps empty strings apart from nulls")
+    public void testCsvEmptyString() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CatalogWriter writer = new CatalogWriter(out, ExportFormat.CSV, "id", "name", "description");
+        
+        writer.write(1L, "Coffee Mug", "");
+        writer.write(2L, "Teddy Bear", null);
+        writer.flush();
+        
+        assertEquals("id,name,description\n"
+            + "1,Coffee Mug,\"\"\n"
+            + "2,Teddy Bear,\n", out.toString(StandardCharsets.UTF_8));
+    }
+    
+    @Test
+    @DisplayName("Test a row must have one value per column")
+    public void testColumnCount() throws IOException {
+        CatalogWriter writer = new CatalogWriter(new ByteArrayOutputStream(), ExportFormat.CSV, "id", "name");
+        
+        assertThrows(IllegalArgumentException.class, () -> writer.write(1L));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+package lab.guice;
+
+import lab.guice.service.Operation;
+import lab.guice.service.PureGuiceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Benchmark JMH des calculs de PureGuiceService sur un tableau de prix : un appel à
+ * calculate(double, double, String) par élément (résolution de la chaîne et message de log à
+ * chaque appel) contre l'API par lots (opération résolue une fois, boucle sur double[]), et
+ * processBusinessLogic par gift contre une règle de prix compilée appliquée au tableau.
+ * Lancé par {@link CalculationBatchBenchmarkTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CalculationBatchBenchmark {
+    
+    private static final double DISCOUNT_PERCENT = 20.0;
+    
+    private static final String RULE = "max(price * m - 5, 0)";
+    
+    @Param({"1000", "100000"})
+    public int size;
+    
+    private PureGuiceService calculator;
+    private double[] prices;
+    private double[] discounted;
+    private String[] processed;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Les messages INFO sont toujours construits à chaque appel, mais plus écrits sur la console,
+        // qui écraserait sinon toutes les mesures
+        Logger.getLogger(PureGuiceService.class.getName()).setLevel(java.util.logging.Level.WARNING);
+        calculator = new PureGuiceService();
+        Random random = new Random(42);
+        prices = new double[size];
+        for (int i = 0; i < size; i++) {
+            prices[i] = random.nextInt(100_000) / 100.0;
+        }
+        discounted = new double[size];
+        processed = new String[size];
+    }
+    
+    @Benchmark
+    public double perElementSum() {
+        double total = 0;
+        for (double price : prices) {
+            total = calculator.calculate(total, price, "add");
+        }
+        return total;
+    }
+    
+    @Benchmark
+    public double batchSum() {
+        return calculator.sum(prices);
+    }
+    
+    @Benchmark
+    public double[] perElementDiscount() {
+        // Même enchaînement que HybridCalculatorService.applyDiscountToGift
+        for (int i = 0; i < size; i++) {
+            double discountAmount = calculator.calculate(prices[i], DISCOUNT_PERCENT, "multiply");
+            discountAmount = calculator.calculate(discountAmount, 100.0, "divide");
+            discounted[i] = calculator.calculate(prices[i], discountAmount, "subtract");
+        }
+        return discounted;
+    }
+    
+    @Benchmark
+    public double[] batchDiscount() {
+        calculator.discount(prices, DISCOUNT_PERCENT, discounted);
+        return discounted;
+    }
+    
+    @Benchmark
+    public double[] batchScale() {
+        calculator.calculate(prices, 1.2, Operation.MULTIPLY, discounted);
+        return discounted;
+    }
+    
+    @Benchmark
+    public String[] perElementBusinessLogic() {
+        for (int i = 0; i < size; i++) {
+            processed[i] = calculator.processBusinessLogic(String.valueOf(prices[i]), 1.2);
+        }
+        return processed;
+    }
+    
+    @Benchmark
+    public double[] batchRule() {
+        calculator.applyRule(RULE, prices, 1.2, discounted);
+        return discounted;
+    }
+}
\ No newline at end of file
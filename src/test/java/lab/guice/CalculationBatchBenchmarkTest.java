@@ -0,0 +1,44 @@
+package lab.guice;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lance {@link CalculationBatchBenchmark} : latence (us/op) et allocation (gc.alloc.rate.norm, B/op)
+ * des calculs élément par élément avec une opération en chaîne vs l'API par lots et les règles compilées.
+ * Run with: ./mvnw test -Pbenchmark -Dtest=CalculationBatchBenchmarkTest
+ */
+@Tag("benchmark")
+public class CalculationBatchBenchmarkTest {
+    
+    @Test
+    @DisplayName("JMH : calculs élément par élément vs API par lots")
+    public void runBenchmark() throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(CalculationBatchBenchmark.class.getName())
+            // Des JVM forkées ne verraient pas le classpath de test de Surefire
+            .forks(0)
+            .warmupIterations(3)
+            .warmupTime(TimeValue.seconds(2))
+            .measurementIterations(5)
+            .measurementTime(TimeValue.seconds(2))
+            .addProfiler(GCProfiler.class)
+            .build();
+        
+        Collection<RunResult> results = new Runner(options).run();
+        
+        assertEquals(14, results.size());
+    }
+}
\ No newline at end of file
@@ -4,6 +4,7 @@ import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import lab.guice.service.GuiceGiftService;
+import lab.guice.service.ReactiveGuiceGiftService;
 import lab.quarkus.entity.Gift;
 import lab.quarkus.service.GiftService;
 import org.junit.jupiter.api.BeforeEach;
@@ -129,6 +130,20 @@ public class GuiceQuarkusIntegrationTest {
         LOG.info("Gift summary: " + summary);
     }
     
+    @Test
+    @DisplayName("Test résumé réactif des gifts via Guice, identique au résumé bloquant")
+    public void testReactiveGiftSummaryViaGuice() {
+        ReactiveGuiceGiftService reactiveGuiceGiftService = guiceManager.getInstance(ReactiveGuiceGiftService.class);
+        reactiveGuiceGiftService.createGift("Cheap Gift", "Affordable", 5.0, "Budget").await().indefinitely();
+        guiceGiftService.createGift("Expensive Gift", "Premium", 50.0, "Luxury");
+        
+        String summary = reactiveGuiceGiftService.getGiftSummary().await().indefinitely();
+        assertEquals(guiceGiftService.getGiftSummary(), summary);
+        assertTrue(summary.contains("Total=2"));
+        assertEquals(2, reactiveGuiceGiftService.getTotalGiftsCount().await().indefinitely());
+        assertEquals(1, reactiveGuiceGiftService.findGiftsByPriceRange(40.0, 60.0).await().indefinitely().size());
+    }
+    
     @Test
     @DisplayName("Test intégration mixte Guice et Quarkus CDI")
     public void testMixedGuiceQuarkusOperations() {
@@ -0,0 +1,56 @@
+package lab.guice;
+
+import lab.guice.service.PriceRule;
+import lab.guice.service.PureGuiceService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test de la compilation et de l'évaluation des règles de prix, sans Guice ni Quarkus
+ */
+public class PriceRuleTest {
+    
+    @Test
+    @DisplayName("Test évaluation des règles de prix")
+    public void testApply() {
+        assertEquals(15.0, PriceRule.compile("price * m - 5").apply(10.0, 2.0));
+        assertEquals(26.0, PriceRule.compile("(price + 3) * multiplier").apply(10.0, 2.0));
+        assertEquals(-20.0, PriceRule.compile("-price * 2").apply(10.0, 0.0));
+        assertEquals(512.0, PriceRule.compile("2 ^ 3 ^ 2").apply(0.0, 0.0));
+        assertEquals(10.0, PriceRule.compile("max(price * m - 50, 10)").apply(20.0, 2.0));
+        assertEquals(4.0, PriceRule.compile("min(abs(price - 9), 100) / .5").apply(7.0, 0.0));
+        assertEquals(7.5, PriceRule.compile("  PRICE*M  ").apply(2.5, 3.0));
+    }
+    
+    @Test
+    @DisplayName("Test règles de prix invalides")
+    public void testInvalidRules() {
+        assertThrows(IllegalArgumentException.class, () -> PriceRule.compile(""));
+        assertThrows(IllegalArgumentException.class, () -> PriceRule.compile("price *"));
+        assertThrows(IllegalArgumentException.class, () -> PriceRule.compile("(price * m"));
+        assertThrows(IllegalArgumentException.class, () -> PriceRule.compile("price % 2"));
+        assertThrows(IllegalArgumentException.class, () -> PriceRule.compile("discount(price)"));
+        assertThrows(IllegalArgumentException.class, () -> PriceRule.compile("1.2.3 * price"));
+        assertThrows(IllegalArgumentException.class, () -> PriceRule.compile("price / (2 - 2)"));
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> PriceRule.compile("price * total"));
+        assertTrue(error.getMessage().contains("position 8"), error.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> PriceRule.compile("price / m").apply(10.0, 0.0));
+    }
+    
+    @Test
+    @DisplayName("Test règle appliquée par lots et gardée en cache")
+    public void testApplyRuleInBatch() {
+        PureGuiceService calculator = new PureGuiceService();
+        double[] prices = {10.0, 25.0, 40.0};
+        double[] result = new double[prices.length];
+        
+        calculator.applyRule("price * m - 5", prices, 2.0, result);
+        
+        assertArrayEquals(new double[] {15.0, 45.0, 75.0}, result);
+        assertSame(calculator.compileRule("price * m - 5"), calculator.compileRule("price * m - 5"));
+        calculator.applyRule("price * 0.5", prices, 0.0, prices);
+        assertArrayEquals(new double[] {5.0, 12.5, 20.0}, prices);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+package lab.guice;
+
+import lab.guice.service.Operation;
+import lab.guice.service.PureGuiceService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test de l'API de calcul par lots de PureGuiceService, sans Guice ni Quarkus
+ */
+public class PureGuiceServiceTest {
+    
+    private final PureGuiceService calculator = new PureGuiceService();
+    
+    @Test
+    @DisplayName("Test des opérations par nom et par symbole")
+    public void testParseOperation() {
+        assertEquals(Operation.ADD, Operation.parse("ADD"));
+        assertEquals(Operation.DIVIDE, Operation.parse("/"));
+        assertEquals(8.0, calculator.calculate(2.0, 3.0, "^"));
+        assertThrows(IllegalArgumentException.class, () -> Operation.parse("modulo"));
+    }
+    
+    @Test
+    @DisplayName("Test calcul par lots identique au calcul élément par élément")
+    public void testBatchMatchesScalar() {
+        double[] values = randomPrices(1_003);
+        double[] result = new double[values.length];
+        for (Operation operation : Operation.values()) {
+            calculator.calculate(values, 1.5, operation, result);
+            for (int i = 0; i < values.length; i++) {
+                assertEquals(calculator.calculate(values[i], 1.5, operation), result[i], operation.name());
+            }
+        }
+        
+        double[] inPlace = values.clone();
+        calculator.calculate(inPlace, 2.0, Operation.MULTIPLY, inPlace);
+        assertEquals(values[7] * 2.0, inPlace[7]);
+        assertThrows(IllegalArgumentException.class, () -> calculator.calculate(values, 0.0, Operation.DIVIDE, result));
+        assertThrows(IllegalArgumentException.class, () -> calculator.calculate(values, 1.0, Operation.ADD, new double[1]));
+    }
+    
+    @Test
+    @DisplayName("Test somme et remise par lots")
+    public void testSumAndDiscount() {
+        double[] prices = randomPrices(10_001);
+        assertEquals(Arrays.stream(prices).sum(), calculator.sum(prices), 1e-6);
+        assertEquals(0.0, calculator.sum(new double[0]));
+        assertEquals(6.0, calculator.sum(new double[] {1.0, 2.0, 3.0}));
+        
+        double[] discounted = new double[prices.length];
+        calculator.discount(prices, 20.0, discounted);
+        for (int i = 0; i < prices.length; i++) {
+            assertEquals(prices[i] - prices[i] * 20.0 / 100.0, discounted[i], 1e-9);
+        }
+    }
+    
+    private static double[] randomPrices(int count) {
+        Random random = new Random(42);
+        double[] prices = new double[count];
+        for (int i = 0; i < count; i++) {
+            prices[i] = random.nextInt(100_000) / 100.0;
+        }
+        return prices;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,118 @@
+package lab.quarkus;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import lab.quarkus.entity.Gift;
+import lab.quarkus.repository.GiftPriceStatistics;
+import lab.quarkus.repository.GiftRepository;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Gift price statistics folded in Java over listAll() (the previous implementation) vs computed by
+ * the SQL aggregates of GiftRepository vs read from the columnar price snapshot, at 100k and 1M gifts.
+ * Run with: ./mvnw test -Pbenchmark -Dbenchmark.gifts=100000,1000000 (increasing sizes)
+ */
+@QuarkusTest
+@Tag("benchmark")
+public class GiftAggregateBenchmarkTest {
+    
+    private static final Logger LOG = Logger.getLogger(GiftAggregateBenchmarkTest.class);
+    
+    private static final int[] SIZES = Arrays.stream(System.getProperty("benchmark.gifts", "100000,1000000").split(","))
+        .mapToInt(size -> Integer.parseInt(size.trim())).toArray();
+    
+    private static final int RUNS = 5;
+    
+    @Inject
+    GiftRepository giftRepository;
+    
+    @Inject
+    EntityManager em;
+    
+    @AfterEach
+    public void tearDown() {
+        QuarkusTransaction.requiringNew().run(() ->
+            em.createNativeQuery("DELETE FROM gifts WHERE description = 'Aggregate'").executeUpdate());
+        giftRepository.rebuildPriceIndex();
+        giftRepository.rebuildPriceSnapshot();
+    }
+    
+    @Test
+    @DisplayName("Benchmark price statistics: listAll fold vs SQL aggregates vs snapshot")
+    public void benchmarkPriceStatistics() {
+        int inserted = 0;
+        for (int size : SIZES) {
+            int target = size;
+            int from = inserted + 1;
+            QuarkusTransaction.requiringNew().run(() -> em.createNativeQuery(
+                "INSERT INTO gifts (id, name, description, price, category) "
+                    + "SELECT nextval('gifts_seq'), 'Aggregate Gift ' || g, 'Aggregate', g % 500, "
+                    + "(ARRAY['Electronics', 'Books', 'Food', 'Clothing'])[g % 4 + 1] FROM generate_series(?1, ?2) g")
+                .setParameter(1, from)
+                .setParameter(2, target)
+                .executeUpdate());
+            inserted = size;
+            giftRepository.rebuildPriceSnapshot();
+            
+            GiftPriceStatistics folded = QuarkusTransaction.requiringNew().call(this::foldListAll);
+            GiftPriceStatistics aggregated = QuarkusTransaction.requiringNew().call(giftRepository::priceStatistics);
+            GiftPriceStatistics snapshot = giftRepository.priceSnapshot().statistics();
+            assertEquals(folded.count(), aggregated.count());
+            assertEquals(folded.sum(), aggregated.sum(), 1e-6 * Math.max(1, folded.sum()));
+            assertEquals(folded.min(), aggregated.min());
+            assertEquals(folded.max(), aggregated.max());
+            assertEquals(aggregated.count(), snapshot.count());
+            assertEquals(aggregated.sum(), snapshot.sum(), 1e-6 * Math.max(1, aggregated.sum()));
+            
+            double foldMillis = time(this::foldListAll);
+            double aggregateMillis = time(giftRepository::priceStatistics);
+            double byCategoryMillis = time(giftRepository::priceStatisticsByCategory);
+            double snapshotMillis = time(giftRepository.priceSnapshot()::statistics);
+            double snapshotByCategoryMillis = time(giftRepository.priceSnapshot()::statisticsByCategory);
+            LOG.infof("%d gifts: listAll fold %.1f ms, aggregates %.1f ms (x%.0f), grouped by category %.1f ms",
+                aggregated.count(), foldMillis, aggregateMillis, foldMillis / aggregateMillis, byCategoryMillis);
+            LOG.infof("%d gifts: snapshot %.2f ms, by category %.2f ms",
+                snapshot.count(), snapshotMillis, snapshotByCategoryMillis);
+        }
+    }
+    
+    private GiftPriceStatistics foldListAll() {
+        List<Gift> gifts = giftRepository.listAll();
+        double sum = 0;
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (Gift gift : gifts) {
+            sum += gift.price;
+            min = Math.min(min, gift.price);
+            max = Math.max(max, gift.price);
+        }
+        return gifts.isEmpty() ? GiftPriceStatistics.EMPTY
+            : new GiftPriceStatistics(gifts.size(), sum, sum / gifts.size(), min, max);
+    }
+    
+    /**
+     * Best of RUNS, each in its own transaction (fresh persistence context)
+     */
+    private static double time(Supplier<?> statistics) {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            Object result = QuarkusTransaction.requiringNew().call(statistics::get);
+            best = Math.min(best, System.nanoTime() - start);
+            assertNotNull(result);
+        }
+        return best / 1_000_000.0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,79 @@
+package lab.quarkus;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import lab.quarkus.entity.Gift;
+import lab.quarkus.service.GiftService;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Gifts created one transaction each through GiftService.create (what GuiceGiftService.createGift
+ * does, called in a loop by the importers) vs in bulk through GiftService.createAll (one
+ * transaction, JDBC batches).
+ * Run with: ./mvnw test -Pbenchmark -Dbenchmark.gifts=50000
+ */
+@QuarkusTest
+@Tag("benchmark")
+public class GiftBulkCreateBenchmarkTest {
+    
+    private static final Logger LOG = Logger.getLogger(GiftBulkCreateBenchmarkTest.class);
+    
+    private static final int GIFTS = Integer.getInteger("benchmark.gifts", 10_000);
+    
+    @Inject
+    GiftService giftService;
+    
+    @Inject
+    EntityManager em;
+    
+    @AfterEach
+    public void tearDown() {
+        QuarkusTransaction.requiringNew().run(() ->
+            em.createNativeQuery("DELETE FROM gifts WHERE description IN ('Loop', 'Bulk')").executeUpdate());
+    }
+    
+    @Test
+    @DisplayName("Benchmark gift creation: one transaction per gift vs createAll")
+    public void benchmarkBulkCreate() {
+        // Warm-up
+        for (int i = 0; i < 200; i++) {
+            giftService.create(new Gift("Warm-up Gift " + i, "Loop", (double) (i % 100), "Warm-up"));
+        }
+        giftService.createAll(gifts(2_000, "Bulk"));
+        
+        long start = System.nanoTime();
+        for (int i = 0; i < GIFTS; i++) {
+            giftService.create(new Gift("Loop Gift " + i, "Loop", (double) (i % 100), "Loop"));
+        }
+        double loopRate = GIFTS / ((System.nanoTime() - start) / 1_000_000_000.0);
+        
+        List<Gift> gifts = gifts(GIFTS, "Bulk");
+        start = System.nanoTime();
+        giftService.createAll(gifts);
+        double bulkRate = GIFTS / ((System.nanoTime() - start) / 1_000_000_000.0);
+        
+        LOG.infof("%d gifts: create loop %.0f gifts/s, createAll %.0f gifts/s (x%.1f)",
+            GIFTS, loopRate, bulkRate, bulkRate / loopRate);
+        assertTrue(gifts.stream().allMatch(gift -> gift.id != null));
+        assertTrue(bulkRate > loopRate, "createAll should outperform one transaction per gift");
+    }
+    
+    private static List<Gift> gifts(int count, String description) {
+        List<Gift> gifts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            gifts.add(new Gift("Bulk Gift " + i, description, (double) (i % 100), "Bulk"));
+        }
+        return gifts;
+    }
+}
\ No newline at end of file
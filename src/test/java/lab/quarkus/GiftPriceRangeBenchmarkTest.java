@@ -0,0 +1,113 @@
+package lab.quarkus;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import lab.quarkus.entity.Gift;
+import lab.quarkus.repository.GiftRepository;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * findByPriceRange latency with a SQL range query against the in-memory price index (ids resolved
+ * through the second-level cache), and the heap taken by the index.
+ * Run with: ./mvnw test -Pbenchmark -Dbenchmark.gifts=1000000
+ */
+@QuarkusTest
+@Tag("benchmark")
+public class GiftPriceRangeBenchmarkTest {
+    
+    private static final Logger LOG = Logger.getLogger(GiftPriceRangeBenchmarkTest.class);
+    
+    private static final int GIFTS = Integer.getInteger("benchmark.gifts", 200_000);
+    
+    private static final int SEARCHES = 500;
+    
+    @Inject
+    GiftRepository giftRepository;
+    
+    @Inject
+    EntityManager em;
+    
+    @AfterEach
+    public void tearDown() {
+        QuarkusTransaction.requiringNew().run(() ->
+            em.createNativeQuery("DELETE FROM gifts WHERE description = 'Range'").executeUpdate());
+        giftRepository.rebuildPriceIndex();
+        giftRepository.rebuildPriceSnapshot();
+    }
+    
+    @Test
+    @DisplayName("Benchmark SQL range query vs price index")
+    public void benchmarkPriceRange() {
+        QuarkusTransaction.requiringNew().run(() -> em.createNativeQuery(
+            "INSERT INTO gifts (id, name, description, price, category) "
+                + "SELECT nextval('gifts_seq'), 'Range Gift ' || g, 'Range', (g * 7919 % 1000000) / 100.0, "
+                + "(ARRAY['Electronics', 'Books', 'Food', 'Clothing'])[g % 4 + 1] FROM generate_series(1, ?1) g")
+            .setParameter(1, GIFTS)
+            .executeUpdate());
+        double[][] ranges = new double[SEARCHES][];
+        for (int i = 0; i < SEARCHES; i++) {
+            // Narrow ranges of about 0.05% of the catalog, as a product filter would use
+            double min = ThreadLocalRandom.current().nextInt(995_000) / 100.0;
+            ranges[i] = new double[] {min, min + 5};
+        }
+        
+        long[] sqlNanos = latencies(ranges, range -> giftRepository.find("price >= ?1 and price <= ?2", range[0], range[1]).list());
+        
+        Runtime runtime = Runtime.getRuntime();
+        long heapBefore = usedHeap(runtime);
+        long start = System.nanoTime();
+        giftRepository.rebuildPriceIndex();
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        long indexBytes = usedHeap(runtime) - heapBefore;
+        
+        // First pass fills the second-level cache, the second one is measured
+        latencies(ranges, range -> giftRepository.findByPriceRange(range[0], range[1]));
+        long[] indexNanos = latencies(ranges, range -> giftRepository.findByPriceRange(range[0], range[1]));
+        
+        LOG.infof("Price index over %d gifts: built in %d ms, ~%d MB of heap",
+            giftRepository.priceIndexSize(), buildMillis, indexBytes / (1024 * 1024));
+        LOG.infof("SQL range query: p50 %.2f ms, p99 %.2f ms", percentile(sqlNanos, 50), percentile(sqlNanos, 99));
+        LOG.infof("Price index: p50 %.2f ms, p99 %.2f ms", percentile(indexNanos, 50), percentile(indexNanos, 99));
+        assertTrue(giftRepository.priceIndexSize() >= GIFTS);
+        for (int i = 0; i < 20; i++) {
+            double[] range = ranges[i];
+            assertEquals(giftRepository.count("price >= ?1 and price <= ?2", range[0], range[1]),
+                giftRepository.findByPriceRange(range[0], range[1]).size());
+        }
+    }
+    
+    private long[] latencies(double[][] ranges, Function<double[], List<Gift>> search) {
+        long[] nanos = new long[ranges.length];
+        for (int i = 0; i < ranges.length; i++) {
+            double[] range = ranges[i];
+            long start = System.nanoTime();
+            QuarkusTransaction.requiringNew().call(() -> search.apply(range));
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+    
+    private static double percentile(long[] sortedNanos, int percentile) {
+        int index = Math.min(sortedNanos.length - 1, sortedNanos.length * percentile / 100);
+        return sortedNanos[index] / 1_000_000.0;
+    }
+    
+    private static long usedHeap(Runtime runtime) {
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,81 @@
+package lab.quarkus;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import lab.quarkus.entity.Gift;
+import lab.quarkus.repository.GiftRepository;
+import lab.quarkus.service.GiftService;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A category promotion applied gift by gift (each gift loaded and dirty-checked, one UPDATE per
+ * gift at flush) vs GiftService.repriceCategory (one UPDATE per id range).
+ * Run with: ./mvnw test -Pbenchmark -Dbenchmark.gifts=500000
+ */
+@QuarkusTest
+@Tag("benchmark")
+public class GiftRepricingBenchmarkTest {
+    
+    private static final Logger LOG = Logger.getLogger(GiftRepricingBenchmarkTest.class);
+    
+    private static final int GIFTS = Integer.getInteger("benchmark.gifts", 100_000);
+    
+    @Inject
+    GiftService giftService;
+    
+    @Inject
+    GiftRepository giftRepository;
+    
+    @Inject
+    EntityManager em;
+    
+    @BeforeEach
+    public void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> em.createNativeQuery(
+            "INSERT INTO gifts (id, name, description, price, category) "
+                + "SELECT nextval('gifts_seq'), 'Promo Gift ' || g, 'Promo', 1 + g % 500, "
+                + "(ARRAY['Promo A', 'Promo B'])[g % 2 + 1] FROM generate_series(1, ?1) g")
+            .setParameter(1, GIFTS)
+            .executeUpdate());
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        QuarkusTransaction.requiringNew().run(() ->
+            em.createNativeQuery("DELETE FROM gifts WHERE description = 'Promo'").executeUpdate());
+        giftRepository.rebuildPriceIndex();
+        giftRepository.rebuildPriceSnapshot();
+    }
+    
+    @Test
+    @DisplayName("Benchmark gift-by-gift vs set-based category repricing")
+    public void benchmarkRepricing() {
+        long start = System.nanoTime();
+        int perGift = QuarkusTransaction.requiringNew().call(() -> {
+            List<Gift> gifts = giftRepository.list("category", "Promo A");
+            gifts.forEach(gift -> gift.price = gift.price * 0.9);
+            return gifts.size();
+        });
+        long perGiftMillis = (System.nanoTime() - start) / 1_000_000;
+        
+        start = System.nanoTime();
+        long setBased = giftService.repriceCategory("Promo B", 0.9);
+        long setBasedMillis = (System.nanoTime() - start) / 1_000_000;
+        
+        LOG.infof("Repricing %d gifts: gift by gift %d ms, set-based %d ms", setBased, perGiftMillis, setBasedMillis);
+        assertEquals(perGift, setBased);
+        assertEquals(0, giftRepository.count("category = ?1 and price > 451", "Promo B"));
+        assertTrue(setBasedMillis < perGiftMillis, "the set-based UPDATE should outperform gift-by-gift repricing");
+    }
+}
\ No newline at end of file
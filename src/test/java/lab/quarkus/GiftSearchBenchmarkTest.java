@@ -0,0 +1,110 @@
+package lab.quarkus;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import lab.quarkus.entity.Gift;
+import lab.quarkus.repository.GiftRepository;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Gift search latency with LIKE '%x%' on name and description (sequential scan) vs the pg_trgm
+ * search of GiftRepository.search (GIN trigram index), on a generated catalog.
+ * Run with: ./mvnw test -Pbenchmark -Dbenchmark.gifts=1000000
+ */
+@QuarkusTest
+@Tag("benchmark")
+public class GiftSearchBenchmarkTest {
+    
+    private static final Logger LOG = Logger.getLogger(GiftSearchBenchmarkTest.class);
+    
+    private static final int GIFTS = Integer.getInteger("benchmark.gifts", 1_000_000);
+    
+    private static final int SEARCHES = 200;
+    
+    private static final int LIMIT = 20;
+    
+    private static final String[] WORDS = {"wireless", "ceramic", "leather", "wooden", "organic", "vintage", "silver", "bamboo"};
+    
+    @Inject
+    GiftRepository giftRepository;
+    
+    @Inject
+    EntityManager em;
+    
+    @BeforeEach
+    public void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> em.createNativeQuery(
+            "INSERT INTO gifts (id, name, description, price, category) "
+                + "SELECT nextval('gifts_seq'), initcap((ARRAY['wireless', 'ceramic', 'leather', 'wooden'])[g % 4 + 1]) || ' Item ' || g, "
+                + "'Search ' || (ARRAY['organic', 'vintage', 'silver', 'bamboo'])[g % 7 % 4 + 1] || ' model ' || md5(g::text), "
+                + "g % 500, 'Search' FROM generate_series(1, ?1) g")
+            .setParameter(1, GIFTS)
+            .executeUpdate());
+        assertTrue(giftRepository.enableTrigramSearch(), "the benchmark needs PostgreSQL with pg_trgm");
+        QuarkusTransaction.requiringNew().run(() -> em.createNativeQuery("ANALYZE gifts").executeUpdate());
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        QuarkusTransaction.requiringNew().run(() ->
+            em.createNativeQuery("DELETE FROM gifts WHERE category = 'Search'").executeUpdate());
+        giftRepository.rebuildPriceIndex();
+        giftRepository.rebuildPriceSnapshot();
+    }
+    
+    @Test
+    @DisplayName("Benchmark LIKE scan vs trigram search")
+    public void benchmarkSearch() {
+        String[] terms = new String[SEARCHES];
+        for (int i = 0; i < SEARCHES; i++) {
+            // Selective terms (an item number) and broad ones (a word of every eighth gift)
+            terms[i] = i % 2 == 0 ? "Item " + (i * 4999 % GIFTS) + " " : WORDS[i % WORDS.length];
+        }
+        
+        long[] likeNanos = latencies(terms, term -> giftRepository.find(
+                "lower(name) like ?1 or lower(description) like ?1 order by name, id", "%" + term.toLowerCase() + "%")
+            .page(0, LIMIT).list());
+        long[] trigramNanos = latencies(terms, term -> giftRepository.search(term, LIMIT));
+        
+        LOG.infof("Search over %d gifts, at most %d results", GIFTS, LIMIT);
+        LOG.infof("LIKE: p50 %.2f ms, p99 %.2f ms", percentile(likeNanos, 50), percentile(likeNanos, 99));
+        LOG.infof("pg_trgm: p50 %.2f ms, p99 %.2f ms", percentile(trigramNanos, 50), percentile(trigramNanos, 99));
+        assertEquals(LIMIT, giftRepository.search("vintage", LIMIT).size());
+        assertTrue(giftRepository.search("Item 4999 ", LIMIT).get(0).name.endsWith(" Item 4999"));
+    }
+    
+    private long[] latencies(String[] terms, Function<String, List<Gift>> search) {
+        // Warm-up
+        for (int i = 0; i < 20; i++) {
+            String term = terms[i];
+            QuarkusTransaction.requiringNew().call(() -> search.apply(term));
+        }
+        long[] nanos = new long[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            String term = terms[i];
+            long start = System.nanoTime();
+            QuarkusTransaction.requiringNew().call(() -> search.apply(term));
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+    
+    private static double percentile(long[] sortedNanos, int percentile) {
+        int index = Math.min(sortedNanos.length - 1, sortedNanos.length * percentile / 100);
+        return sortedNanos[index] / 1_000_000.0;
+    }
+}
\ No newline at end of file
@@ -4,11 +4,15 @@ import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import lab.quarkus.entity.Gift;
+import lab.quarkus.repository.GiftPriceStatistics;
+import lab.quarkus.repository.GiftRepository;
 import lab.quarkus.service.GiftService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -19,6 +23,9 @@ public class GiftServiceTest {
     @Inject
     GiftService giftService;
     
+    @Inject
+    GiftRepository giftRepository;
+    
     @BeforeEach
     @Transactional
     public void setUp() {
@@ -167,4 +174,174 @@ public class GiftServiceTest {
         assertEquals(1, giftsWithWireless.size());
         assertEquals("Wireless Headphones", giftsWithWireless.get(0).name);
     }
+    
+    @Test
+    @DisplayName("Test price aggregates computed by the database")
+    public void testPriceStatistics() {
+        // Given
+        assertEquals(GiftPriceStatistics.EMPTY, giftRepository.priceStatistics());
+        assertTrue(giftRepository.priceStatisticsByCategory().isEmpty());
+        giftService.create(new Gift("Gift 1", "Description 1", 10.0, "Books"));
+        giftService.create(new Gift("Gift 2", "Description 2", 30.0, "Books"));
+        giftService.create(new Gift("Gift 3", "Description 3", 20.0, "Electronics"));
+        
+        // When
+        GiftPriceStatistics statistics = giftRepository.priceStatistics();
+        Map<String, GiftPriceStatistics> byCategory = giftRepository.priceStatisticsByCategory();
+        
+        // Then
+        assertEquals(new GiftPriceStatistics(3, 60.0, 20.0, 10.0, 30.0), statistics);
+        assertEquals(List.of("Books", "Electronics"), List.copyOf(byCategory.keySet()));
+        assertEquals(new GiftPriceStatistics(2, 40.0, 20.0, 10.0, 30.0), byCategory.get("Books"));
+        assertEquals(new GiftPriceStatistics(1, 20.0, 20.0, 20.0, 20.0), byCategory.get("Electronics"));
+    }
+    
+    @Test
+    @DisplayName("Test creating gifts in bulk")
+    public void testCreateAll() {
+        // Given
+        List<Gift> gifts = new ArrayList<>();
+        for (int i = 0; i < 1234; i++) {
+            gifts.add(new Gift("Bulk Gift " + i, "Bulk", (double) (i % 100), "Bulk"));
+        }
+        
+        // When
+        List<Gift> created = giftService.createAll(gifts);
+        
+        // Then
+        assertEquals(1234, created.size());
+        assertTrue(created.stream().allMatch(gift -> gift.id != null));
+        assertEquals(1234, created.stream().map(gift -> gift.id).distinct().count());
+        assertEquals(1234, giftService.findByCategory("Bulk").size());
+        assertTrue(giftService.createAll(List.of()).isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Test the price index answers like the SQL query across writes")
+    public void testPriceIndexMatchesQuery() {
+        // Given
+        List<Gift> gifts = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            gifts.add(giftService.create(new Gift("Indexed Gift " + i, "Index", (double) (i % 60), "Index")));
+        }
+        giftRepository.rebuildPriceIndex();
+        assertTrue(giftRepository.isPriceIndexReady());
+        
+        // When
+        giftService.update(gifts.get(0).id, new Gift("Indexed Gift 0", "Index", 99.5, "Index"));
+        giftService.delete(gifts.get(1).id);
+        giftService.create(new Gift("Indexed Gift new", "Index", 12.25, "Index"));
+        
+        // Then
+        assertEquals(300, giftRepository.priceIndexSize());
+        double[][] ranges = {{0, 10}, {12, 12.5}, {59, 100}, {30.5, 30.6}, {0, 1000}};
+        for (double[] range : ranges) {
+            List<Long> expected = giftRepository.find("price >= ?1 and price <= ?2 order by id", range[0], range[1])
+                .list().stream().map(gift -> gift.id).toList();
+            List<Long> indexed = giftService.findByPriceRange(range[0], range[1]).stream()
+                .map(gift -> gift.id).sorted().toList();
+            assertEquals(expected, indexed, range[0] + ".." + range[1]);
+        }
+    }
+    
+    @Test
+    @DisplayName("Test stateless scan and rewrite of every gift")
+    public void testRewriteAll() {
+        // Given
+        List<Gift> gifts = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            gifts.add(new Gift("Rewritten Gift " + i, "Rewrite", (double) (10 + i), i % 2 == 0 ? "Even" : "Odd"));
+        }
+        giftService.createAll(gifts);
+        Gift cached = giftService.findById(gifts.get(0).id).orElseThrow();
+        assertEquals(10.0, cached.price);
+        
+        // When: chunks of 10, so the last one is partial
+        long updated = giftRepository.rewriteAll(10, gift -> {
+            if (!"Even".equals(gift.category)) {
+                return false;
+            }
+            gift.price = gift.price * 2;
+            return true;
+        });
+        List<Long> scannedIds = new ArrayList<>();
+        long scanned = giftRepository.scanAll(10, gift -> scannedIds.add(gift.id));
+        
+        // Then
+        assertEquals(13, updated);
+        assertEquals(25, scanned);
+        assertEquals(gifts.stream().map(gift -> gift.id).toList(), scannedIds);
+        assertEquals(20.0, giftService.findById(gifts.get(0).id).orElseThrow().price);
+        assertEquals(11.0, giftService.findById(gifts.get(1).id).orElseThrow().price);
+        assertEquals(13, giftService.findByPriceRange(20.0, 100.0).stream()
+            .filter(gift -> "Even".equals(gift.category)).count());
+    }
+    
+    @Test
+    @DisplayName("Test repricing a category in bulk")
+    public void testRepriceCategory() {
+        // Given
+        Gift book = giftService.create(new Gift("Novel", "Book", 20.0, "Books"));
+        Gift freeBook = giftService.create(new Gift("Leaflet", "Book", 0.0, "Books"));
+        Gift toy = giftService.create(new Gift("Puzzle", "Toy", 30.0, "Toys"));
+        assertEquals(20.0, giftService.findById(book.id).orElseThrow().price);
+        assertEquals(1, giftService.findByPriceRange(15.0, 25.0).size());
+        
+        // When
+        long repriced = giftService.applyDiscountToCategory("Books", 25);
+        
+        // Then: the free book keeps its price, so it is not counted
+        assertEquals(1, repriced);
+        assertEquals(15.0, giftService.findById(book.id).orElseThrow().price);
+        assertEquals(0.0, giftService.findById(freeBook.id).orElseThrow().price);
+        assertEquals(30.0, giftService.findById(toy.id).orElseThrow().price);
+        assertEquals(0, giftService.findByPriceRange(15.5, 25.0).size());
+        assertEquals(2, giftService.repriceCategory("Toys", 2) + giftService.repriceCategory("Books", 2));
+        assertEquals(0, giftService.repriceCategory("Unknown", 2));
+        assertThrows(IllegalArgumentException.class, () -> giftService.repriceCategory("Books", -1));
+    }
+    
+    @Test
+    @DisplayName("Test searching gift names and descriptions")
+    public void testSearch() {
+        // Given
+        Gift headphones = giftService.create(new Gift("Wireless Headphones", "Bluetooth audio", 89.99, "Electronics"));
+        Gift speaker = giftService.create(new Gift("Speaker", "Wireless speaker with deep bass", 59.99, "Electronics"));
+        giftService.create(new Gift("Coffee Mug", "Ceramic mug", 15.99, "Home"));
+        
+        // When
+        boolean trigram = giftRepository.enableTrigramSearch();
+        
+        // Then
+        assertEquals(List.of(headphones.id), giftService.search("headphones", 10).stream().map(gift -> gift.id).toList());
+        assertEquals(2, giftService.search("WIRELESS", 10).size());
+        assertEquals(1, giftService.search("wireless", 1).size());
+        assertTrue(giftService.search("teapot", 10).isEmpty());
+        if (trigram) {
+            // Close spellings match too
+            assertEquals(speaker.id, giftService.search("speakr", 10).get(0).id);
+        }
+        assertThrows(IllegalArgumentException.class, () -> giftService.search("wireless", 0));
+    }
+    
+    @Test
+    @DisplayName("Test the price snapshot follows committed writes")
+    public void testPriceSnapshotMatchesAggregates() {
+        // Given
+        giftRepository.rebuildPriceSnapshot();
+        Gift book = giftService.create(new Gift("Novel", "Book", 20.0, "Books"));
+        Gift toy = giftService.create(new Gift("Puzzle", "Toy", 30.0, "Toys"));
+        giftService.createAll(List.of(new Gift("Atlas", "Book", 40.0, "Books"), new Gift("Kite", "Toy", 5.0, "Toys")));
+        
+        // When
+        giftService.update(book.id, new Gift("Novel", "Book", 25.0, "Toys"));
+        giftService.delete(toy.id);
+        giftService.repriceCategory("Books", 0.5);
+        
+        // Then
+        assertTrue(giftRepository.priceSnapshot().isReady());
+        assertEquals(giftRepository.priceStatistics(), giftRepository.priceSnapshot().statistics());
+        assertEquals(giftRepository.priceStatisticsByCategory(), giftRepository.priceSnapshot().statisticsByCategory());
+        assertEquals(new GiftPriceStatistics(3, 50.0, 50.0 / 3, 5.0, 25.0), giftRepository.priceSnapshot().statistics());
+    }
 }
\ No newline at end of file
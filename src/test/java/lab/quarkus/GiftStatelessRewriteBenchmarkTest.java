@@ -0,0 +1,115 @@
+package lab.quarkus;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import lab.quarkus.repository.GiftRepository;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A rewrite of every gift through the stateful Panache session (one transaction, every gift kept
+ * and dirty-checked until the commit) vs GiftRepository.rewriteAll (stateless chunks): time and
+ * peak heap.
+ * Run with: ./mvnw test -Pbenchmark -Dbenchmark.gifts=2000000
+ */
+@QuarkusTest
+@Tag("benchmark")
+public class GiftStatelessRewriteBenchmarkTest {
+    
+    private static final Logger LOG = Logger.getLogger(GiftStatelessRewriteBenchmarkTest.class);
+    
+    private static final int GIFTS = Integer.getInteger("benchmark.gifts", 200_000);
+    
+    private static final int CHUNK_SIZE = 1000;
+    
+    @Inject
+    GiftRepository giftRepository;
+    
+    @Inject
+    EntityManager em;
+    
+    @BeforeEach
+    public void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> em.createNativeQuery(
+            "INSERT INTO gifts (id, name, description, price, category) "
+                + "SELECT nextval('gifts_seq'), 'Rewrite Gift ' || g, 'Rewrite', g % 500, "
+                + "(ARRAY['Electronics', 'Books', 'Food', 'Clothing'])[g % 4 + 1] FROM generate_series(1, ?1) g")
+            .setParameter(1, GIFTS)
+            .executeUpdate());
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        QuarkusTransaction.requiringNew().run(() ->
+            em.createNativeQuery("DELETE FROM gifts WHERE description = 'Rewrite'").executeUpdate());
+        giftRepository.rebuildPriceIndex();
+        giftRepository.rebuildPriceSnapshot();
+    }
+    
+    @Test
+    @DisplayName("Benchmark stateful vs stateless rewrite of every gift")
+    public void benchmarkRewrite() {
+        long start = System.nanoTime();
+        long[] statefulHeap = new long[1];
+        long statefulCount = peakHeap(statefulHeap, () -> QuarkusTransaction.requiringNew().call(() ->
+            giftRepository.streamAll().peek(gift -> gift.price = gift.price + 1).count()));
+        long statefulMillis = (System.nanoTime() - start) / 1_000_000;
+        
+        start = System.nanoTime();
+        long[] statelessHeap = new long[1];
+        long statelessCount = peakHeap(statelessHeap, () -> giftRepository.rewriteAll(CHUNK_SIZE, gift -> {
+            gift.price = gift.price + 1;
+            return true;
+        }));
+        long statelessMillis = (System.nanoTime() - start) / 1_000_000;
+        
+        LOG.infof("%d gifts rewritten - stateful session: %d ms, peak +%d MB; stateless chunks: %d ms, peak +%d MB",
+            statelessCount, statefulMillis, statefulHeap[0] / (1024 * 1024), statelessMillis, statelessHeap[0] / (1024 * 1024));
+        assertEquals(statefulCount, statelessCount);
+        assertTrue(statelessCount >= GIFTS);
+        assertTrue(statelessHeap[0] < statefulHeap[0], "the stateless rewrite should not grow with the table");
+    }
+    
+    /**
+     * Runs the rewrite while sampling the used heap; the peak above the starting point goes to peak[0]
+     */
+    private static long peakHeap(long[] peak, LongSupplier rewrite) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong max = new AtomicLong();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                max.accumulateAndGet(memory.getHeapMemoryUsage().getUsed() - baseline, Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.setDaemon(true);
+        sampler.start();
+        try {
+            return rewrite.getAsLong();
+        } finally {
+            running.set(false);
+            peak[0] = max.get();
+        }
+    }
+}
\ No newline at end of file
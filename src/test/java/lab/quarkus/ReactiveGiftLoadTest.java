@@ -0,0 +1,173 @@
+package lab.quarkus;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Multi;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import lab.quarkus.repository.GiftRepository;
+import lab.quarkus.service.ReactiveGiftService;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The same finder load at high concurrency on the blocking stack (one worker thread per in-flight
+ * request, over the JDBC pool) and on the reactive one (all requests in flight on the event loop,
+ * over the reactive pool of the same size): throughput, peak threads and peak heap per connection.
+ * Run with: ./mvnw test -Pbenchmark -Dbenchmark.requests=50000 -Dbenchmark.concurrency=1000
+ */
+@QuarkusTest
+@Tag("benchmark")
+public class ReactiveGiftLoadTest {
+    
+    private static final Logger LOG = Logger.getLogger(ReactiveGiftLoadTest.class);
+    
+    private static final int REQUESTS = Integer.getInteger("benchmark.requests", 20_000);
+    
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 500);
+    
+    @Inject
+    GiftRepository giftRepository;
+    
+    @Inject
+    ReactiveGiftService reactiveGiftService;
+    
+    @Inject
+    EntityManager em;
+    
+    @ConfigProperty(name = "quarkus.datasource.jdbc.max-size")
+    int jdbcPoolSize;
+    
+    @ConfigProperty(name = "quarkus.datasource.reactive.max-size")
+    int reactivePoolSize;
+    
+    @BeforeEach
+    public void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> em.createNativeQuery(
+            "INSERT INTO gifts (id, name, description, price, category) "
+                + "SELECT nextval('gifts_seq'), 'Load Gift ' || g, 'Load', g % 500, "
+                + "(ARRAY['Electronics', 'Books', 'Food', 'Clothing'])[g % 4 + 1] FROM generate_series(1, 20000) g")
+            .executeUpdate());
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        QuarkusTransaction.requiringNew().run(() ->
+            em.createNativeQuery("DELETE FROM gifts WHERE description = 'Load'").executeUpdate());
+    }
+    
+    @Test
+    @DisplayName("Benchmark blocking vs reactive gift finders at high concurrency")
+    public void benchmarkLoad() throws Exception {
+        // Warm-up
+        runBlocking(REQUESTS / 10);
+        runReactive(REQUESTS / 10);
+        
+        Measure blocking = measure(() -> runBlocking(REQUESTS));
+        Measure reactive = measure(() -> runReactive(REQUESTS));
+        
+        LOG.infof("%d finders, %d in flight - blocking: %.0f requests/s, %d threads, %d KB heap per connection",
+            REQUESTS, CONCURRENCY, blocking.rate(), blocking.peakThreads(), blocking.peakHeap() / jdbcPoolSize / 1024);
+        LOG.infof("%d finders, %d in flight - reactive: %.0f requests/s, %d threads, %d KB heap per connection",
+            REQUESTS, CONCURRENCY, reactive.rate(), reactive.peakThreads(), reactive.peakHeap() / reactivePoolSize / 1024);
+        assertEquals(blocking.results(), reactive.results());
+        assertTrue(reactive.peakThreads() < blocking.peakThreads(), "the reactive stack should not need a thread per request");
+    }
+    
+    /**
+     * Each request is a name search and a lookup by id. The blocking side runs them as plain queries,
+     * so that both stacks go to the database (GiftService's finders would be answered by the caches).
+     */
+    private int runBlocking(int requests) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>(requests);
+            for (int r = 0; r < requests; r++) {
+                int request = r;
+                futures.add(executor.submit(() -> QuarkusTransaction.requiringNew().call(() ->
+                    giftRepository.find("name like ?1", "%Gift " + request % 5000 + "9%").list().size()
+                        + (int) giftRepository.find("id", (long) request).stream().count())));
+            }
+            int results = 0;
+            for (Future<Integer> future : futures) {
+                results += future.get();
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+    
+    private int runReactive(int requests) {
+        return Multi.createFrom().range(0, requests)
+            .onItem().transformToUni(request -> reactiveGiftService.findByNameContaining("Gift " + request % 5000 + "9")
+                .flatMap(gifts -> reactiveGiftService.findById((long) request)
+                    .map(gift -> gifts.size() + (gift.isPresent() ? 1 : 0))))
+            .merge(CONCURRENCY)
+            .collect().asList()
+            .await().indefinitely()
+            .stream().mapToInt(Integer::intValue).sum();
+    }
+    
+    /**
+     * Runs the load while sampling the used heap, relative to the heap used before it starts
+     */
+    private static Measure measure(Load load) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        threads.resetPeakThreadCount();
+        AtomicLong peakHeap = new AtomicLong();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed() - baseline, Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.setDaemon(true);
+        sampler.start();
+        long start = System.nanoTime();
+        int results;
+        try {
+            results = load.run();
+        } finally {
+            running.set(false);
+            sampler.join();
+        }
+        double rate = REQUESTS / ((System.nanoTime() - start) / 1_000_000_000.0);
+        return new Measure(results, rate, threads.getPeakThreadCount(), peakHeap.get());
+    }
+    
+    private interface Load {
+        int run() throws Exception;
+    }
+    
+    private record Measure(int results, double rate, int peakThreads, long peakHeap) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package lab.quarkus;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import lab.quarkus.entity.Gift;
+import lab.quarkus.service.GiftService;
+import lab.quarkus.service.ReactiveGiftService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class ReactiveGiftServiceTest {
+    
+    @Inject
+    ReactiveGiftService reactiveGiftService;
+    
+    @Inject
+    GiftService giftService;
+    
+    @BeforeEach
+    public void setUp() {
+        giftService.findAll().forEach(gift -> giftService.delete(gift.id));
+    }
+    
+    @Test
+    @DisplayName("Test gifts written by the reactive stack are read by the blocking one")
+    public void testCreateAndFind() {
+        // Given
+        Gift created = reactiveGiftService.create(new Gift("Reactive Gift", "Reactive", 42.5, "Reactive")).await().indefinitely();
+        Gift blockingGift = giftService.create(new Gift("Blocking Gift", "Blocking", 10.0, "Reactive"));
+        
+        // When
+        Optional<Gift> found = giftService.findById(created.id);
+        List<Gift> byCategory = reactiveGiftService.findByCategory("Reactive").await().indefinitely();
+        
+        // Then
+        assertNotNull(created.id);
+        assertNotEquals(blockingGift.id, created.id);
+        assertTrue(found.isPresent());
+        assertEquals("Reactive Gift", found.get().name);
+        assertEquals(42.5, found.get().price);
+        assertEquals(2, byCategory.size());
+        assertEquals(1, reactiveGiftService.findByPriceRange(40.0, 50.0).await().indefinitely().size());
+        assertEquals(1, reactiveGiftService.findByNameContaining("Blocking").await().indefinitely().size());
+    }
+    
+    @Test
+    @DisplayName("Test reactive writes evict the blocking stack's caches")
+    public void testWritesEvictCaches() {
+        // Given: the gift and a finder result are in the second-level and query caches
+        Gift gift = giftService.create(new Gift("Cached Gift", "Cached", 20.0, "Cached"));
+        assertEquals(20.0, giftService.findById(gift.id).orElseThrow().price);
+        assertEquals(1, giftService.findByCategory("Cached").size());
+        
+        // When
+        reactiveGiftService.update(gift.id, new Gift("Cached Gift", "Cached", 30.0, "Cached")).await().indefinitely();
+        reactiveGiftService.create(new Gift("Other Gift", "Cached", 5.0, "Cached")).await().indefinitely();
+        
+        // Then
+        assertEquals(30.0, giftService.findById(gift.id).orElseThrow().price);
+        assertEquals(2, giftService.findByCategory("Cached").size());
+        assertTrue(reactiveGiftService.delete(gift.id).await().indefinitely());
+        assertFalse(reactiveGiftService.delete(gift.id).await().indefinitely());
+        assertTrue(giftService.findById(gift.id).isEmpty());
+        assertEquals(1, giftService.findByCategory("Cached").size());
+    }
+    
+    @Test
+    @DisplayName("Test batch creation and streaming")
+    public void testCreateAllAndStream() {
+        // Given
+        List<Gift> gifts = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            gifts.add(new Gift("Batch Gift " + i, "Batch", (double) (i % 25), "Batch"));
+        }
+        
+        // When
+        reactiveGiftService.createAll(gifts).await().indefinitely();
+        List<Gift> streamed = reactiveGiftService.streamAll().collect().asList().await().indefinitely();
+        
+        // Then
+        assertTrue(gifts.stream().allMatch(gift -> gift.id != null));
+        assertEquals(250, gifts.stream().map(gift -> gift.id).distinct().count());
+        assertEquals(250, streamed.size());
+        assertEquals(gifts.stream().map(gift -> gift.id).sorted().toList(), streamed.stream().map(gift -> gift.id).toList());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,159 @@
+package lab.quarkus.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GiftPriceIndexTest {
+    
+    @Test
+    @DisplayName("Test range bounds are inclusive and results ordered by price")
+    public void testRange() {
+        GiftPriceIndex index = loaded(10.0, 20.0, 20.0, 35.5, 50.0);
+        
+        assertArrayEquals(new long[] {1, 2, 3}, index.range(10.0, 20.0));
+        assertArrayEquals(new long[] {2, 3, 4}, index.range(15.0, 40.0));
+        assertArrayEquals(new long[] {5}, index.range(50.0, 1000.0));
+        assertArrayEquals(new long[0], index.range(20.5, 35.0));
+        assertArrayEquals(new long[0], index.range(40.0, 30.0));
+        assertArrayEquals(new long[0], index.range(Double.NaN, 30.0));
+        assertArrayEquals(new long[] {1, 2, 3, 4, 5}, index.range(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY));
+    }
+    
+    @Test
+    @DisplayName("Test put moves a gift to its new price and remove drops it")
+    public void testWrites() {
+        GiftPriceIndex index = loaded(10.0, 20.0, 30.0);
+        
+        index.put(1, 25.0, 1);
+        index.put(4, 5.0, 0);
+        index.remove(2, 0);
+        index.remove(99, 0);
+        
+        assertArrayEquals(new long[] {4, 1, 3}, index.range(0.0, 100.0));
+        assertArrayEquals(new long[0], index.range(10.0, 20.0));
+        assertEquals(3, index.size());
+    }
+    
+    @Test
+    @DisplayName("Test rows loaded out of (price, id) order are rejected")
+    public void testLoadOrder() {
+        GiftPriceIndex index = new GiftPriceIndex();
+        index.beginLoad();
+        index.load(2, 10.0, 0);
+        
+        assertThrows(IllegalArgumentException.class, () -> index.load(1, 10.0, 0));
+        assertThrows(IllegalArgumentException.class, () -> index.load(3, 9.0, 0));
+        index.load(1, 11.0, 0);
+    }
+    
+    @Test
+    @DisplayName("Test writes made while loading win over older loaded rows")
+    public void testWritesDuringLoad() {
+        GiftPriceIndex index = new GiftPriceIndex();
+        index.beginLoad();
+        index.load(1, 10.0, 0);
+        index.put(1, 99.0, 1);
+        index.put(2, 15.0, 1);
+        index.remove(3, 0);
+        index.put(4, 1.0, 0);
+        index.load(2, 20.0, 0);
+        index.load(3, 30.0, 0);
+        index.load(4, 40.0, 1);
+        assertFalse(index.isReady());
+        assertThrows(IllegalArgumentException.class, () -> index.load(5, 5.0, 0));
+        index.finishLoad();
+        
+        assertTrue(index.isReady());
+        assertArrayEquals(new long[] {2, 4, 1}, index.range(0.0, 100.0));
+        assertEquals(3, index.size());
+    }
+    
+    @Test
+    @DisplayName("Test writes reported out of order keep the latest version, and deleted gifts stay deleted")
+    public void testOutOfOrderWrites() {
+        GiftPriceIndex index = loaded(10.0, 20.0);
+        
+        // Two transactions updated gift 1, the second one's commit is reported first
+        index.put(1, 30.0, 2);
+        index.put(1, 15.0, 1);
+        index.put(1, 25.0, 2);
+        // Gift 2 updated then deleted, the update reported last
+        index.remove(2, 1);
+        index.put(2, 50.0, 1);
+        index.remove(2, 0);
+        
+        assertArrayEquals(new long[] {1}, index.range(0.0, 100.0));
+        assertArrayEquals(new long[] {1}, index.range(30.0, 30.0));
+        
+        // The tombstone outlives a reload that started before the delete committed
+        index.beginLoad();
+        index.load(1, 30.0, 2);
+        index.load(2, 50.0, 1);
+        index.finishLoad();
+        assertArrayEquals(new long[] {1}, index.range(0.0, 100.0));
+        assertEquals(1, index.size());
+    }
+    
+    @Test
+    @DisplayName("Test ranges match a brute-force scan across churn and merges")
+    public void testMatchesBruteForce() {
+        Random random = new Random(42);
+        Map<Long, Double> prices = new HashMap<>();
+        List<double[]> rows = new ArrayList<>();
+        for (long id = 0; id < 20_000; id++) {
+            double price = random.nextInt(50_000) / 100.0;
+            prices.put(id, price);
+            rows.add(new double[] {price, id});
+        }
+        rows.sort(Comparator.<double[]>comparingDouble(row -> row[0]).thenComparingDouble(row -> row[1]));
+        GiftPriceIndex index = new GiftPriceIndex();
+        index.beginLoad();
+        rows.forEach(row -> index.load((long) row[1], row[0], 0));
+        index.finishLoad();
+        // Enough writes to go through several merges of the delta and of the removed entries
+        Map<Long, Long> versions = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            long id = random.nextInt(25_000);
+            long version = versions.merge(id, 1L, Long::sum);
+            if (random.nextInt(3) == 0) {
+                index.remove(id, version);
+                prices.remove(id);
+            } else {
+                double price = random.nextInt(50_000) / 100.0;
+                index.put(id, price, version);
+                prices.put(id, price);
+            }
+        }
+        
+        for (int i = 0; i < 200; i++) {
+            double min = random.nextInt(50_000) / 100.0;
+            double max = min + random.nextInt(5_000) / 100.0;
+            long[] expected = prices.entrySet().stream()
+                .filter(entry -> entry.getValue() >= min && entry.getValue() <= max)
+                .sorted(Map.Entry.<Long, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                .mapToLong(Map.Entry::getKey)
+                .toArray();
+            assertArrayEquals(expected, index.range(min, max), min + ".." + max);
+        }
+        assertEquals(prices.size(), index.size());
+    }
+    
+    private static GiftPriceIndex loaded(double... prices) {
+        GiftPriceIndex index = new GiftPriceIndex();
+        index.beginLoad();
+        for (int i = 0; i < prices.length; i++) {
+            index.load(i + 1, prices[i], 0);
+        }
+        index.finishLoad();
+        return index;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,185 @@
+package lab.quarkus.index;
+
+import lab.quarkus.repository.GiftPriceStatistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GiftPriceSnapshotTest {
+    
+    @Test
+    @DisplayName("Test statistics overall and by category")
+    public void testStatistics() {
+        GiftPriceSnapshot snapshot = new GiftPriceSnapshot();
+        assertEquals(GiftPriceStatistics.EMPTY, snapshot.statistics());
+        snapshot.beginLoad();
+        snapshot.load(1, 10.0, "Books", 0);
+        snapshot.load(2, 30.0, "Books", 0);
+        snapshot.load(3, 20.0, "Electronics", 0);
+        snapshot.finishLoad();
+        
+        assertTrue(snapshot.isReady());
+        assertEquals(new GiftPriceStatistics(3, 60.0, 20.0, 10.0, 30.0), snapshot.statistics());
+        Map<String, GiftPriceStatistics> byCategory = snapshot.statisticsByCategory();
+        assertEquals(List.of("Books", "Electronics"), List.copyOf(byCategory.keySet()));
+        assertEquals(new GiftPriceStatistics(2, 40.0, 20.0, 10.0, 30.0), byCategory.get("Books"));
+        assertEquals(new GiftPriceStatistics(1, 20.0, 20.0, 20.0, 20.0), byCategory.get("Electronics"));
+    }
+    
+    @Test
+    @DisplayName("Test updates move gifts between categories and removals drop them")
+    public void testWrites() {
+        GiftPriceSnapshot snapshot = new GiftPriceSnapshot();
+        snapshot.beginLoad();
+        snapshot.load(1, 10.0, "Books", 0);
+        snapshot.load(2, 30.0, "Books", 0);
+        snapshot.finishLoad();
+        
+        snapshot.put(1, 15.0, "Toys", 1);
+        snapshot.put(3, 5.0, "Books", 0);
+        snapshot.remove(2, 0);
+        snapshot.remove(99, 0);
+        
+        assertEquals(2, snapshot.size());
+        assertEquals(new GiftPriceStatistics(2, 20.0, 10.0, 5.0, 15.0), snapshot.statistics());
+        Map<String, GiftPriceStatistics> byCategory = snapshot.statisticsByCategory();
+        assertEquals(new GiftPriceStatistics(1, 5.0, 5.0, 5.0, 5.0), byCategory.get("Books"));
+        assertEquals(new GiftPriceStatistics(1, 15.0, 15.0, 15.0, 15.0), byCategory.get("Toys"));
+        snapshot.remove(3, 0);
+        assertFalse(snapshot.statisticsByCategory().containsKey("Books"));
+    }
+    
+    @Test
+    @DisplayName("Test a category that loses its cheapest and dearest gifts gets its min and max back from the rows")
+    public void testMinMaxRemoved() {
+        GiftPriceSnapshot snapshot = new GiftPriceSnapshot();
+        snapshot.beginLoad();
+        snapshot.load(1, 10.0, "Books", 0);
+        snapshot.load(2, 20.0, "Books", 0);
+        snapshot.load(3, 30.0, "Books", 0);
+        snapshot.load(4, 40.0, "Books", 0);
+        snapshot.finishLoad();
+        assertEquals(new GiftPriceStatistics(4, 100.0, 25.0, 10.0, 40.0), snapshot.statisticsByCategory().get("Books"));
+        
+        snapshot.remove(1, 0);
+        snapshot.put(4, 25.0, "Books", 1);
+        assertEquals(new GiftPriceStatistics(3, 75.0, 25.0, 20.0, 30.0), snapshot.statisticsByCategory().get("Books"));
+        snapshot.put(2, 5.0, "Books", 1);
+        assertEquals(new GiftPriceStatistics(3, 60.0, 20.0, 5.0, 30.0), snapshot.statisticsByCategory().get("Books"));
+        
+        // A reload starts every category again
+        snapshot.beginLoad();
+        snapshot.load(5, 50.0, "Books", 0);
+        snapshot.finishLoad();
+        assertEquals(Map.of("Books", new GiftPriceStatistics(1, 50.0, 50.0, 50.0, 50.0)), snapshot.statisticsByCategory());
+    }
+    
+    @Test
+    @DisplayName("Test writes made while loading win over older loaded rows")
+    public void testWritesDuringLoad() {
+        GiftPriceSnapshot snapshot = new GiftPriceSnapshot();
+        snapshot.beginLoad();
+        snapshot.load(1, 10.0, "Books", 0);
+        snapshot.put(1, 99.0, "Books", 1);
+        snapshot.put(2, 15.0, "Books", 1);
+        snapshot.remove(3, 0);
+        snapshot.put(4, 1.0, "Books", 0);
+        snapshot.load(2, 20.0, "Books", 0);
+        snapshot.load(3, 30.0, "Books", 0);
+        snapshot.load(4, 40.0, "Books", 1);
+        assertFalse(snapshot.isReady());
+        snapshot.finishLoad();
+        
+        assertEquals(new GiftPriceStatistics(3, 154.0, 154.0 / 3, 15.0, 99.0), snapshot.statistics());
+    }
+    
+    @Test
+    @DisplayName("Test writes reported out of order keep the latest version, and deleted gifts stay deleted")
+    public void testOutOfOrderWrites() {
+        GiftPriceSnapshot snapshot = new GiftPriceSnapshot();
+        snapshot.beginLoad();
+        snapshot.load(1, 10.0, "Books", 0);
+        snapshot.load(2, 20.0, "Books", 0);
+        snapshot.finishLoad();
+        
+        // Two transactions updated gift 1, the second one's commit is reported first
+        snapshot.put(1, 30.0, "Toys", 2);
+        snapshot.put(1, 15.0, "Books", 1);
+        snapshot.put(1, 25.0, "Books", 2);
+        // Gift 2 updated then deleted, the update reported last
+        snapshot.remove(2, 1);
+        snapshot.put(2, 50.0, "Books", 1);
+        snapshot.remove(2, 0);
+        
+        assertEquals(1, snapshot.size());
+        assertEquals(Map.of("Toys", new GiftPriceStatistics(1, 30.0, 30.0, 30.0, 30.0)), snapshot.statisticsByCategory());
+        
+        // The tombstone outlives a reload that started before the delete committed
+        snapshot.beginLoad();
+        snapshot.load(1, 30.0, "Toys", 2);
+        snapshot.load(2, 50.0, "Books", 1);
+        snapshot.finishLoad();
+        assertEquals(new GiftPriceStatistics(1, 30.0, 30.0, 30.0, 30.0), snapshot.statistics());
+    }
+    
+    @Test
+    @DisplayName("Test statistics match a brute-force computation across churn")
+    public void testMatchesBruteForce() {
+        Random random = new Random(42);
+        Map<Long, Double> prices = new HashMap<>();
+        Map<Long, String> categories = new HashMap<>();
+        Map<Long, Long> versions = new HashMap<>();
+        GiftPriceSnapshot snapshot = new GiftPriceSnapshot();
+        snapshot.beginLoad();
+        snapshot.finishLoad();
+        for (int i = 0; i < 50_000; i++) {
+            long id = random.nextInt(5_000);
+            long version = versions.merge(id, 1L, Long::sum);
+            if (random.nextInt(4) == 0) {
+                snapshot.remove(id, version);
+                prices.remove(id);
+                categories.remove(id);
+            } else {
+                double price = random.nextInt(10_000) / 100.0;
+                String category = "Category " + random.nextInt(12);
+                snapshot.put(id, price, category, version);
+                prices.put(id, price);
+                categories.put(id, category);
+            }
+            if (i % 5_000 == 0) {
+                assertMatches(prices, categories, snapshot);
+            }
+        }
+        
+        assertEquals(prices.size(), snapshot.size());
+        GiftPriceStatistics statistics = snapshot.statistics();
+        assertEquals(prices.size(), statistics.count());
+        assertEquals(prices.values().stream().mapToDouble(Double::doubleValue).sum(), statistics.sum(), 1e-6);
+        assertEquals(prices.values().stream().mapToDouble(Double::doubleValue).min().orElseThrow(), statistics.min());
+        assertEquals(prices.values().stream().mapToDouble(Double::doubleValue).max().orElseThrow(), statistics.max());
+        assertMatches(prices, categories, snapshot);
+    }
+    
+    private static void assertMatches(Map<Long, Double> prices, Map<Long, String> categories, GiftPriceSnapshot snapshot) {
+        Map<String, GiftPriceStatistics> statistics = snapshot.statisticsByCategory();
+        assertEquals(Set.copyOf(categories.values()), statistics.keySet());
+        statistics.forEach((category, byCategory) -> {
+            double[] expected = prices.entrySet().stream()
+                .filter(entry -> category.equals(categories.get(entry.getKey())))
+                .mapToDouble(Map.Entry::getValue)
+                .toArray();
+            assertEquals(expected.length, byCategory.count(), category);
+            assertEquals(Arrays.stream(expected).sum(), byCategory.sum(), 1e-6, category);
+            assertEquals(Arrays.stream(expected).min().orElseThrow(), byCategory.min(), category);
+            assertEquals(Arrays.stream(expected).max().orElseThrow(), byCategory.max(), category);
+        });
+    }
+}
\ No newline at end of file
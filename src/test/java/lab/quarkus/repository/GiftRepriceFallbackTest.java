@@ -0,0 +1,100 @@
+package lab.quarkus.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Category repricing without UPDATE ... RETURNING, on an in-memory H2 database
+ * (the PostgreSQL path is covered by GiftServiceTest)
+ */
+public class GiftRepriceFallbackTest {
+    
+    private Connection connection;
+    
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:reprice;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE gifts (id BIGINT PRIMARY KEY, name VARCHAR(255) NOT NULL, "
+                + "description VARCHAR(255) NOT NULL, price DOUBLE PRECISION NOT NULL, category VARCHAR(255) NOT NULL, "
+                + "version BIGINT DEFAULT 0 NOT NULL)");
+            statement.execute("INSERT INTO gifts (id, name, description, price, category) VALUES "
+                + "(1, 'Novel', 'Book', 20, 'Books'), (2, 'Leaflet', 'Book', 0, 'Books'), "
+                + "(3, 'Puzzle', 'Toy', 30, 'Toys'), (4, 'Atlas', 'Book', 40, 'Books'), (5, 'Diary', 'Book', 10, 'Books')");
+        }
+    }
+    
+    @AfterEach
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+    
+    @Test
+    @DisplayName("Test the UPDATE counts the changed gifts and the SELECT returns the prices and versions of the id range")
+    public void testRepriceThenSelect() throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        
+        int changed = GiftRepository.repriceThenSelect(connection, "Books", 0.5, 1, 4, rows);
+        
+        // The free book keeps its price, so it is not counted, but it is in the range
+        assertEquals(2, changed);
+        assertEquals(Map.of(1L, 10.0, 2L, 0.0, 4L, 20.0), prices(rows));
+        assertEquals(Map.of(1L, 10.0, 2L, 0.0, 3L, 30.0, 4L, 20.0, 5L, 10.0), prices(table()));
+        // Only the changed gifts get a new version
+        assertEquals(Map.of(1L, 1L, 2L, 0L, 4L, 1L), versions(rows));
+    }
+    
+    @Test
+    @DisplayName("Test nothing is selected when no price changes")
+    public void testNothingChanged() throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        
+        assertEquals(0, GiftRepository.repriceThenSelect(connection, "Books", 1, 1, 5, rows));
+        assertEquals(0, GiftRepository.repriceThenSelect(connection, "Unknown", 2, 1, 5, rows));
+        assertTrue(rows.isEmpty());
+    }
+    
+    private List<Object[]> table() throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT id, price FROM gifts")) {
+            while (rs.next()) {
+                rows.add(new Object[] {rs.getLong(1), rs.getDouble(2)});
+            }
+        }
+        return rows;
+    }
+    
+    private static Map<Long, Long> versions(List<Object[]> rows) {
+        Map<Long, Long> versions = new TreeMap<>();
+        for (Object[] row : rows) {
+            versions.put((Long) row[0], (Long) row[2]);
+        }
+        return versions;
+    }
+    
+    private static Map<Long, Double> prices(List<Object[]> rows) {
+        Map<Long, Double> prices = new TreeMap<>();
+        for (Object[] row : rows) {
+            prices.put((Long) row[0], (Double) row[1]);
+        }
+        return prices;
+    }
+}
\ No newline at end of file
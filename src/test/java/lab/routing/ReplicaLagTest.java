@@ -0,0 +1,65 @@
+package lab.routing;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lag window fallback of the read-your-writes check, on in-memory H2 databases standing in for
+ * the primary and the replica (no WAL position to compare)
+ */
+public class ReplicaLagTest {
+    
+    @Test
+    @DisplayName("Test a write is located without WAL position on a database other than PostgreSQL")
+    public void testLocateWithoutWal() {
+        ReplicaLag lag = new ReplicaLag(dataSource("primary"), dataSource("replica"), Duration.ofSeconds(5));
+        WritePosition write = WritePosition.now();
+        
+        WritePosition located = lag.locate(write);
+        
+        assertFalse(write.located());
+        assertTrue(located.located());
+        assertNull(located.lsn());
+        assertEquals(write.nanoTime(), located.nanoTime());
+    }
+    
+    @Test
+    @DisplayName("Test the replica is assumed behind within the lag window and current after it")
+    public void testLagWindow() {
+        WritePosition write = WritePosition.now().at(null);
+        
+        assertFalse(new ReplicaLag(dataSource("primary"), dataSource("replica"), Duration.ofMinutes(1)).caughtUp(write));
+        assertTrue(new ReplicaLag(dataSource("primary"), dataSource("replica"), Duration.ZERO).caughtUp(write));
+    }
+    
+    @Test
+    @DisplayName("Test a failing WAL check falls back to the lag window")
+    public void testFailingWalCheck() {
+        ReplicaLag lag = new ReplicaLag(dataSource("primary"), dataSource("replica"), Duration.ofMinutes(1));
+        
+        assertFalse(lag.caughtUp(WritePosition.now().at("0/16B3748")));
+    }
+    
+    @Test
+    @DisplayName("Test nested replica read methods keep the scope open until the outermost returns")
+    public void testScopeNesting() {
+        assertFalse(ReplicaReadScope.isActive());
+        ReplicaReadScope.enter();
+        ReplicaReadScope.enter();
+        ReplicaReadScope.exit();
+        assertTrue(ReplicaReadScope.isActive());
+        ReplicaReadScope.exit();
+        assertFalse(ReplicaReadScope.isActive());
+    }
+    
+    private static JdbcDataSource dataSource(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name);
+        return dataSource;
+    }
+}
\ No newline at end of file